@@ -0,0 +1,32 @@
+/*
+ * JMH benchmarks of the plain Kotlin parts of Neo Launcher. Only the benchmarked sources are
+ * compiled for the JVM, so the benchmarks run on any host:
+ *
+ *   ./gradlew :neo-benchmark:jmh
+ *
+ * Allocation rates are reported by the gc profiler next to the throughput numbers.
+ */
+plugins {
+    alias(libs.plugins.kotlin.jvm)
+    alias(libs.plugins.jmh)
+}
+
+kotlin {
+    jvmToolchain(21)
+}
+
+sourceSets {
+    main {
+        kotlin.srcDir("../src")
+        kotlin.include("com/neoapps/neolauncher/allapps/UsageScorer.kt")
+    }
+}
+
+jmh {
+    jmhVersion = libs.versions.jmh.get()
+    fork = 1
+    warmupIterations = 3
+    iterations = 5
+    profilers.add("gc")
+    resultFormat = "JSON"
+}
@@ -0,0 +1,80 @@
+/*
+ * This file is part of Neo Launcher
+ * Copyright (c) 2026   Neo Launcher Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.neoapps.neolauncher.allapps
+
+import java.util.Random
+import java.util.concurrent.TimeUnit
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Level
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+
+/**
+ * Cost of ranking [appCount] apps with a month of launches spread over the day: querying the
+ * [k] most used apps, taking the snapshot the drawer sorts with, and recording a launch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+open class UsageScorerBenchmark {
+
+    @Param("1000") var appCount = 0
+
+    @Param("10", "100") var k = 0
+
+    private lateinit var scorer: UsageScorer
+    private lateinit var keys: Array<String>
+    private var now = 0L
+    private var counter = 0
+
+    @Setup(Level.Trial)
+    fun setUp() {
+        val random = Random(SEED)
+        now = System.currentTimeMillis()
+        scorer = UsageScorer()
+        keys = Array(appCount) { "com.example.app$it" }
+        repeat(appCount * LAUNCHES_PER_APP) {
+            // Skewed towards a few apps, like real usage
+            val app = (appCount * random.nextDouble() * random.nextDouble()).toInt()
+            scorer.recordLaunch(keys[app], now - (random.nextDouble() * MONTH_MS).toLong())
+        }
+    }
+
+    @Benchmark
+    fun topK(): List<String> = scorer.topK(k, now)
+
+    @Benchmark
+    fun snapshot(): UsageScorer.Snapshot = scorer.snapshot(now)
+
+    @Benchmark
+    fun recordLaunch() {
+        scorer.recordLaunch(keys[counter++ % appCount], now)
+    }
+
+    companion object {
+        private const val SEED = 42L
+        private const val LAUNCHES_PER_APP = 20
+        private val MONTH_MS = TimeUnit.DAYS.toMillis(30)
+    }
+}
@@ -1,6 +1,7 @@
 package com.neoapps.neolauncher
 
 import android.content.Context
+import androidx.datastore.preferences.core.Preferences
 import com.android.launcher3.InvariantDeviceProfile
 import com.android.launcher3.InvariantDeviceProfile.INDEX_DEFAULT
 import com.android.launcher3.InvariantDeviceProfile.INDEX_LANDSCAPE
@@ -88,22 +89,32 @@ class DeviceProfileOverrides(context: Context) {
         val numDesktopRows: Int,
         val numDesktopColumns: Int,
         val numHotseatIcons: Int,
+
+        // Read by DeviceProfile itself, kept here so that equal options build equal profiles
+        val dockEnabled: Boolean,
+        val dockBottomPadding: Float,
+        val showNotificationCount: Boolean,
     ) {
         constructor(
             prefs: NeoPrefs,
             defaultGrid: InvariantDeviceProfile.GridOption,
+            snapshot: Preferences = prefs.getSnapshot(),
         ) : this(
-            numAllAppsColumns = prefs.drawerGridColumns.get(defaultGrid),
-            numFolderRows = prefs.desktopFolderRows.getValue(),
-            numFolderColumns = prefs.desktopFolderColumns.getValue(),
+            numAllAppsColumns = prefs.drawerGridColumns.get(defaultGrid, snapshot),
+            numFolderRows = prefs.desktopFolderRows.getValue(snapshot),
+            numFolderColumns = prefs.desktopFolderColumns.getValue(snapshot),
 
-            iconSizeFactor = prefs.desktopIconScale.getValue(),
-            allAppsIconSizeFactor = prefs.drawerIconScale.getValue(),
+            iconSizeFactor = prefs.desktopIconScale.getValue(snapshot),
+            allAppsIconSizeFactor = prefs.drawerIconScale.getValue(snapshot),
 
             enableTaskbarOnPhone = false, // TODO pref for this
-            numDesktopRows = prefs.desktopGridRows.get(defaultGrid),
-            numDesktopColumns = prefs.desktopGridColumns.get(defaultGrid),
-            numHotseatIcons = prefs.dockNumIcons.get(defaultGrid),
+            numDesktopRows = prefs.desktopGridRows.get(defaultGrid, snapshot),
+            numDesktopColumns = prefs.desktopGridColumns.get(defaultGrid, snapshot),
+            numHotseatIcons = prefs.dockNumIcons.get(defaultGrid, snapshot),
+
+            dockEnabled = prefs.dockEnabled.getValue(snapshot),
+            dockBottomPadding = prefs.dockBottomPadding.getValue(snapshot),
+            showNotificationCount = prefs.notificationCount.getValue(snapshot),
         )
 
         fun applyUi(idp: InvariantDeviceProfile) {
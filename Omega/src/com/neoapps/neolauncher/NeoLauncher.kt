@@ -75,6 +75,7 @@ import com.android.launcher3.util.TouchController
 import com.android.launcher3.views.OptionsPopupView
 import com.android.systemui.plugins.shared.LauncherOverlayManager
 import com.neoapps.neolauncher.blur.WallpaperPermissionHelper
+import com.neoapps.neolauncher.data.AppTrackerRepository
 import com.neoapps.neolauncher.gestures.GestureController
 import com.neoapps.neolauncher.gestures.VerticalSwipeGestureController
 import com.neoapps.neolauncher.preferences.NeoPrefs
@@ -530,6 +531,7 @@ class NeoLauncher : Launcher(), SavedStateRegistryOwner,
 
     override fun onStop() {
         super.onStop()
+        AppTrackerRepository.INSTANCE.get(applicationContext).flushAsync()
     }
 
     override fun onDestroy() {
@@ -18,16 +18,30 @@
 package com.neoapps.neolauncher.allapps
 
 import android.content.Context
+import android.view.LayoutInflater
 import android.view.ViewGroup
+import android.widget.FrameLayout
 import androidx.recyclerview.widget.GridLayoutManager
+import androidx.recyclerview.widget.RecyclerView
+import com.android.launcher3.PagedView
 import com.android.launcher3.allapps.AllAppsGridAdapter
 import com.android.launcher3.allapps.AllAppsPagedView
 import com.android.launcher3.allapps.AllAppsRecyclerView
 import com.android.launcher3.allapps.AlphabeticalAppsList
+import com.android.launcher3.allapps.BaseAllAppsAdapter
+import com.android.launcher3.allapps.BaseAllAppsAdapter.AdapterItem
 import com.android.launcher3.views.ActivityContext
 
+/**
+ * Lays out the apps of [AlphabeticalAppsList] as fixed size pages of an [AllAppsPagedView]. Every
+ * page has a lightweight placeholder, but only the current page and its neighbours hold a
+ * [AllAppsRecyclerView]. Those views are reused between pages and share the activity's recycled
+ * view pool, so flipping pages and updating apps doesn't inflate new icons.
+ */
 class AllAppViewPagerAdapter(private val context: Context) {
+    private val activityContext: ActivityContext = ActivityContext.lookupContext(context)
     private var appsList: AlphabeticalAppsList? = null
+    private var gridAdapter: AllAppsGridAdapter? = null
     private var pagedView: AllAppsPagedView? = null
     private var columNumber = 1
     private var rowNumber = 1
@@ -35,22 +49,44 @@ class AllAppViewPagerAdapter(private val context: Context) {
     private var gridPaddingBottom = 15
     private var showAnimation = true
     private var appsPerPage = 1
-    private val pageAdapters = mutableListOf<AllAppsGridAdapter>()
+
+    // Items of the last bind, to find the pages affected by an update
+    private var boundItems: List<AdapterItem> = emptyList()
+    private val activePages = HashMap<Int, PageHolder>()
+    private val freePages = ArrayDeque<PageHolder>()
+
+    private val pageSwitchListener = PagedView.PageSwitchListener { updateActivePages() }
 
     fun setAppsList(list: AlphabeticalAppsList) {
         appsList = list
+        gridAdapter = AllAppsGridAdapter(
+            activityContext,
+            LayoutInflater.from(context),
+            list,
+            null
+        )
+        // Pages created for the previous list use its adapter
+        activePages.values.forEach(::releasePage)
+        activePages.clear()
+        freePages.clear()
+        boundItems = emptyList()
         calculatePages()
     }
 
     fun setPagedView(view: AllAppsPagedView?) {
+        pagedView?.removePageSwitchListener(pageSwitchListener)
         pagedView = view
+        view?.addPageSwitchListener(pageSwitchListener)
     }
 
     fun setGridDimensions(columns: Int, rows: Int) {
+        if (columns == columNumber && rows == rowNumber) return
         columNumber = columns
         rowNumber = rows
         appsPerPage = columns * rows
         calculatePages()
+        // Every page boundary moved
+        boundItems = emptyList()
     }
 
     fun calculatePages() {
@@ -75,57 +111,136 @@ class AllAppViewPagerAdapter(private val context: Context) {
         }
     }
 
+    /**
+     * Updates the pages after the apps changed. Only the pages from the first changed item on
+     * are rebound, and pages are only added or removed at the end.
+     */
     fun notifyDataChanged() {
-        pagedView?.removeAllViews()
-        pageAdapters.clear()
+        val apps = appsList ?: return
+        val pagedView = pagedView ?: return
+        calculatePages()
 
-        if (appsList == null || pagedView == null) return
+        val items = apps.adapterItems
+        val firstChanged = findFirstChangedItem(boundItems, items)
+        boundItems = ArrayList(items)
 
-        for (pageIndex in 0 until pageCount) {
-            val recyclerView = createRecyclerViewForPage(pageIndex)
-            pagedView?.addView(recyclerView)
+        while (pagedView.childCount > pageCount) {
+            val pageIndex = pagedView.childCount - 1
+            activePages.remove(pageIndex)?.let(::releasePage)
+            pagedView.removeViewAt(pageIndex)
+        }
+        while (pagedView.childCount < pageCount) {
+            pagedView.addView(createPlaceholder())
         }
 
-        pagedView?.currentPage = 0
+        if (firstChanged >= 0) {
+            val firstPage = firstChanged / appsPerPage
+            activePages.forEach { (pageIndex, page) ->
+                if (pageIndex >= firstPage) page.bind(pageIndex)
+            }
+        }
+        updateActivePages()
+    }
+
+    /** Attaches recycler views to the current page and its neighbours, releasing the others */
+    private fun updateActivePages() {
+        val pagedView = pagedView ?: return
+        val current = pagedView.nextPage
+        val range = maxOf(current - OFFSCREEN_PAGE_LIMIT, 0)..
+                minOf(current + OFFSCREEN_PAGE_LIMIT, pageCount - 1)
+
+        activePages.keys.filter { it !in range }.forEach { pageIndex ->
+            val page = activePages.remove(pageIndex)!!
+            (pagedView.getChildAt(pageIndex) as? ViewGroup)?.removeView(page.recyclerView)
+            releasePage(page)
+        }
+        for (pageIndex in range) {
+            if (pageIndex in activePages) continue
+            val placeholder = pagedView.getChildAt(pageIndex) as? ViewGroup ?: continue
+            val page = freePages.removeFirstOrNull() ?: PageHolder()
+            page.bind(pageIndex)
+            placeholder.addView(page.recyclerView)
+            activePages[pageIndex] = page
+        }
+    }
+
+    private fun releasePage(page: PageHolder) {
+        (page.recyclerView.parent as? ViewGroup)?.removeView(page.recyclerView)
+        // Detaching the adapter returns the page's icons to the shared pool
+        page.recyclerView.adapter = null
+        freePages.addLast(page)
     }
 
-    private fun createRecyclerViewForPage(pageIndex: Int): AllAppsRecyclerView {
-        val recyclerView = AllAppsRecyclerView(context)
-        recyclerView.layoutParams = ViewGroup.LayoutParams(
+    private fun createPlaceholder() = FrameLayout(context).apply {
+        layoutParams = ViewGroup.LayoutParams(
             ViewGroup.LayoutParams.MATCH_PARENT,
             ViewGroup.LayoutParams.MATCH_PARENT
         )
+    }
 
-        val layoutManager = GridLayoutManager(context, columNumber)
-        recyclerView.layoutManager = layoutManager
-
-        val pageApps = getAppsForPage(pageIndex)
-        val pageAdapter = createAdapterForPage(pageApps)
-        pageAdapters.add(pageAdapter)
+    private fun findFirstChangedItem(
+        oldItems: List<AdapterItem>,
+        newItems: List<AdapterItem>,
+    ): Int {
+        val common = minOf(oldItems.size, newItems.size)
+        for (i in 0 until common) {
+            if (!oldItems[i].isSameAs(newItems[i]) || !oldItems[i].isContentSame(newItems[i])) {
+                return i
+            }
+        }
+        return if (oldItems.size == newItems.size) -1 else common
+    }
 
-        recyclerView.adapter = pageAdapter
-        recyclerView.setPadding(0, 0, 0, gridPaddingBottom)
-        recyclerView.clipToPadding = false
+    private inner class PageHolder {
+        val pageAdapter = PageAdapter()
+        val recyclerView = AllAppsRecyclerView(context).apply {
+            layoutParams = ViewGroup.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT,
+                ViewGroup.LayoutParams.MATCH_PARENT
+            )
+            layoutManager = GridLayoutManager(context, columNumber)
+            setRecycledViewPool(activityContext.activityComponent.sharedAppsPool)
+            setPadding(0, 0, 0, gridPaddingBottom)
+            clipToPadding = false
+        }
 
-        return recyclerView
+        fun bind(pageIndex: Int) {
+            (recyclerView.layoutManager as GridLayoutManager).spanCount = columNumber
+            pageAdapter.setPage(pageIndex * appsPerPage)
+            if (recyclerView.adapter == null) recyclerView.adapter = pageAdapter
+        }
     }
 
-    private fun createAdapterForPage(apps: List<Any>): AllAppsGridAdapter {
-        val activityContext = context as? ActivityContext
+    /** Shows one page of the shared [AllAppsGridAdapter], using its view types and holders */
+    private inner class PageAdapter : RecyclerView.Adapter<BaseAllAppsAdapter.ViewHolder>() {
+        private var start = 0
 
-        val pageAppsList = AlphabeticalAppsList(activityContext, null, null, null)
+        fun setPage(start: Int) {
+            this.start = start
+            notifyDataSetChanged()
+        }
 
-        appsList?.let { originalList ->
-            pageAppsList.setNumAppsPerRowAllApps(columNumber)
+        override fun getItemCount(): Int {
+            val total = appsList?.adapterItems?.size ?: 0
+            return (total - start).coerceIn(0, appsPerPage)
         }
 
-        val adapter = AllAppsGridAdapter(
-            activityContext,
-            android.view.LayoutInflater.from(context),
-            pageAppsList,
-            null
-        )
+        override fun getItemViewType(position: Int) =
+            gridAdapter!!.getItemViewType(start + position)
+
+        override fun onCreateViewHolder(parent: ViewGroup, viewType: Int) =
+            gridAdapter!!.onCreateViewHolder(parent, viewType)
+
+        override fun onBindViewHolder(holder: BaseAllAppsAdapter.ViewHolder, position: Int) {
+            gridAdapter!!.onBindViewHolder(holder, start + position)
+        }
+
+        override fun onFailedToRecycleView(holder: BaseAllAppsAdapter.ViewHolder) =
+            gridAdapter!!.onFailedToRecycleView(holder)
+    }
 
-        return adapter
+    companion object {
+        // Pages kept alive on each side of the current one
+        private const val OFFSCREEN_PAGE_LIMIT = 1
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,146 @@
+/*
+ * This file is part of Neo Launcher
+ * Copyright (c) 2026   Neo Launcher Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.neoapps.neolauncher.allapps
+
+import android.content.Context
+import androidx.annotation.AnyThread
+import androidx.annotation.WorkerThread
+import com.android.launcher3.LauncherAppState
+import com.android.launcher3.dagger.ApplicationContext
+import com.android.launcher3.dagger.LauncherAppComponent
+import com.android.launcher3.dagger.LauncherAppSingleton
+import com.android.launcher3.model.data.AppInfo
+import com.android.launcher3.util.DaggerSingletonObject
+import com.neoapps.neolauncher.data.AppTrackerRepository
+import com.neoapps.neolauncher.preferences.NeoPrefs
+import com.neoapps.neolauncher.util.Config
+import com.neoapps.neolauncher.util.getAllAppsComparator
+import kotlinx.coroutines.CoroutineName
+import kotlinx.coroutines.MainScope
+import kotlinx.coroutines.flow.distinctUntilChanged
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.plus
+import java.util.Collections
+import java.util.concurrent.TimeUnit
+import javax.inject.Inject
+
+/**
+ * Shared, pre-sorted order of all apps for the current drawer sort mode. The model prepares the
+ * order on its own thread before binding the apps, so that every drawer tab only has to filter it.
+ */
+@LauncherAppSingleton
+class AppOrderCache @Inject constructor(
+    @ApplicationContext private val context: Context,
+) {
+    private val scope = MainScope() + CoroutineName("AppOrderCache")
+    private val prefs = NeoPrefs.getInstance()
+
+    @Volatile
+    private var sortMode = prefs.drawerSortMode.getValue()
+
+    @Volatile
+    private var order: AppOrder? = null
+
+    init {
+        scope.launch {
+            prefs.drawerSortMode.get()
+                .distinctUntilChanged()
+                .collect { mode ->
+                    if (mode == sortMode) return@collect
+                    sortMode = mode
+                    rebindApps()
+                }
+        }
+    }
+
+    /**
+     * Sorts [apps] for the current sort mode ahead of them being bound, unless the order is
+     * already known.
+     */
+    @WorkerThread
+    fun prepare(apps: Array<AppInfo>) {
+        getSortedApps(apps)
+    }
+
+    /**
+     * Returns [apps] sorted for the current sort mode. The list is shared between all callers and
+     * must not be modified. Falls back to sorting on the calling thread if [prepare] was not
+     * called for this set of apps.
+     */
+    @AnyThread
+    fun getSortedApps(apps: Array<AppInfo>): List<AppInfo> {
+        val mode = sortMode
+        val usageVersion = getUsageVersion(mode)
+        val usagePeriod = getUsagePeriod(mode)
+        order
+            ?.takeIf {
+                it.apps === apps && it.sortMode == mode && it.usageVersion == usageVersion
+                    && it.usagePeriod == usagePeriod
+            }
+            ?.let { return it.sorted }
+        val sorted =
+            Collections.unmodifiableList(apps.sortedWith(getAllAppsComparator(context, mode)))
+        order = AppOrder(apps, mode, usageVersion, usagePeriod, sorted)
+        return sorted
+    }
+
+    /** Returns the version of the usage data [mode] depends on, launches don't affect others */
+    private fun getUsageVersion(mode: Int): Int =
+        if (mode == Config.SORT_MOST_USED) {
+            AppTrackerRepository.INSTANCE.get(context).getUsageVersion()
+        } else {
+            0
+        }
+
+    /**
+     * Returns the period of time the usage scores of [mode] were computed in. It changes every
+     * hour and with the time of day bucket, so that the apps are sorted again as their scores
+     * decay and another bucket applies.
+     */
+    private fun getUsagePeriod(mode: Int): Long {
+        if (mode != Config.SORT_MOST_USED) return 0
+        val now = System.currentTimeMillis()
+        return now / USAGE_PERIOD_MS * UsageScorer.BUCKET_COUNT + UsageScorer.bucketOf(now)
+    }
+
+    /** Sorts the apps for the new sort mode on the model thread and binds them again */
+    private fun rebindApps() {
+        LauncherAppState.getInstance(context).model.enqueueModelUpdateTask { controller, _, apps ->
+            val data = apps.immutableData
+            prepare(data.apps)
+            controller.scheduleCallbackTask {
+                it.bindAllApplications(data.apps, data.flags, data.packageUserKeyToUidMap)
+            }
+        }
+    }
+
+    private class AppOrder(
+        val apps: Array<AppInfo>,
+        val sortMode: Int,
+        val usageVersion: Int,
+        val usagePeriod: Long,
+        val sorted: List<AppInfo>,
+    )
+
+    companion object {
+        private val USAGE_PERIOD_MS = TimeUnit.HOURS.toMillis(1)
+
+        @JvmField
+        val INSTANCE = DaggerSingletonObject(LauncherAppComponent::getAppOrderCache)
+    }
+}
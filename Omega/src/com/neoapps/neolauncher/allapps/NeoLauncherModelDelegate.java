@@ -261,13 +261,13 @@ public class NeoLauncherModelDelegate extends ModelDelegate {
 
         MODEL_EXECUTOR.execute(() -> {
             AppTrackerRepository repo = AppTrackerRepository.Companion.getINSTANCE().get(mContext);
-            List<AppTracker> recentApps = repo.getRecentApps(mIDP.numAllAppsColumns);
+            List<AppTracker> suggestedApps = repo.getSuggestedApps(mIDP.numAllAppsColumns);
             List<AppTarget> targets = new ArrayList<>();
             LauncherApps launcherApps = mContext.getSystemService(LauncherApps.class);
             IconCache iconCache = LauncherAppState.getInstance(mContext).getIconCache();
             Set<String> refreshedPackages = new HashSet<>();
 
-            for (AppTracker app : recentApps) {
+            for (AppTracker app : suggestedApps) {
                 long userSerialNumber = 0L;
                 if (app.getUserSerialNumber() != null) {
                     userSerialNumber = app.getUserSerialNumber();
@@ -0,0 +1,209 @@
+/*
+ * This file is part of Neo Launcher
+ * Copyright (c) 2026   Neo Launcher Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.neoapps.neolauncher.allapps
+
+import java.util.TimeZone
+import java.util.concurrent.TimeUnit
+import kotlin.math.exp
+import kotlin.math.ln
+
+/**
+ * Ranks apps by their launches, with each launch decaying exponentially over [halfLifeMs]. Next to
+ * the overall score, every app keeps a score per time of day bucket, so that apps used at the
+ * current time of day rank higher.
+ *
+ * Scores are kept in flat primitive arrays indexed by slot. Recording a launch is O(1) and
+ * querying the top k apps is O(n + k log n).
+ */
+class UsageScorer @JvmOverloads constructor(
+    private val halfLifeMs: Long = DEFAULT_HALF_LIFE_MS,
+    initialCapacity: Int = 64,
+) {
+    private val decayRate = ln(2.0) / halfLifeMs
+
+    private val slots = HashMap<String, Int>(initialCapacity)
+    private var keys = arrayOfNulls<String>(initialCapacity)
+    private var totalScores = FloatArray(initialCapacity)
+    private var bucketScores = FloatArray(initialCapacity * BUCKET_COUNT)
+    // Time the scores of each slot were last decayed to
+    private var decayedAt = LongArray(initialCapacity)
+    private var size = 0
+
+    val count: Int
+        @Synchronized get() = size
+
+    /** Records [weight] launches of [key] at [time] */
+    @JvmOverloads
+    @Synchronized
+    fun recordLaunch(key: String, time: Long, weight: Float = 1f) {
+        addScore(key, time, weight, bucketOf(time))
+    }
+
+    /**
+     * Records [weight] launches of [key] up to [time] in the overall score only, for launches whose
+     * time of day is unknown, like the counts stored in the database.
+     */
+    @Synchronized
+    fun seed(key: String, time: Long, weight: Float) {
+        addScore(key, time, weight, NO_BUCKET)
+    }
+
+    private fun addScore(key: String, time: Long, weight: Float, bucket: Int) {
+        val slot = slots[key] ?: addSlot(key, time)
+        var score = weight
+        if (time >= decayedAt[slot]) {
+            decay(slot, time)
+        } else {
+            // Launches older than the current state, like the ones restored from the database
+            score *= decayFactor(decayedAt[slot] - time)
+        }
+        totalScores[slot] += score
+        if (bucket != NO_BUCKET) bucketScores[slot * BUCKET_COUNT + bucket] += score
+    }
+
+    @Synchronized
+    fun remove(key: String) {
+        val slot = slots.remove(key) ?: return
+        val last = --size
+        if (slot != last) {
+            // Move the last slot into the hole, so that the table stays dense
+            val lastKey = keys[last]!!
+            keys[slot] = lastKey
+            totalScores[slot] = totalScores[last]
+            decayedAt[slot] = decayedAt[last]
+            System.arraycopy(
+                bucketScores, last * BUCKET_COUNT, bucketScores, slot * BUCKET_COUNT, BUCKET_COUNT
+            )
+            slots[lastKey] = slot
+        }
+        keys[last] = null
+    }
+
+    /** Returns the score of [key] at [time], or 0 if it was never launched */
+    @Synchronized
+    fun getScore(key: String, time: Long): Float {
+        val slot = slots[key] ?: return 0f
+        return scoreAt(slot, time, bucketOf(time))
+    }
+
+    /** Returns the [k] keys with the highest score at [time], highest first */
+    @Synchronized
+    fun topK(k: Int, time: Long): List<String> {
+        val n = size
+        if (k <= 0 || n == 0) return emptyList()
+        val bucket = bucketOf(time)
+        val scores = FloatArray(n) { scoreAt(it, time, bucket) }
+        val heap = IntArray(n) { it }
+        for (i in n / 2 - 1 downTo 0) siftDown(heap, scores, i, n)
+
+        val result = ArrayList<String>(minOf(k, n))
+        var heapSize = n
+        while (result.size < k && heapSize > 0) {
+            result.add(keys[heap[0]]!!)
+            heap[0] = heap[--heapSize]
+            siftDown(heap, scores, 0, heapSize)
+        }
+        return result
+    }
+
+    /** Returns the scores of all the keys at [time], for sorting without further locking */
+    @Synchronized
+    fun snapshot(time: Long): Snapshot {
+        val bucket = bucketOf(time)
+        return Snapshot(HashMap(slots), FloatArray(size) { scoreAt(it, time, bucket) })
+    }
+
+    private fun addSlot(key: String, time: Long): Int {
+        if (size == keys.size) grow()
+        val slot = size++
+        keys[slot] = key
+        totalScores[slot] = 0f
+        bucketScores.fill(0f, slot * BUCKET_COUNT, (slot + 1) * BUCKET_COUNT)
+        decayedAt[slot] = time
+        slots[key] = slot
+        return slot
+    }
+
+    private fun grow() {
+        val capacity = maxOf(keys.size * 2, 16)
+        keys = keys.copyOf(capacity)
+        totalScores = totalScores.copyOf(capacity)
+        bucketScores = bucketScores.copyOf(capacity * BUCKET_COUNT)
+        decayedAt = decayedAt.copyOf(capacity)
+    }
+
+    private fun decay(slot: Int, time: Long) {
+        val factor = decayFactor(time - decayedAt[slot])
+        totalScores[slot] *= factor
+        val start = slot * BUCKET_COUNT
+        for (i in start until start + BUCKET_COUNT) bucketScores[i] *= factor
+        decayedAt[slot] = time
+    }
+
+    private fun scoreAt(slot: Int, time: Long, bucket: Int): Float {
+        val score = totalScores[slot] + BUCKET_WEIGHT * bucketScores[slot * BUCKET_COUNT + bucket]
+        return if (time > decayedAt[slot]) score * decayFactor(time - decayedAt[slot]) else score
+    }
+
+    private fun decayFactor(elapsedMs: Long) = exp(-decayRate * elapsedMs).toFloat()
+
+    /** Scores of all the keys at the time the snapshot was taken */
+    class Snapshot internal constructor(
+        private val slots: Map<String, Int>,
+        private val scores: FloatArray,
+    ) {
+        fun getScore(key: String): Float = slots[key]?.let { scores[it] } ?: 0f
+    }
+
+    companion object {
+        private val DEFAULT_HALF_LIFE_MS = TimeUnit.DAYS.toMillis(7)
+
+        /** Number of time of day buckets, each covering 4 hours */
+        const val BUCKET_COUNT = 6
+
+        private const val NO_BUCKET = -1
+
+        // Weight of the current time of day bucket relative to the overall score
+        private const val BUCKET_WEIGHT = 2f
+
+        private val HOUR_MS = TimeUnit.HOURS.toMillis(1)
+
+        fun bucketOf(time: Long): Int {
+            val localTime = time + TimeZone.getDefault().getOffset(time)
+            val hourOfDay = Math.floorMod(localTime / HOUR_MS, 24L).toInt()
+            return hourOfDay * BUCKET_COUNT / 24
+        }
+
+        private fun siftDown(heap: IntArray, scores: FloatArray, index: Int, size: Int) {
+            var i = index
+            while (true) {
+                val left = 2 * i + 1
+                if (left >= size) return
+                val right = left + 1
+                var largest = if (scores[heap[left]] > scores[heap[i]]) left else i
+                if (right < size && scores[heap[right]] > scores[heap[largest]]) largest = right
+                if (largest == i) return
+                val tmp = heap[i]
+                heap[i] = heap[largest]
+                heap[largest] = tmp
+                i = largest
+            }
+        }
+    }
+}
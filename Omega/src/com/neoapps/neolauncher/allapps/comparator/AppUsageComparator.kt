@@ -18,22 +18,11 @@
 package com.neoapps.neolauncher.allapps.comparator
 
 import com.android.launcher3.model.data.AppInfo
-import com.neoapps.neolauncher.data.models.AppTracker
+import com.neoapps.neolauncher.allapps.UsageScorer
 
-class AppUsageComparator(private val mApps: List<AppTracker>) : Comparator<AppInfo> {
-    override fun compare(app1: AppInfo, app2: AppInfo): Int {
-        var item1 = 0
-        var item2 = 0
-        for (i in mApps.indices) {
-            if (mApps[i].packageName == app1.componentName!!.packageName)
-                item1 = mApps[i].count
-            if (mApps[i].packageName == app2.componentName!!.packageName)
-                item2 = mApps[i].count
-        }
-        return when {
-            item1 < item2 -> 1
-            item2 < item1 -> -1
-            else -> 0
-        }
-    }
-}
\ No newline at end of file
+/** Sorts apps by their decayed usage score, most used first */
+class AppUsageComparator(private val scores: UsageScorer.Snapshot) : Comparator<AppInfo> {
+    override fun compare(app1: AppInfo, app2: AppInfo): Int =
+        scores.getScore(app2.componentName!!.packageName)
+            .compareTo(scores.getScore(app1.componentName!!.packageName))
+}
@@ -41,70 +41,101 @@ import java.io.BufferedOutputStream
 import java.io.File
 import java.io.FileInputStream
 import java.io.FileOutputStream
+import java.io.IOException
+import java.io.InputStream
 import java.nio.charset.StandardCharsets
 import java.text.SimpleDateFormat
 import java.util.Collections
 import java.util.Date
 import java.util.Locale
 import java.util.zip.ZipEntry
+import java.util.zip.ZipFile
 import java.util.zip.ZipInputStream
 import java.util.zip.ZipOutputStream
 
 class BackupManager(val context: Context, val uri: Uri) {
     val meta by lazy { readFileInfo() }
 
-    private fun readFileInfo(): FileInfo? {
-        try {
-            val pfd = context.contentResolver.openFileDescriptor(uri, "r")
-            val inStream = FileInputStream(pfd?.fileDescriptor)
-            val zipIs = ZipInputStream(inStream)
-            var entry: ZipEntry?
-            var fileInfo: FileInfo? = null
-            try {
-                while (true) {
-                    entry = zipIs.nextEntry
-                    if (entry == null) break
-                    if (entry.name != FileInfo.FILE_NAME) continue
-                    fileInfo = FileInfo.fromString(String(zipIs.readBytes(), StandardCharsets.UTF_8))
-                    return fileInfo
-                }
-            } catch (t: Throwable) {
-                Log.e(TAG, "Unable to read meta for $uri", t)
-                return fileInfo
-            } finally {
-                zipIs.close()
-                inStream.close()
-                pfd?.close()
-            }
-        } catch (t: Throwable) {
-            Log.e(TAG, "Unable to read meta for $uri", t)
-            return null
-        }
-        return null
+    private fun readFileInfo(): FileInfo? = readEntries(setOf(FileInfo.FILE_NAME)) { _, input ->
+        FileInfo.fromString(String(input.readBytes(), StandardCharsets.UTF_8))
     }
 
     fun readPreview(): Pair<Bitmap?, Bitmap?>? {
-        var entry: ZipEntry?
         var screenshot: Bitmap? = null
         var wallpaper: Bitmap? = null
-        readZip { zipIs ->
-            while (true) {
-                entry = zipIs.nextEntry
-                if (entry == null) break
-                if (entry.name == "screenshot.png") {
-                    screenshot = BitmapFactory.decodeStream(zipIs)
-                } else if (entry.name == WALLPAPER_FILE_NAME) {
-                    wallpaper = BitmapFactory.decodeStream(zipIs)
-                }
-            }
+        readEntries(PREVIEW_FILE_NAMES) { name, input ->
+            val bitmap = decodePreview(input, PREVIEW_SIZE)
+            if (name == SCREENSHOT_FILE_NAME) screenshot = bitmap else wallpaper = bitmap
+            null
         }
         if (screenshot == wallpaper) return null // both are null
         return Pair(
-            getScaledDownBitmap(screenshot, 1000, false),
-            getScaledDownBitmap(wallpaper, 1000, false)
+            getScaledDownBitmap(screenshot, PREVIEW_SIZE, false),
+            getScaledDownBitmap(wallpaper, PREVIEW_SIZE, false)
         )
     }
 
+    /**
+     * Calls [read] with each of the entries in [names] until it returns a result. Entries are
+     * looked up in the zip's central directory, so the rest of the backup is never read.
+     */
+    private fun <T> readEntries(names: Set<String>, read: (String, InputStream) -> T?): T? {
+        try {
+            context.contentResolver.openFileDescriptor(uri, "r")?.use { pfd ->
+                val zipFile = try {
+                    // Random access through the descriptor, when it points to a seekable file
+                    ZipFile(File("/proc/self/fd/${pfd.fd}"))
+                } catch (e: IOException) {
+                    null
+                }
+                if (zipFile != null) {
+                    zipFile.use { zip ->
+                        names.forEach { name ->
+                            val entry = zip.getEntry(name) ?: return@forEach
+                            zip.getInputStream(entry).use { input ->
+                                read(name, input)?.let { return it }
+                            }
+                        }
+                    }
+                    return null
+                }
+                FileInputStream(pfd.fileDescriptor).use { inStream ->
+                    ZipInputStream(inStream.buffered()).use { zipIs ->
+                        while (true) {
+                            val entry = zipIs.nextEntry ?: break
+                            if (entry.name in names) {
+                                read(entry.name, zipIs)?.let { return it }
+                            } else if (entry.name != FileInfo.FILE_NAME) {
+                                // The meta and preview entries are always written first
+                                break
+                            }
+                        }
+                    }
+                }
+            }
+        } catch (t: Throwable) {
+            Log.e(TAG, "Unable to read zip for $uri", t)
+        }
+        return null
+    }
+
+    /** Decodes the image in [input], subsampled as long as it stays larger than [size] */
+    private fun decodePreview(input: InputStream, size: Int): Bitmap? {
+        val stream = input.buffered(DECODE_BOUNDS_LIMIT)
+        stream.mark(DECODE_BOUNDS_LIMIT)
+        val options = BitmapFactory.Options().apply { inJustDecodeBounds = true }
+        BitmapFactory.decodeStream(stream, null, options)
+        stream.reset()
+
+        var sampleSize = 1
+        while (maxOf(options.outWidth, options.outHeight) / (sampleSize * 2) >= size) {
+            sampleSize *= 2
+        }
+        options.inJustDecodeBounds = false
+        options.inSampleSize = sampleSize
+        return BitmapFactory.decodeStream(stream, null, options)
+    }
+
     fun getScaledDownBitmap(
         bitmap: Bitmap?,
         threshold: Int,
@@ -173,26 +204,14 @@ class BackupManager(val context: Context, val uri: Uri) {
         return resizedBitmap
     }
 
-    private inline fun readZip(body: (ZipInputStream) -> Unit) {
-        try {
-            val pfd = context.contentResolver.openFileDescriptor(uri, "r")
-            val inStream = FileInputStream(pfd?.fileDescriptor)
-            val zipIs = ZipInputStream(inStream)
-            try {
-                body(zipIs)
-            } catch (t: Throwable) {
-                Log.e(TAG, "Unable to read zip for $uri", t)
-            } finally {
-                zipIs.close()
-                inStream.close()
-                pfd?.close()
-            }
-        } catch (t: Throwable) {
-            Log.e(TAG, "Unable to read zip for $uri", t)
-        }
-    }
-
+    /**
+     * Restores the selected [contents]. All the files are first written next to their targets and
+     * only moved in place once the whole backup was read. The replaced files are moved aside until
+     * then and moved back if any move fails, so a failed restore changes nothing.
+     */
     fun restore(contents: Int): Boolean {
+        val stagedFiles = LinkedHashMap<File, File>()
+        var wallpaper: Bitmap? = null
         try {
             val contextWrapper = ContextWrapper(context)
             val cacheParent = contextWrapper.cacheDir.parent
@@ -201,7 +220,7 @@ class BackupManager(val context: Context, val uri: Uri) {
             val datastoreFile = File(cacheParent, "files/datastore/neo_launcher.preferences_pb")
             context.contentResolver.openFileDescriptor(uri, "r")?.use { pfd ->
                 FileInputStream(pfd.fileDescriptor).use { fileInput ->
-                    ZipInputStream(fileInput).use { zipInput ->
+                    ZipInputStream(fileInput.buffered(RESTORE_BUFFER)).use { zipInput ->
                         var entry: ZipEntry?
                         while (zipInput.nextEntry.also { entry = it } != null) {
                             val currentEntry = entry!!
@@ -225,8 +244,7 @@ class BackupManager(val context: Context, val uri: Uri) {
                                 }
                                 entryName == WALLPAPER_FILE_NAME -> {
                                     if (!contents.hasFlag(INCLUDE_WALLPAPER)) continue
-                                    val bitmap = BitmapFactory.decodeStream(zipInput)
-                                    WallpaperManager.getInstance(context).setBitmap(bitmap)
+                                    wallpaper = BitmapFactory.decodeStream(zipInput)
                                     continue
                                 }
                                 entryName == "${LauncherFiles.SHARED_PREFERENCES_KEY}.xml" -> {
@@ -240,10 +258,12 @@ class BackupManager(val context: Context, val uri: Uri) {
                                 else -> continue
                             }
 
-                            FileOutputStream(targetFile).use { output ->
-                                zipInput.copyTo(output)
+                            val stagedFile = File(targetFile.path + RESTORE_SUFFIX)
+                            stagedFile.parentFile?.mkdirs()
+                            stagedFiles[stagedFile] = targetFile
+                            FileOutputStream(stagedFile).use { output ->
+                                zipInput.copyTo(output, RESTORE_BUFFER)
                             }
-                            Log.d(TAG, "Restored $entryName to ${targetFile.absolutePath}")
                         }
                     }
                 }
@@ -253,8 +273,39 @@ class BackupManager(val context: Context, val uri: Uri) {
             }
         } catch (t: Throwable) {
             Log.e(TAG, "Failed to restore $uri", t)
-            false
+            stagedFiles.keys.forEach { it.delete() }
+            return false
         }
+
+        val restoredFiles = stagedFiles.values.toSet()
+        val replacedFiles = restoredFiles.flatMap { targetFile ->
+            if (targetFile.name.endsWith(".db")) {
+                // A journal left from the current database would be replayed on the restored one
+                listOf(targetFile) + listOf("-wal", "-shm", "-journal")
+                    .map { File(targetFile.path + it) }
+                    .filter { it !in restoredFiles }
+            } else {
+                listOf(targetFile)
+            }
+        }.filter { it.exists() }
+
+        val movedAside = ArrayList<File>()
+        val movedIn = ArrayList<File>()
+        val moved = replacedFiles.all { file ->
+            file.renameTo(File(file.path + ROLLBACK_SUFFIX)).also { if (it) movedAside.add(file) }
+        } && stagedFiles.all { (stagedFile, targetFile) ->
+            stagedFile.renameTo(targetFile).also { if (it) movedIn.add(targetFile) }
+        }
+        if (!moved) {
+            Log.e(TAG, "Failed to move the restored files in place, rolling back")
+            movedIn.forEach { it.delete() }
+            movedAside.forEach { File(it.path + ROLLBACK_SUFFIX).renameTo(it) }
+            stagedFiles.keys.forEach { it.delete() }
+            return false
+        }
+        movedAside.forEach { File(it.path + ROLLBACK_SUFFIX).delete() }
+        movedIn.forEach { Log.d(TAG, "Restored ${it.name} to ${it.absolutePath}") }
+        wallpaper?.let { WallpaperManager.getInstance(context).setBitmap(it) }
         return true
     }
 
@@ -427,5 +478,15 @@ class BackupManager(val context: Context, val uri: Uri) {
         val EXTRA_MIME_TYPES = arrayOf(MIME_TYPE, "application/x-zip", "application/octet-stream")
 
         const val WALLPAPER_FILE_NAME = "wallpaper.png"
+        const val SCREENSHOT_FILE_NAME = "screenshot.png"
+        private val PREVIEW_FILE_NAMES = setOf(SCREENSHOT_FILE_NAME, WALLPAPER_FILE_NAME)
+
+        private const val PREVIEW_SIZE = 1000
+        // Enough to decode the bounds of a png or jpeg header and rewind
+        private const val DECODE_BOUNDS_LIMIT = 64 * 1024
+
+        private const val RESTORE_BUFFER = 64 * 1024
+        private const val RESTORE_SUFFIX = ".restore"
+        private const val ROLLBACK_SUFFIX = ".rollback"
     }
 }
\ No newline at end of file
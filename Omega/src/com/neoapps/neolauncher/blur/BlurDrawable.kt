@@ -26,6 +26,12 @@ abstract class BlurDrawable : Drawable(), BlurWallpaperProvider.Listener {
     abstract var blurRadii: Radii
     abstract var viewOffsetX: Float
 
+    /**
+     * Blur strength in down-sampled pixels, or [USE_DEFAULT_RADIUS] to follow the blur radius
+     * preference. Any value is served from the provider's pre-blurred levels.
+     */
+    abstract var blurRadius: Float
+
     open var blurScaleX = 0f
     open var blurScaleY = 0f
     open var blurPivotX = 0f
@@ -53,4 +59,8 @@ abstract class BlurDrawable : Drawable(), BlurWallpaperProvider.Listener {
         constructor(topRadius: Float, bottomRadius: Float)
                 : this(topRadius, topRadius, bottomRadius, bottomRadius)
     }
+
+    companion object {
+        const val USE_DEFAULT_RADIUS = -1f
+    }
 }
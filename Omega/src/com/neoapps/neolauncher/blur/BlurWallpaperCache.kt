@@ -0,0 +1,98 @@
+/*
+ * This file is part of Neo Launcher
+ * Copyright (c) 2026   Neo Launcher Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.neoapps.neolauncher.blur
+
+import android.content.Context
+import android.graphics.Bitmap
+import android.graphics.BitmapFactory
+import android.util.Log
+import androidx.annotation.WorkerThread
+import java.io.File
+import java.io.FileOutputStream
+import java.io.IOException
+
+/**
+ * Persists the down-sampled, blurred wallpaper levels so that a cold start can reuse them
+ * instead of running the whole blur pipeline again.
+ */
+class BlurWallpaperCache(context: Context) {
+
+    private val cacheDir = File(context.cacheDir, CACHE_DIR)
+
+    /**
+     * Returns one bitmap per entry of [radii], or null unless every level was persisted.
+     */
+    @WorkerThread
+    fun load(key: Key, radii: IntArray): Array<Bitmap>? {
+        val levels = ArrayList<Bitmap>(radii.size)
+        for (radius in radii) {
+            val file = File(cacheDir, key.getFileName(radius))
+            val bitmap = if (file.exists()) {
+                try {
+                    BitmapFactory.decodeFile(file.path)
+                } catch (e: OutOfMemoryError) {
+                    Log.w(TAG, "Failed to load cached blur", e)
+                    null
+                }
+            } else null
+            if (bitmap == null) {
+                levels.forEach(Bitmap::recycle)
+                return null
+            }
+            levels.add(bitmap)
+        }
+        return levels.toTypedArray()
+    }
+
+    @WorkerThread
+    fun save(key: Key, radii: IntArray, levels: Array<Bitmap>) {
+        if (!cacheDir.exists() && !cacheDir.mkdirs()) return
+        // Only the current wallpaper is worth keeping
+        cacheDir.listFiles()?.forEach { if (!it.name.startsWith(key.filePrefix)) it.delete() }
+        radii.forEachIndexed { index, radius ->
+            val file = File(cacheDir, key.getFileName(radius))
+            try {
+                FileOutputStream(file).use {
+                    levels[index].compress(Bitmap.CompressFormat.PNG, 100, it)
+                }
+            } catch (e: IOException) {
+                Log.w(TAG, "Failed to persist blur", e)
+                file.delete()
+            }
+        }
+    }
+
+    data class Key(
+        val wallpaperId: Int,
+        val width: Int,
+        val height: Int,
+        val saturation: Float,
+    ) {
+        val filePrefix: String
+            get() = "blur_v${FORMAT_VERSION}_${wallpaperId}_${width}x${height}" +
+                    "_s${(saturation * 100).toInt()}"
+
+        fun getFileName(radius: Int) = "${filePrefix}_r$radius.png"
+    }
+
+    companion object {
+        private const val TAG = "BlurWallpaperCache"
+        private const val CACHE_DIR = "blur"
+        private const val FORMAT_VERSION = 2
+    }
+}
@@ -19,38 +19,21 @@ package com.neoapps.neolauncher.blur
 
 import android.content.Context
 import android.graphics.Bitmap
+import androidx.annotation.WorkerThread
 import com.hoko.blur.HokoBlur
-import com.hoko.blur.task.AsyncBlurTask
-import com.neoapps.neolauncher.preferences.NeoPrefs
 
 class BlurWallpaperFilter(private val context: Context) : WallpaperFilter {
 
-    private var blurRadius = 25
-
-    override fun applyPrefs(prefs: NeoPrefs) {
-        blurRadius = (prefs.profileBlurRadius.getValue() / BlurWallpaperProvider.DOWN_SAMPLE_FACTOR)
-            .toInt()
-        blurRadius = blurRadius.coerceAtLeast(1).coerceAtMost(25)
-    }
-
-    override fun apply(wallpaper: Bitmap): WallpaperFilter.ApplyTask {
-        return WallpaperFilter.ApplyTask.create { emitter ->
-            HokoBlur.with(context)
-                .scheme(HokoBlur.SCHEME_NATIVE)
-                .mode(HokoBlur.MODE_STACK)
-                .radius(blurRadius)
-                .sampleFactor(BlurWallpaperProvider.DOWN_SAMPLE_FACTOR.toFloat())
-                .forceCopy(false)
-                .processor()
-                .asyncBlur(wallpaper, object : AsyncBlurTask.Callback {
-                    override fun onBlurSuccess(bitmap: Bitmap) {
-                        emitter.onSuccess(bitmap)
-                    }
-
-                    override fun onBlurFailed(error: Throwable?) {
-                        emitter.onError(error!!)
-                    }
-                })
-        }
+    @WorkerThread
+    override fun apply(wallpaper: Bitmap, radius: Int): Bitmap {
+        return HokoBlur.with(context)
+            .scheme(HokoBlur.SCHEME_NATIVE)
+            .mode(HokoBlur.MODE_STACK)
+            .radius(radius.coerceIn(1, 25))
+            // The provider hands us an already down-sampled wallpaper
+            .sampleFactor(1f)
+            .forceCopy(true)
+            .processor()
+            .blur(wallpaper)
     }
-}
\ No newline at end of file
+}
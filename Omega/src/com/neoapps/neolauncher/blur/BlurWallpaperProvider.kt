@@ -21,16 +21,20 @@ import android.annotation.SuppressLint
 import android.app.WallpaperManager
 import android.content.Context
 import android.graphics.Bitmap
+import android.graphics.BitmapFactory
 import android.graphics.Canvas
 import android.graphics.ColorMatrix
 import android.graphics.ColorMatrixColorFilter
 import android.graphics.Paint
 import android.graphics.Path
+import android.graphics.Rect
+import android.graphics.drawable.BitmapDrawable
+import android.os.SystemClock
 import android.util.Log
 import android.view.WindowManager
 import android.widget.Toast
+import androidx.annotation.WorkerThread
 import androidx.core.graphics.createBitmap
-import androidx.core.graphics.scale
 import com.android.launcher3.R
 import com.android.launcher3.Utilities
 import com.android.launcher3.util.Executors.MAIN_EXECUTOR
@@ -42,6 +46,7 @@ import com.neoapps.neolauncher.util.ceilToInt
 import com.neoapps.neolauncher.util.ensureOnMainThread
 import com.neoapps.neolauncher.util.hasWallpaperAccess
 import com.neoapps.neolauncher.util.runOnMainThread
+import com.neoapps.neolauncher.util.runOnUiWorkerThread
 import com.neoapps.neolauncher.util.safeForEach
 import com.neoapps.neolauncher.util.useApplicationContext
 
@@ -51,13 +56,21 @@ class BlurWallpaperProvider(val context: Context) {
     private val mWallpaperManager: WallpaperManager = WallpaperManager.getInstance(context)
     private val mListeners = ArrayList<Listener>()
 
-    var wallpaper: Bitmap? = null
+    /**
+     * The down-sampled wallpaper blurred at each of [LEVEL_RADII], all from the same source and
+     * at the same size. Drawables interpolate between the two levels around their radius.
+     */
+    var blurLevels: Array<Bitmap>? = null
         private set(value) {
-            if (field != value) {
-                field?.recycle()
+            if (field !== value) {
+                field?.forEach { if (value?.contains(it) != true) it.recycle() }
                 field = value
             }
         }
+
+    /** Blur radius, in down-sampled pixels, used by drawables that do not set their own */
+    var blurRadius: Float = 0f
+        private set
     var placeholder: Bitmap? = null
         private set(value) {
             if (field != value) {
@@ -67,7 +80,11 @@ class BlurWallpaperProvider(val context: Context) {
         }
     private var mOffset: Float = 0.6f
 
-    private val mVibrancyPaint = Paint(Paint.FILTER_BITMAP_FLAG or Paint.ANTI_ALIAS_FLAG)
+    private val mVibrancyPaint = Paint(Paint.FILTER_BITMAP_FLAG or Paint.ANTI_ALIAS_FLAG).apply {
+        colorFilter = ColorMatrixColorFilter(ColorMatrix().apply {
+            setSaturation(VIBRANCY_SATURATION)
+        })
+    }
     private val mColorPaint = Paint(Paint.ANTI_ALIAS_FLAG)
 
     private val mPath = Path()
@@ -81,15 +98,16 @@ class BlurWallpaperProvider(val context: Context) {
 
     private val mUpdateRunnable = Runnable { updateWallpaper() }
 
-    private val wallpaperFilter = BlurWallpaperFilter(context)
-    private var applyTask: WallpaperFilter.ApplyTask? = null
+    private val wallpaperFilter: WallpaperFilter = BlurWallpaperFilter(context)
+    private val blurCache = BlurWallpaperCache(context)
+    private var currentKey: BlurWallpaperCache.Key? = null
 
+    private var updating = false
     private var updatePending = false
 
     init {
         isEnabled = getEnabledStatus()
 
-        wallpaperFilter.applyPrefs(prefs)
         updateAsync()
     }
 
@@ -98,7 +116,7 @@ class BlurWallpaperProvider(val context: Context) {
 
     @SuppressLint("MissingPermission")
     private fun updateWallpaper() {
-        if (applyTask != null) {
+        if (updating) {
             updatePending = true
             return
         }
@@ -118,92 +136,217 @@ class BlurWallpaperProvider(val context: Context) {
         }
 
         if (!isEnabled) {
-            wallpaper = null
+            blurLevels = null
             placeholder = null
+            currentKey = null
             return
         }
 
-        wallpaperFilter.applyPrefs(prefs)
+        blurRadius = (prefs.profileBlurRadius.getValue() * BLUR_RADIUS_SCALE)
+            .coerceIn(0f, LEVEL_RADII.last().toFloat())
+        updateDisplaySize()
+        val key = BlurWallpaperCache.Key(
+            wallpaperId = mWallpaperManager.getWallpaperId(WallpaperManager.FLAG_SYSTEM),
+            width = mDisplayWidth,
+            height = mDisplayHeight,
+            saturation = VIBRANCY_SATURATION
+        )
+        if (key == currentKey && blurLevels != null) {
+            // Only the radius changed, which is a matter of picking other levels
+            notifyWallpaperChanged()
+            return
+        }
+        updating = true
+        val startTime = SystemClock.elapsedRealtime()
+
+        runOnUiWorkerThread {
+            val cached = if (key.wallpaperId > 0) blurCache.load(key, LEVEL_RADII) else null
+            if (cached != null) {
+                runOnMainThread {
+                    onWallpaperBlurred(key, cached)
+                    Log.d(TAG, "blur loaded from cache in " +
+                            "${SystemClock.elapsedRealtime() - startTime} ms, " +
+                            "${cached.sumOf { it.allocationByteCount } / 1024} KB")
+                    finishUpdate()
+                }
+                return@runOnUiWorkerThread
+            }
 
-        var wallpaper = try {
-            Utilities.drawableToBitmap(mWallpaperManager.drawable, true) as Bitmap
-        } catch (e: SecurityException) {
-            val activity = context.neoApp.activityHandler.foregroundActivity
-            if (activity != null) {
-                WallpaperPermissionHelper.requestIfNeeded(activity)
+            val source = try {
+                createDownSampledWallpaper()
+            } catch (e: SecurityException) {
+                runOnMainThread {
+                    val activity = context.neoApp.activityHandler.foregroundActivity
+                    if (activity != null) {
+                        WallpaperPermissionHelper.requestIfNeeded(activity)
+                    }
+                    finishUpdate()
+                }
+                return@runOnUiWorkerThread
+            } catch (e: Exception) {
+                runOnMainThread {
+                    prefs.profileBlurEnable.setValue(false)
+                    val msg = "${context.getString(R.string.failed)}: ${e.message}"
+                    Toast.makeText(context, msg, Toast.LENGTH_LONG).show()
+                    notifyWallpaperChanged()
+                    finishUpdate()
+                }
+                return@runOnUiWorkerThread
             }
-            return
-        } catch (e: Exception) {
-            prefs.profileBlurEnable.setValue(false)
+            val levels = try {
+                blur(source.bitmap)
+            } catch (e: Throwable) {
+                source.bitmap.recycle()
+                runOnMainThread {
+                    if (e is OutOfMemoryError) {
+                        prefs.profileBlurEnable.setValue(false)
+                        Toast.makeText(context, R.string.failed, Toast.LENGTH_LONG).show()
+                        notifyWallpaperChanged()
+                    }
+                    finishUpdate()
+                }
+                return@runOnUiWorkerThread
+            }
+            Log.d(TAG, "blur done in ${SystemClock.elapsedRealtime() - startTime} ms, " +
+                    "peak ${(source.peakBytes + levels.sumOf { it.allocationByteCount }) / 1024} KB")
+
             runOnMainThread {
-                val msg = "${context.getString(R.string.failed)}: ${e.message}"
-                Toast.makeText(context, msg, Toast.LENGTH_LONG).show()
-                notifyWallpaperChanged()
+                placeholder = createPlaceholder(source.bitmap.width, source.bitmap.height)
+                onWallpaperBlurred(key, levels)
             }
-            return
+            // The levels can only be recycled by a later update, which will not start before
+            // this one is finished.
+            if (key.wallpaperId > 0) {
+                blurCache.save(key, LEVEL_RADII, levels)
+            }
+            runOnMainThread(::finishUpdate)
         }
-        wallpaper = scaleToScreenSize(wallpaper)
-        val wallpaperHeight = wallpaper.height
+    }
+
+    /**
+     * Blurs [source] once for every entry of [LEVEL_RADII]. The first level is the source itself.
+     */
+    @WorkerThread
+    private fun blur(source: Bitmap): Array<Bitmap> {
+        val levels = ArrayList<Bitmap>(LEVEL_RADII.size)
+        try {
+            for (radius in LEVEL_RADII) {
+                levels.add(if (radius == 0) source else wallpaperFilter.apply(source, radius))
+            }
+        } catch (e: Throwable) {
+            levels.forEach { if (it !== source) it.recycle() }
+            throw e
+        }
+        return levels.toTypedArray()
+    }
+
+    private fun onWallpaperBlurred(key: BlurWallpaperCache.Key, levels: Array<Bitmap>) {
+        currentKey = key
+        blurLevels = levels
+        val result = levels[0]
+        mWallpaperWidth = result.width * DOWN_SAMPLE_FACTOR
+        val wallpaperHeight = result.height * DOWN_SAMPLE_FACTOR
         wallpaperYOffset = if (wallpaperHeight > mDisplayHeight) {
             (wallpaperHeight - mDisplayHeight) * 0.5f
         } else {
             0f
         }
+        notifyWallpaperChanged()
+    }
+
+    private fun finishUpdate() {
+        updating = false
+        if (updatePending) {
+            updatePending = false
+            updateWallpaper()
+        }
+    }
 
-        mWallpaperWidth = wallpaper.width
+    private fun notifyWallpaperChanged() {
+        mListeners.forEach(Listener::onWallpaperChanged)
+    }
 
-        placeholder = createPlaceholder(wallpaper.width, wallpaper.height)
-        wallpaper = applyVibrancy(wallpaper)
-        Log.d("BWP", "starting blur")
+    private fun updateDisplaySize() {
+        val wm = context.getSystemService(Context.WINDOW_SERVICE) as WindowManager
+        val bounds = wm.currentWindowMetrics.bounds
+        mDisplayWidth = bounds.width()
+        mDisplayHeight = bounds.height()
+    }
 
-        applyTask = wallpaperFilter.apply(wallpaper).setCallback { result, error ->
-            if (error == null) {
-                this@BlurWallpaperProvider.wallpaper = result
-                Log.d("BWP", "blur done")
-                runOnMainThread(::notifyWallpaperChanged)
-                wallpaper.recycle()
-            } else {
-                if (error is OutOfMemoryError) {
-                    prefs.profileBlurEnable.setValue(false)
-                    runOnMainThread {
-                        Toast.makeText(context, R.string.failed, Toast.LENGTH_LONG).show()
-                        notifyWallpaperChanged()
+    /**
+     * Renders the wallpaper, scaled to cover the screen and then reduced by
+     * [DOWN_SAMPLE_FACTOR], with vibrancy applied in the same pass. The full size wallpaper is
+     * only decoded when the system does not give us access to the wallpaper file.
+     */
+    @WorkerThread
+    @SuppressLint("MissingPermission")
+    private fun createDownSampledWallpaper(): DownSampledWallpaper {
+        val pfd = try {
+            mWallpaperManager.getWallpaperFile(WallpaperManager.FLAG_SYSTEM)
+        } catch (e: SecurityException) {
+            null
+        }
+        if (pfd != null) {
+            pfd.use {
+                val fd = it.fileDescriptor
+                val options = BitmapFactory.Options().apply { inJustDecodeBounds = true }
+                BitmapFactory.decodeFileDescriptor(fd, null, options)
+                if (options.outWidth > 0 && options.outHeight > 0) {
+                    val (width, height) = getDownSampledSize(options.outWidth, options.outHeight)
+                    options.inJustDecodeBounds = false
+                    options.inSampleSize = getSampleSize(options.outWidth, options.outHeight, width, height)
+                    val decoded = BitmapFactory.decodeFileDescriptor(fd, null, options)
+                    if (decoded != null) {
+                        val peakBytes = decoded.allocationByteCount
+                        val bitmap = createBitmap(width, height)
+                        Canvas(bitmap).drawBitmap(
+                            decoded, null, Rect(0, 0, width, height), mVibrancyPaint
+                        )
+                        decoded.recycle()
+                        return DownSampledWallpaper(bitmap, peakBytes + bitmap.allocationByteCount)
                     }
                 }
-                wallpaper.recycle()
-            }
-            applyTask = null
-            if (updatePending) {
-                updatePending = false
-                updateWallpaper()
             }
         }
-    }
 
-    private fun notifyWallpaperChanged() {
-        mListeners.forEach(Listener::onWallpaperChanged)
+        val drawable = mWallpaperManager.drawable?.mutate()
+            ?: throw IllegalStateException("No wallpaper drawable")
+        val (width, height) = getDownSampledSize(drawable.intrinsicWidth, drawable.intrinsicHeight)
+        val bitmap = createBitmap(width, height)
+        drawable.setBounds(0, 0, width, height)
+        drawable.colorFilter = mVibrancyPaint.colorFilter
+        drawable.draw(Canvas(bitmap))
+        val sourceBytes = (drawable as? BitmapDrawable)?.bitmap?.allocationByteCount ?: 0
+        return DownSampledWallpaper(bitmap, sourceBytes + bitmap.allocationByteCount)
     }
 
-    private fun scaleToScreenSize(bitmap: Bitmap): Bitmap {
-        val wm = context.getSystemService(Context.WINDOW_SERVICE) as WindowManager
-        val windowMetrics = wm.currentWindowMetrics
-        val bounds = windowMetrics.bounds
-        val width = bounds.width()
-        val height = bounds.height()
-        mDisplayWidth = width
-        mDisplayHeight = height
-
-        val widthFactor = width.toFloat() / bitmap.width
-        val heightFactor = height.toFloat() / bitmap.height
-
-        val upscaleFactor = widthFactor.coerceAtLeast(heightFactor)
-        if (upscaleFactor <= 0) {
-            return bitmap
+    /**
+     * Returns the size the wallpaper would have when scaled to cover the screen, divided by
+     * [DOWN_SAMPLE_FACTOR].
+     */
+    private fun getDownSampledSize(sourceWidth: Int, sourceHeight: Int): Pair<Int, Int> {
+        val width = mDisplayWidth
+        val height = mDisplayHeight
+        var scaledWidth = width
+        var scaledHeight = height
+        if (sourceWidth > 0 && sourceHeight > 0) {
+            val upscaleFactor = (width.toFloat() / sourceWidth)
+                .coerceAtLeast(height.toFloat() / sourceHeight)
+            scaledWidth = width.coerceAtLeast((sourceWidth * upscaleFactor).ceilToInt())
+            scaledHeight = height.coerceAtLeast((sourceHeight * upscaleFactor).ceilToInt())
         }
+        return Pair(
+            (scaledWidth.toFloat() / DOWN_SAMPLE_FACTOR).ceilToInt().coerceAtLeast(1),
+            (scaledHeight.toFloat() / DOWN_SAMPLE_FACTOR).ceilToInt().coerceAtLeast(1)
+        )
+    }
 
-        val scaledWidth = width.coerceAtLeast((bitmap.width * upscaleFactor).ceilToInt())
-        val scaledHeight = height.coerceAtLeast((bitmap.height * upscaleFactor).ceilToInt())
-        return bitmap.scale(scaledWidth, scaledHeight, false)
+    private fun getSampleSize(sourceWidth: Int, sourceHeight: Int, width: Int, height: Int): Int {
+        var sampleSize = 1
+        while (sourceWidth / (sampleSize * 2) >= width && sourceHeight / (sampleSize * 2) >= height) {
+            sampleSize *= 2
+        }
+        return sampleSize
     }
 
     private fun createPlaceholder(width: Int, height: Int): Bitmap {
@@ -228,25 +371,6 @@ class BlurWallpaperProvider(val context: Context) {
         MAIN_EXECUTOR.execute(mUpdateRunnable)
     }
 
-    private fun applyVibrancy(wallpaper: Bitmap): Bitmap {
-        val width = wallpaper.width
-        val height = wallpaper.height
-
-        val bitmap = createBitmap(width, height)
-        val canvas = Canvas()
-        canvas.setBitmap(bitmap)
-
-        val colorMatrix = ColorMatrix()
-        colorMatrix.setSaturation(1.25f)
-        val filter = ColorMatrixColorFilter(colorMatrix)
-        mVibrancyPaint.colorFilter = filter
-        canvas.drawBitmap(wallpaper, 0f, 0f, mVibrancyPaint)
-
-        wallpaper.recycle()
-
-        return bitmap
-    }
-
     fun addListener(listener: Listener) {
         mListeners.add(listener)
         listener.onOffsetChanged(mOffset)
@@ -272,7 +396,7 @@ class BlurWallpaperProvider(val context: Context) {
 
     fun setWallpaperOffset(offset: Float) {
         if (!isEnabled) return
-        if (wallpaper == null) return
+        if (blurLevels == null) return
 
         val availw = mDisplayWidth - mWallpaperWidth
         var xPixels = availw / 2
@@ -290,6 +414,8 @@ class BlurWallpaperProvider(val context: Context) {
         }
     }
 
+    private class DownSampledWallpaper(val bitmap: Bitmap, val peakBytes: Int)
+
     interface Listener {
         fun onWallpaperChanged() {}
         fun onOffsetChanged(offset: Float) {}
@@ -299,7 +425,34 @@ class BlurWallpaperProvider(val context: Context) {
 
     companion object :
         SingletonHolder<BlurWallpaperProvider, Context>(ensureOnMainThread(useApplicationContext(::BlurWallpaperProvider))) {
+        private const val TAG = "BWP"
         const val DOWN_SAMPLE_FACTOR = 8
+        private const val VIBRANCY_SATURATION = 1.25f
+
+        /** Maps the blur radius preference to a radius in down-sampled pixels */
+        private const val BLUR_RADIUS_SCALE = 16f
+
+        /** Radii, in down-sampled pixels, of the pre-blurred levels */
+        @JvmField
+        val LEVEL_RADII = intArrayOf(0, 3, 6, 12, 24)
+
+        /**
+         * Returns the index of the highest level whose radius is not above [radius], the drawable
+         * should blend in the next level by [getLevelFraction].
+         */
+        fun getLevelIndex(radius: Float): Int {
+            var index = 0
+            while (index < LEVEL_RADII.size - 2 && LEVEL_RADII[index + 1] <= radius) {
+                index++
+            }
+            return index
+        }
+
+        fun getLevelFraction(radius: Float, index: Int): Float {
+            val lower = LEVEL_RADII[index]
+            val upper = LEVEL_RADII[index + 1]
+            return ((radius - lower) / (upper - lower)).coerceIn(0f, 1f)
+        }
 
         var isEnabled: Boolean = false
         private var sEnabledFlag: Int = 0
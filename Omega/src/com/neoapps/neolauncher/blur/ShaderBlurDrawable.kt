@@ -23,24 +23,30 @@ import android.graphics.Bitmap
 import android.graphics.BitmapShader
 import android.graphics.Canvas
 import android.graphics.ColorFilter
+import android.graphics.Matrix
 import android.graphics.Paint
 import android.graphics.Path
 import android.graphics.PixelFormat
 import android.graphics.RectF
 import android.graphics.Shader
+import kotlin.math.roundToInt
 
 class ShaderBlurDrawable internal constructor(
     private val blurProvider: BlurWallpaperProvider
 ) : BlurDrawable() {
 
     private var blurAlpha = 255
-    private val blurPaint = Paint(Paint.FILTER_BITMAP_FLAG or Paint.ANTI_ALIAS_FLAG)
-    private var blurBitmap: Bitmap? = null
+    private val shaderMatrix = Matrix().apply {
+        val scale = BlurWallpaperProvider.DOWN_SAMPLE_FACTOR.toFloat()
+        setScale(scale, scale)
+    }
+    private val lowerLevel = Level()
+    private val upperLevel = Level()
+    override var blurRadius = USE_DEFAULT_RADIUS
         set(value) {
             if (field != value) {
                 field = value
-                blurPaint.shader =
-                    value?.let { BitmapShader(it, Shader.TileMode.CLAMP, Shader.TileMode.CLAMP) }
+                invalidateSelf()
             }
         }
     private var blurOffset = 0f
@@ -91,20 +97,51 @@ class ShaderBlurDrawable internal constructor(
 
     override fun draw(canvas: Canvas, noRadius: Boolean) {
         if (blurAlpha == 0) return
-        blurBitmap = blurProvider.wallpaper
+        val levels = blurProvider.blurLevels ?: return
+        val radius = if (blurRadius >= 0) blurRadius else blurProvider.blurRadius
+        val index = BlurWallpaperProvider.getLevelIndex(radius)
+        val fraction = BlurWallpaperProvider.getLevelFraction(radius, index)
+        lowerLevel.bitmap = levels[index]
+        upperLevel.bitmap = levels[index + 1]
         setupBlurPath()
 
         canvas.translate(-blurOffset, 0f)
+        if (fraction <= 0f || fraction >= 1f) {
+            val level = if (fraction <= 0f) lowerLevel else upperLevel
+            level.paint.alpha = blurAlpha
+            drawLevel(canvas, noRadius, level.paint)
+        } else {
+            // Blend the next level over the lower one to approximate the radius in between, in a
+            // layer so that the blend as a whole is drawn at blurAlpha
+            val saveCount =
+                if (blurAlpha < 255) {
+                    canvas.saveLayerAlpha(
+                        blurBounds.left + blurOffset, blurBounds.top,
+                        blurBounds.right + blurOffset, blurBounds.bottom,
+                        blurAlpha
+                    )
+                } else {
+                    -1
+                }
+            lowerLevel.paint.alpha = 255
+            drawLevel(canvas, noRadius, lowerLevel.paint)
+            upperLevel.paint.alpha = (255 * fraction).roundToInt()
+            drawLevel(canvas, noRadius, upperLevel.paint)
+            if (saveCount >= 0) canvas.restoreToCount(saveCount)
+        }
+        canvas.translate(blurOffset, 0f)
+    }
+
+    private fun drawLevel(canvas: Canvas, noRadius: Boolean, paint: Paint) {
         if (noRadius) {
             canvas.drawRect(
                 blurBounds.left + blurOffset, blurBounds.top,
                 blurBounds.right + blurOffset, blurBounds.bottom,
-                blurPaint
+                paint
             )
         } else {
-            canvas.drawPath(blurPath, blurPaint)
+            canvas.drawPath(blurPath, paint)
         }
-        canvas.translate(blurOffset, 0f)
     }
 
     private fun setupBlurPath() {
@@ -135,7 +172,6 @@ class ShaderBlurDrawable internal constructor(
 
     override fun setAlpha(alpha: Int) {
         blurAlpha = alpha
-        blurPaint.alpha = alpha
     }
 
     override fun getAlpha(): Int {
@@ -163,4 +199,20 @@ class ShaderBlurDrawable internal constructor(
     override fun stopListening() {
         blurProvider.removeListener(this)
     }
+
+    private inner class Level {
+        val paint = Paint(Paint.FILTER_BITMAP_FLAG or Paint.ANTI_ALIAS_FLAG)
+        var bitmap: Bitmap? = null
+            set(value) {
+                if (field !== value) {
+                    field = value
+                    paint.shader = value?.let {
+                        BitmapShader(it, Shader.TileMode.CLAMP, Shader.TileMode.CLAMP).apply {
+                            // The provider blurs a down-sampled wallpaper, scale it back up
+                            setLocalMatrix(shaderMatrix)
+                        }
+                    }
+                }
+            }
+    }
 }
\ No newline at end of file
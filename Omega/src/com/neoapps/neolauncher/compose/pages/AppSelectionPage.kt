@@ -32,6 +32,7 @@ import androidx.compose.material3.DropdownMenuItem
 import androidx.compose.material3.Text
 import androidx.compose.runtime.Composable
 import androidx.compose.runtime.DisposableEffect
+import androidx.compose.runtime.LaunchedEffect
 import androidx.compose.runtime.getValue
 import androidx.compose.runtime.mutableIntStateOf
 import androidx.compose.runtime.mutableStateOf
@@ -113,6 +114,7 @@ fun AppSelectionPage(
                     verticalArrangement = Arrangement.spacedBy(2.dp)
                 ) {
                     itemsIndexed(allApps) { index, app ->
+                        LaunchedEffect(app) { app.loadHighResIcon() }
                         val isSelected = rememberSaveable(selected) {
                             mutableStateOf(selected.contains(app.key.toString()))
                         }
@@ -36,6 +36,7 @@ import androidx.compose.foundation.pager.rememberPagerState
 import androidx.compose.material3.Icon
 import androidx.compose.material3.MaterialTheme
 import androidx.compose.runtime.Composable
+import androidx.compose.runtime.LaunchedEffect
 import androidx.compose.runtime.MutableState
 import androidx.compose.runtime.getValue
 import androidx.compose.runtime.mutableIntStateOf
@@ -228,6 +229,7 @@ fun AppsScreen(
                 }
 
                 itemsIndexed(apps) { index, item ->
+                    LaunchedEffect(item) { item.loadHighResIcon() }
                     val config = JSONObject("{}")
                     config.apply {
                         put("appName", item.label)
@@ -18,7 +18,6 @@
 
 package com.neoapps.neolauncher.compose.pages
 
-import android.graphics.drawable.Drawable
 import androidx.compose.foundation.ExperimentalFoundationApi
 import androidx.compose.foundation.Image
 import androidx.compose.foundation.clickable
@@ -34,9 +33,10 @@ import androidx.compose.foundation.lazy.grid.items
 import androidx.compose.material3.MaterialTheme
 import androidx.compose.material3.Text
 import androidx.compose.runtime.Composable
-import androidx.compose.runtime.collectAsState
+import androidx.compose.runtime.LaunchedEffect
 import androidx.compose.runtime.derivedStateOf
 import androidx.compose.runtime.getValue
+import androidx.compose.runtime.mutableStateListOf
 import androidx.compose.runtime.mutableStateOf
 import androidx.compose.runtime.produceState
 import androidx.compose.runtime.remember
@@ -51,12 +51,12 @@ import com.android.launcher3.R
 import com.neoapps.neolauncher.compose.components.preferences.PreferenceGroupDescription
 import com.neoapps.neolauncher.data.models.IconPickerItem
 import com.neoapps.neolauncher.iconpack.IconPack
+import com.neoapps.neolauncher.iconpack.IconPickerCategory
+import com.neoapps.neolauncher.iconpack.IconThumbnailCache
 import com.neoapps.neolauncher.iconpack.filter
 import com.neoapps.neolauncher.icons.drawableToBitmap
 import com.neoapps.neolauncher.util.getIcon
-import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.flow.catch
-import kotlinx.coroutines.launch
 
 @OptIn(ExperimentalFoundationApi::class)
 @Composable
@@ -67,13 +67,15 @@ fun IconListPage(
     modifier: Modifier = Modifier,
 ) {
     var loadFailed by remember { mutableStateOf(false) }
-    val categoriesFlow = remember(iconPack) {
-        iconPack.getAllIcons()
+    val categories = remember(iconPack) { mutableStateListOf<IconPickerCategory>() }
+    LaunchedEffect(iconPack) {
+        iconPack.getIconPages()
             .catch { loadFailed = true }
+            .collect { categories.addAll(it) }
     }
-    val categories by categoriesFlow.collectAsState(emptyList())
-    val filteredCategories by remember(searchQuery) {
+    val filteredCategories by remember(categories, searchQuery) {
         derivedStateOf {
+            if (searchQuery.isEmpty()) return@derivedStateOf categories.toList()
             categories.mapNotNull {
                 it.filter(searchQuery)
                     .takeUnless { cat -> cat.items.isEmpty() }
@@ -86,18 +88,22 @@ fun IconListPage(
         columns = GridCells.FixedSize(72.dp),
         horizontalArrangement = Arrangement.SpaceEvenly,
     ) {
-        filteredCategories.forEach { category ->
+        filteredCategories.forEachIndexed { index, category ->
+            val showTitle = !category.isContinuation
+                    || filteredCategories.getOrNull(index - 1)?.title != category.title
             // TODO restoring stickyHeaders in future
-            item(
-                span = { GridItemSpan(this.maxLineSpan) },
-            ) {
-                Text(
-                    text = category.title,
-                    modifier = Modifier
-                        .padding(12.dp),
-                    style = MaterialTheme.typography.titleSmall,
-                    color = MaterialTheme.colorScheme.primary
-                )
+            if (showTitle) {
+                item(
+                    span = { GridItemSpan(this.maxLineSpan) },
+                ) {
+                    Text(
+                        text = category.title,
+                        modifier = Modifier
+                            .padding(12.dp),
+                        style = MaterialTheme.typography.titleSmall,
+                        color = MaterialTheme.colorScheme.primary
+                    )
+                }
             }
             items(
                 items = category.items,
@@ -130,11 +136,13 @@ fun IconPreview(
     iconItem: IconPickerItem,
     onClick: () -> Unit,
 ) {
-    val drawable by produceState<Drawable?>(initialValue = null, iconPack, iconItem) {
-        launch(Dispatchers.IO) {
-            value = iconPack.getIcon(iconItem.toIconEntry(), 0)
-        }
+    val iconEntry = remember(iconItem) { iconItem.toIconEntry() }
+    // Leaving the composition cancels the load, so icons scrolled past are never decoded
+    val bitmap by produceState(IconThumbnailCache.getCached(iconEntry), iconPack, iconEntry) {
+        if (value == null) value = IconThumbnailCache.load(iconPack, iconEntry)
     }
+    val context = LocalContext.current
+    val placeholder = remember(context) { drawableToBitmap(context.getIcon()) }
     Box(
         modifier = Modifier
             .clip(MaterialTheme.shapes.small)
@@ -142,7 +150,7 @@ fun IconPreview(
             .padding(8.dp),
     ) {
         Image(
-            bitmap = drawableToBitmap(drawable ?: LocalContext.current.getIcon()).asImageBitmap(),
+            bitmap = (bitmap ?: placeholder).asImageBitmap(),
             contentDescription = iconItem.drawableName,
             modifier = Modifier.aspectRatio(1f),
         )
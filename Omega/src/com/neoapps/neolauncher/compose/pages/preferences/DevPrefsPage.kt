@@ -22,21 +22,29 @@ import androidx.compose.foundation.layout.Arrangement
 import androidx.compose.foundation.layout.fillMaxSize
 import androidx.compose.foundation.layout.padding
 import androidx.compose.foundation.lazy.LazyColumn
+import androidx.compose.foundation.lazy.items
+import androidx.compose.material3.MaterialTheme
+import androidx.compose.material3.Text
 import androidx.compose.runtime.Composable
 import androidx.compose.runtime.getValue
 import androidx.compose.runtime.mutableStateOf
 import androidx.compose.runtime.remember
 import androidx.compose.runtime.setValue
 import androidx.compose.ui.Modifier
+import androidx.compose.ui.platform.LocalContext
 import androidx.compose.ui.res.stringResource
 import androidx.compose.ui.unit.dp
 import com.android.launcher3.R
+import com.android.launcher3.model.LoaderTimelineRecorder
 import com.neoapps.neolauncher.compose.components.BaseDialog
 import com.neoapps.neolauncher.compose.components.ViewWithActionBar
 import com.neoapps.neolauncher.compose.components.preferences.IntSelectionPrefDialogUI
 import com.neoapps.neolauncher.compose.components.preferences.PreferenceGroup
+import com.neoapps.neolauncher.compose.components.preferences.PreferenceGroupHeading
 import com.neoapps.neolauncher.preferences.IntSelectionPref
 import com.neoapps.neolauncher.preferences.NeoPrefs
+import java.io.PrintWriter
+import java.io.StringWriter
 
 @Composable
 fun DevPrefsPage() {
@@ -54,6 +62,13 @@ fun DevPrefsPage() {
         prefs.showDebugInfo,
         prefs.desktopFreeScrolling
         )
+    val context = LocalContext.current
+    val loaderTimelines = remember {
+        LoaderTimelineRecorder.INSTANCE.get(context).getTimelines().reversed().map {
+            StringWriter().apply { PrintWriter(this).use { writer -> it.dump("", writer) } }
+                .toString().trimEnd()
+        }
+    }
 
     ViewWithActionBar(
         title = stringResource(R.string.developer_options_title)
@@ -72,6 +87,17 @@ fun DevPrefsPage() {
                     onPrefDialog = onPrefDialog
                 )
             }
+            item {
+                PreferenceGroupHeading(stringResource(R.string.title__dev_loader_timeline))
+            }
+            items(loaderTimelines) {
+                Text(
+                    text = it,
+                    modifier = Modifier.padding(horizontal = 24.dp),
+                    style = MaterialTheme.typography.bodySmall,
+                    color = MaterialTheme.colorScheme.onSurfaceVariant
+                )
+            }
         }
 
         if (openDialog.value) {
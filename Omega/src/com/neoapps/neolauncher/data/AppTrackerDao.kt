@@ -23,6 +23,7 @@ import androidx.room.Dao
 import androidx.room.Insert
 import androidx.room.OnConflictStrategy
 import androidx.room.Query
+import androidx.room.Transaction
 import com.neoapps.neolauncher.data.models.AppTracker
 
 @Dao
@@ -37,15 +38,23 @@ interface AppTrackerDao {
     @Query("DELETE FROM apptracker WHERE packageName = :packageName AND userSerialNumber = :userSerialNumber")
     suspend fun deleteAppCount(packageName: String, userSerialNumber: Long)
 
-    @Query("SELECT count FROM apptracker WHERE packageName = :packageName AND userSerialNumber = :userSerialNumber")
-    fun getAppCount(packageName: String, userSerialNumber: Long): Int
-
-    @Query("SELECT EXISTS(SELECT * FROM apptracker WHERE packageName = :packageName AND userSerialNumber = :userSerialNumber)")
-    fun appExist(packageName: String, userSerialNumber: Long): Boolean
+    @Query("UPDATE apptracker SET count = count + :launches, lastOpened = :lastOpened, userSerialNumber = :userSerialNumber WHERE packageName = :packageName")
+    fun addLaunches(packageName: String, userSerialNumber: Long, launches: Int, lastOpened: Long): Int
 
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     fun insert(appTracker: AppTracker)
 
-    @Insert(onConflict = OnConflictStrategy.REPLACE)
-    fun update(appTracker: AppTracker)
+    /** Adds the launches aggregated in [launches] to the stored counts, in a single transaction */
+    @Transaction
+    fun addLaunches(launches: List<AppTracker>) {
+        launches.forEach {
+            val updated = addLaunches(
+                it.packageName,
+                it.userSerialNumber ?: -1,
+                it.count,
+                it.lastOpened ?: System.currentTimeMillis()
+            )
+            if (updated == 0) insert(it)
+        }
+    }
 }
\ No newline at end of file
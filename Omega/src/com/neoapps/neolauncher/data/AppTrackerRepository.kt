@@ -20,60 +20,162 @@
 package com.neoapps.neolauncher.data
 
 import android.content.Context
+import android.os.Looper
 import android.os.Process
 import android.os.UserHandle
 import com.android.launcher3.pm.UserCache
 import com.android.launcher3.util.MainThreadInitializedObject
+import com.neoapps.neolauncher.allapps.UsageScorer
 import com.neoapps.neolauncher.data.models.AppTracker
 import kotlinx.coroutines.CoroutineName
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.async
+import kotlinx.coroutines.delay
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.plus
+import kotlinx.coroutines.runBlocking
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.math.max
 
+/**
+ * Tracks app launches in memory and writes them behind to the database. Launches are aggregated
+ * per package and flushed in a single transaction after [FLUSH_DELAY_MS] or when the launcher is
+ * stopped, and all the queries are served from memory.
+ *
+ * The database is only written once the stored counts are loaded, so that they never include the
+ * launches already counted in memory. Queries on the main thread don't wait for that load and only
+ * see the launches recorded since, [getUsageVersion] changes once the stored counts are merged.
+ */
 class AppTrackerRepository(private val context: Context) {
     private val scope = CoroutineScope(Dispatchers.IO) + CoroutineName("AppTrackerRepository")
     private val dao = NeoLauncherDb.INSTANCE.get(context).appTrackerDao()
     private val userCache = UserCache.INSTANCE.get(context)
 
-    var appCountList: List<AppTracker> = listOf()
+    // Stored counts merged with the launches recorded since, keyed by package like the table
+    private val counts = ConcurrentHashMap<String, AppTracker>()
 
-    init {
-        scope.launch {
-            appCountList = dao.getAppCount()
+    // Launches recorded since the last flush
+    private val pendingLaunches = ConcurrentHashMap<String, AppTracker>()
+    private val flushScheduled = AtomicBoolean()
+
+    // Decayed usage scores, seeded from the stored counts at their last launch time
+    private val scorer = UsageScorer()
+
+    // Incremented whenever the counts or scores change, to invalidate orders derived from them
+    private val usageVersion = AtomicInteger()
+
+    private val loaded = scope.async {
+        dao.getAppCount().forEach { stored ->
+            counts.merge(stored.packageName, stored, ::add)
+            scorer.seed(
+                stored.packageName,
+                stored.lastOpened ?: System.currentTimeMillis(),
+                stored.count.toFloat()
+            )
         }
+        usageVersion.incrementAndGet()
     }
 
+    /** Returns a value which changes whenever the usage counts or scores change */
+    fun getUsageVersion(): Int = usageVersion.get()
+
     fun getAppsCount(): List<AppTracker> {
-        scope.launch {
-            appCountList = dao.getAppCount()
-        }
-        return appCountList
+        awaitLoaded()
+        return counts.values.toList()
     }
 
     fun getRecentApps(limit: Int): List<AppTracker> {
-        return dao.getRecentApps(limit)
+        awaitLoaded()
+        return counts.values.sortedByDescending { it.lastOpened ?: 0 }.take(limit)
+    }
+
+    /** Returns the [limit] apps with the highest decayed usage score right now */
+    fun getSuggestedApps(limit: Int): List<AppTracker> {
+        awaitLoaded()
+        return scorer.topK(limit, System.currentTimeMillis()).mapNotNull { counts[it] }
     }
 
+    /** Returns the current decayed usage score of every app, keyed by package */
+    fun getUsageScores(): UsageScorer.Snapshot {
+        awaitLoaded()
+        return scorer.snapshot(System.currentTimeMillis())
+    }
+
+    /** Records a launch of [packageName], without any disk I/O */
     fun updateAppCount(packageName: String, user: UserHandle = Process.myUserHandle()) {
-        val userSerialNumber = userCache.getSerialNumberForUser(user)
-        val timestamp = System.currentTimeMillis()
-        //Check if the app is already in the database
-        if (dao.appExist(packageName, userSerialNumber)) {
-            //If it is, update the count
-            val currentCount = dao.getAppCount(packageName, userSerialNumber)
-            dao.update(AppTracker(packageName, userSerialNumber, currentCount + 1, timestamp))
-        } else {
-            dao.insert(AppTracker(packageName, userSerialNumber, 1, timestamp))
+        val launch = AppTracker(
+            packageName,
+            userCache.getSerialNumberForUser(user),
+            1,
+            System.currentTimeMillis()
+        )
+        counts.merge(packageName, launch, ::add)
+        scorer.recordLaunch(packageName, launch.lastOpened!!)
+        usageVersion.incrementAndGet()
+        pendingLaunches.merge(packageName, launch, ::add)
+        if (flushScheduled.compareAndSet(false, true)) {
+            scope.launch {
+                delay(FLUSH_DELAY_MS)
+                flush()
+            }
         }
     }
 
     fun deleteAppCount(packageName: String, user: UserHandle = Process.myUserHandle()) {
         val userSerialNumber = userCache.getSerialNumberForUser(user)
-        scope.launch { dao.deleteAppCount(packageName, userSerialNumber) }
+        pendingLaunches.remove(packageName)
+        removeFromMemory(packageName)
+        scope.launch {
+            if (!loaded.isCompleted) {
+                // The load may have read the count before it is deleted, drop it again
+                loaded.await()
+                removeFromMemory(packageName)
+            }
+            dao.deleteAppCount(packageName, userSerialNumber)
+        }
+    }
+
+    /** Writes the pending launches to the database, called when the launcher is stopped */
+    fun flushAsync() {
+        if (pendingLaunches.isNotEmpty()) scope.launch { flush() }
+    }
+
+    private suspend fun flush() {
+        loaded.await()
+        flushScheduled.set(false)
+        // Each entry is removed atomically, so launches recorded meanwhile go to the next flush
+        val launches = pendingLaunches.keys.mapNotNull { pendingLaunches.remove(it) }
+        if (launches.isNotEmpty()) dao.addLaunches(launches)
     }
 
+    private fun removeFromMemory(packageName: String) {
+        counts.remove(packageName)
+        scorer.remove(packageName)
+        usageVersion.incrementAndGet()
+    }
+
+    private fun awaitLoaded() {
+        // Room doesn't allow waiting on the main thread, it gets the counts known so far instead
+        if (loaded.isCompleted || Looper.myLooper() == Looper.getMainLooper()) return
+        runBlocking { loaded.await() }
+    }
+
+    private fun add(a: AppTracker, b: AppTracker) = a.copy(
+        userSerialNumber = if ((a.lastOpened ?: 0) >= (b.lastOpened ?: 0)) {
+            a.userSerialNumber
+        } else {
+            b.userSerialNumber
+        },
+        count = a.count + b.count,
+        lastOpened = max(a.lastOpened ?: 0, b.lastOpened ?: 0),
+    )
+
     companion object {
+        private const val FLUSH_DELAY_MS = 30_000L
+
         val INSTANCE = MainThreadInitializedObject(::AppTrackerRepository)
     }
-}
\ No newline at end of file
+}
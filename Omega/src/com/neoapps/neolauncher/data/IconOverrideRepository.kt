@@ -1,83 +1,121 @@
 package com.neoapps.neolauncher.data
 
+import android.content.ComponentName
 import android.content.Context
-import com.android.launcher3.LauncherAppState
+import android.os.UserHandle
 import com.android.launcher3.dagger.ApplicationContext
+import com.android.launcher3.dagger.LauncherAppComponent
 import com.android.launcher3.dagger.LauncherAppSingleton
+import com.android.launcher3.icons.IconChangeTracker
 import com.android.launcher3.util.ComponentKey
-import com.android.launcher3.util.MainThreadInitializedObject
+import com.android.launcher3.util.DaggerSingletonObject
 import com.neoapps.neolauncher.data.models.IconOverride
 import com.neoapps.neolauncher.data.models.IconPickerItem
 import kotlinx.coroutines.CoroutineName
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.MainScope
-import kotlinx.coroutines.flow.flowOn
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.plus
-import java.util.concurrent.ConcurrentLinkedQueue
+import kotlinx.coroutines.runBlocking
 import javax.inject.Inject
 
 @LauncherAppSingleton
-class IconOverrideRepository  @Inject constructor(@ApplicationContext private val context: Context,) {
+class IconOverrideRepository @Inject constructor(
+    @ApplicationContext private val context: Context,
+    private val iconChangeTracker: IconChangeTracker,
+) {
 
     private val scope = MainScope() + CoroutineName("IconOverrideRepository")
     private val dao = NeoLauncherDb.INSTANCE.get(context).iconOverrideDao()
-    private var _overridesMap = mapOf<ComponentKey, IconPickerItem>()
-    val overridesMap get() = _overridesMap
-    private val updatePackageQueue = ConcurrentLinkedQueue<ComponentKey>()
+
+    // The complete set is read when the repository is created, so that icons are never loaded
+    // with a partial set. It is then kept up to date by the observer.
+    @Volatile
+    private var snapshot = Snapshot(runBlocking(Dispatchers.IO) { dao.getAll() })
+
+    /** Immutable map of all the overrides */
+    val overridesMap: Map<ComponentKey, IconPickerItem>
+        get() = snapshot.overrides
 
     init {
-        scope.launch {
-            dao.observeAll()
-                .flowOn(Dispatchers.Main)
-                .collect { overrides ->
-                    _overridesMap = overrides.associateBy(
-                        keySelector = { it.target },
-                        valueTransform = { it.iconPickerItem }
-                    )
-                    while (updatePackageQueue.isNotEmpty()) {
-                        val target = updatePackageQueue.poll() ?: continue
-                        updatePackageIcons(target)
-                    }
-                }
+        scope.launch(Dispatchers.IO) {
+            dao.observeAll().collect { publish(Snapshot(it)) }
         }
     }
 
+    /** Returns the override for the component, without allocating a lookup key */
+    fun getOverride(componentName: ComponentName, user: UserHandle): IconPickerItem? =
+        snapshot.byComponent[componentName]?.get(user)
+
+    /**
+     * Returns a token identifying the overrides of [packageName], which changes whenever any of
+     * them changes, or null if the package has no override.
+     */
+    fun getOverrideState(packageName: String, user: UserHandle): String? =
+        snapshot.packageStates[packageName]?.get(user)
+
     suspend fun setOverride(target: ComponentKey, item: IconPickerItem) {
         dao.insert(IconOverride(target, item))
-        updatePackageQueue.offer(target)
     }
 
     suspend fun deleteOverride(target: ComponentKey) {
         dao.delete(target)
-        updatePackageQueue.offer(target)
     }
 
     fun observeTarget(target: ComponentKey) = dao.observeTarget(target)
     fun observeCount() = dao.observeCount()
 
     suspend fun deleteAll() {
-        val targets = dao.getAll()
         dao.deleteAll()
-        updatePackageIcons(targets)
     }
 
-    private fun updatePackageIcons(target: ComponentKey) {
-        val model = LauncherAppState.getInstance(context).model
-        //TODO: Fix this
-        //model.onPackageChanged(target.componentName.packageName, target.user)
-    }
+    private fun publish(newSnapshot: Snapshot) {
+        val oldSnapshot = snapshot
+        snapshot = newSnapshot
 
-    private fun updatePackageIcons(target: List<IconOverride>) {
-        val model = LauncherAppState.getInstance(context).model
-        target.forEach {
-            //TODO: Fix this
-            //model.onPackageChanged(it.target.componentName.packageName, it.target.user)
+        // Reload the icons of every package whose overrides changed
+        (oldSnapshot.packageStates.keys + newSnapshot.packageStates.keys).forEach { pkg ->
+            val oldStates = oldSnapshot.packageStates[pkg].orEmpty()
+            val newStates = newSnapshot.packageStates[pkg].orEmpty()
+            (oldStates.keys + newStates.keys)
+                .filter { oldStates[it] != newStates[it] }
+                .forEach { iconChangeTracker.notifyIconChanged(pkg, it) }
         }
     }
 
+    private class Snapshot(overrides: List<IconOverride>) {
+
+        val overrides: Map<ComponentKey, IconPickerItem> =
+            overrides.associate { it.target to it.iconPickerItem }
+
+        val byComponent: Map<ComponentName, Map<UserHandle, IconPickerItem>> =
+            overrides
+                .groupBy { it.target.componentName }
+                .mapValues { (_, items) ->
+                    items.associate { it.target.user to it.iconPickerItem }
+                }
+
+        val packageStates: Map<String, Map<UserHandle, String>> =
+            overrides
+                .groupBy { it.target.componentName.packageName }
+                .mapValues { (_, items) ->
+                    items
+                        .groupBy { it.target.user }
+                        .mapValues { (_, userItems) -> userItems.toStateToken() }
+                }
+
+        private fun List<IconOverride>.toStateToken() =
+            map {
+                "${it.target.componentName.className}=" +
+                    "${it.iconPickerItem.packPackageName}/${it.iconPickerItem.drawableName}"
+            }
+                .sorted()
+                .hashCode()
+                .toString(16)
+    }
+
     companion object {
         @JvmField
-        val INSTANCE = MainThreadInitializedObject(::IconOverrideRepository)
+        val INSTANCE = DaggerSingletonObject(LauncherAppComponent::getIconOverrideRepository)
     }
 }
@@ -22,17 +22,19 @@ import org.xmlpull.v1.XmlPullParser
 import org.xmlpull.v1.XmlPullParserException
 import org.xmlpull.v1.XmlPullParserFactory
 import java.io.IOException
+import java.util.concurrent.ConcurrentHashMap
 
 class CustomIconPack(context: Context, packPackageName: String) :
     IconPack(context, packPackageName) {
 
     private val packResources = context.packageManager.getResourcesForApplication(packPackageName)
-    private val componentMap = mutableMapOf<ComponentName, IconEntry>()
-    private val calendarMap = mutableMapOf<ComponentName, IconEntry>()
-    private val clockMap = mutableMapOf<ComponentName, IconEntry>()
-    private val clockMetas = mutableMapOf<IconEntry, ClockMetadata>()
+    // Filled in the background and read by the icon render threads meanwhile
+    private val componentMap = ConcurrentHashMap<ComponentName, IconEntry>()
+    private val calendarMap = ConcurrentHashMap<ComponentName, IconEntry>()
+    private val clockMap = ConcurrentHashMap<ComponentName, IconEntry>()
+    private val clockMetas = ConcurrentHashMap<IconEntry, ClockMetadata>()
 
-    private val idCache = mutableMapOf<String, Int>()
+    private val idCache = ConcurrentHashMap<String, Int>()
 
     override val label = context.packageManager.let { pm ->
         pm.getApplicationInfo(packPackageName, 0).loadLabel(pm).toString()
@@ -168,21 +170,49 @@ class CustomIconPack(context: Context, packPackageName: String) :
         }
     }
 
-    override fun getAllIcons(): Flow<List<IconPickerCategory>> = flow {
+    override fun getIconPages(): Flow<List<IconPickerCategory>> = flow {
         load()
 
-        val result = mutableListOf<IconPickerCategory>()
+        val index = IconPackIndex.loadOrBuild(context, packPackageName, ::buildIndex)
+        val defaultTitle = context.getString(R.string.icon_picker_default_category)
+        val page = mutableListOf<IconPickerCategory>()
+        var pageItemCount = 0
+        index.categories.forEach { category ->
+            category.names.forEachIndexed { i, name -> idCache[name] = category.resIds[i] }
+            val title = category.title ?: defaultTitle
+            var start = 0
+            while (start < category.names.size) {
+                val end = minOf(category.names.size, start + PAGE_SIZE - pageItemCount)
+                val items = category.names.subList(start, end).map {
+                    IconPickerItem(packPackageName, it, it, IconType.Normal)
+                }
+                page.add(IconPickerCategory(title, items, isContinuation = start > 0))
+                pageItemCount += end - start
+                start = end
+                if (pageItemCount == PAGE_SIZE) {
+                    emit(page.toList())
+                    page.clear()
+                    pageItemCount = 0
+                }
+            }
+        }
+        if (page.isNotEmpty()) emit(page.toList())
+    }.flowOn(Dispatchers.IO)
 
+    private fun buildIndex(): IconPackIndex {
+        val categories = mutableListOf<IconPackIndex.Category>()
         var currentTitle: String? = null
-        val currentItems = mutableListOf<IconPickerItem>()
+        val currentNames = mutableListOf<String>()
+        val currentIds = mutableListOf<Int>()
 
-        suspend fun endCategory() {
-            if (currentItems.isEmpty()) return
-            val title = currentTitle ?: context.getString(R.string.icon_picker_default_category)
-            result.add(IconPickerCategory(title, ArrayList(currentItems)))
+        fun endCategory() {
+            if (currentNames.isEmpty()) return
+            categories.add(
+                IconPackIndex.Category(currentTitle, currentNames.toList(), currentIds.toIntArray())
+            )
             currentTitle = null
-            currentItems.clear()
-            emit(ArrayList(result))
+            currentNames.clear()
+            currentIds.clear()
         }
 
         val parser = getXml("drawable")
@@ -199,19 +229,15 @@ class CustomIconPack(context: Context, packPackageName: String) :
                     val drawableName = parser["drawable"] ?: continue
                     val resId = getDrawableId(drawableName)
                     if (resId != 0) {
-                        val item = IconPickerItem(
-                            packPackageName,
-                            drawableName,
-                            drawableName,
-                            IconType.Normal
-                        )
-                        currentItems.add(item)
+                        currentNames.add(drawableName)
+                        currentIds.add(resId)
                     }
                 }
             }
         }
         endCategory()
-    }.flowOn(Dispatchers.IO)
+        return IconPackIndex(categories)
+    }
 
     private fun getDrawableId(name: String) = idCache.getOrPut(name) {
         packResources.getIdentifier(name, "drawable", packPackageName)
@@ -236,6 +262,11 @@ class CustomIconPack(context: Context, packPackageName: String) :
         }
         return null
     }
+
+    companion object {
+        // Number of icons sent to the picker at once
+        private const val PAGE_SIZE = 500
+    }
 }
 
 private operator fun XmlPullParser.get(key: String): String? = this.getAttributeValue(null, key)
@@ -20,6 +20,7 @@ abstract class IconPack(
     protected val context: Context,
     val packPackageName: String,
 ) {
+    @Volatile
     private var waiter: Semaphore? = Semaphore(0)
     private lateinit var deferredLoad: Deferred<Unit>
 
@@ -53,7 +54,13 @@ abstract class IconPack(
     abstract fun getClock(entry: IconEntry): ClockMetadata?
     abstract fun getCalendars(): MutableSet<ComponentName>
     abstract fun getClocks(): MutableSet<ComponentName>
-    abstract fun getAllIcons(): Flow<List<IconPickerCategory>>
+
+    /**
+     * Streams the icons of the pack in pages. Every emission only contains the categories loaded
+     * since the previous one, a category split across pages is continued with
+     * [IconPickerCategory.isContinuation].
+     */
+    abstract fun getIconPages(): Flow<List<IconPickerCategory>>
 
     abstract fun reloadAppMap()
 
@@ -0,0 +1,143 @@
+/*
+ * This file is part of Neo Launcher
+ * Copyright (c) 2026   Neo Launcher Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.neoapps.neolauncher.iconpack
+
+import android.content.Context
+import android.util.AtomicFile
+import android.util.Log
+import java.io.DataOutputStream
+import java.io.File
+import java.io.IOException
+import java.nio.BufferUnderflowException
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+
+/**
+ * Index of the icons listed by an icon pack, grouped by category and with their resource ids
+ * already resolved. It is persisted per pack version, so the pack's xml only has to be parsed
+ * and resolved once, and the persisted file is memory-mapped to be read back.
+ */
+class IconPackIndex(val categories: List<Category>) {
+
+    /** A category of the pack, [title] is null for icons listed before the first category */
+    class Category(val title: String?, val names: List<String>, val resIds: IntArray)
+
+    val iconCount = categories.sumOf { it.names.size }
+
+    private fun write(file: AtomicFile, versionCode: Long, lastUpdateTime: Long) {
+        val stream = file.startWrite()
+        try {
+            DataOutputStream(stream.buffered()).run {
+                writeInt(FORMAT_VERSION)
+                writeLong(versionCode)
+                writeLong(lastUpdateTime)
+                writeInt(categories.size)
+                categories.forEach { category ->
+                    writeString(category.title ?: "")
+                    writeInt(category.names.size)
+                    category.names.forEachIndexed { i, name ->
+                        writeString(name)
+                        writeInt(category.resIds[i])
+                    }
+                }
+                flush()
+            }
+            file.finishWrite(stream)
+        } catch (e: IOException) {
+            Log.e(TAG, "Failed to write icon pack index", e)
+            file.failWrite(stream)
+        }
+    }
+
+    private fun DataOutputStream.writeString(value: String) {
+        val bytes = value.toByteArray(Charsets.UTF_8)
+        writeInt(bytes.size)
+        write(bytes)
+    }
+
+    companion object {
+        private const val TAG = "IconPackIndex"
+        private const val FORMAT_VERSION = 2
+        private const val INDEX_DIR = "icon_pack_index"
+
+        /**
+         * Returns the persisted index of [packPackageName], or creates it with [build] if the pack
+         * was never indexed or was updated since. The thumbnails of the pack are then cleared, as
+         * its icons may have changed.
+         */
+        fun loadOrBuild(
+            context: Context,
+            packPackageName: String,
+            build: () -> IconPackIndex,
+        ): IconPackIndex {
+            val packageInfo = context.packageManager.getPackageInfo(packPackageName, 0)
+            val versionCode = packageInfo.longVersionCode
+            val lastUpdateTime = packageInfo.lastUpdateTime
+            val file = AtomicFile(File(File(context.cacheDir, INDEX_DIR), packPackageName))
+
+            read(file, versionCode, lastUpdateTime)?.let { return it }
+            return build().also {
+                IconThumbnailCache.clear(packPackageName)
+                file.baseFile.parentFile?.mkdirs()
+                it.write(file, versionCode, lastUpdateTime)
+            }
+        }
+
+        private fun read(file: AtomicFile, versionCode: Long, lastUpdateTime: Long) =
+            try {
+                val buffer = file.openRead().use {
+                    it.channel.map(FileChannel.MapMode.READ_ONLY, 0, it.channel.size())
+                }
+                if (buffer.getInt() != FORMAT_VERSION
+                    || buffer.getLong() != versionCode
+                    || buffer.getLong() != lastUpdateTime
+                ) {
+                    null
+                } else {
+                    val categories = List(buffer.getCount()) {
+                        val title = buffer.getString().ifEmpty { null }
+                        val count = buffer.getCount()
+                        val names = ArrayList<String>(count)
+                        val resIds = IntArray(count)
+                        for (i in 0 until count) {
+                            names.add(buffer.getString())
+                            resIds[i] = buffer.getInt()
+                        }
+                        Category(title, names, resIds)
+                    }
+                    IconPackIndex(categories)
+                }
+            } catch (e: IOException) {
+                // Missing or corrupt index, it will be built again
+                null
+            } catch (e: BufferUnderflowException) {
+                // Truncated index, it will be built again
+                null
+            }
+
+        private fun ByteBuffer.getCount() =
+            getInt().also { if (it !in 0..remaining()) throw IOException("Invalid count $it") }
+
+        private fun ByteBuffer.getString(): String {
+            val bytes = ByteArray(getCount())
+            get(bytes)
+            return String(bytes, Charsets.UTF_8)
+        }
+    }
+}
@@ -25,6 +25,7 @@ import jakarta.inject.Inject
 class IconPackProvider @Inject constructor(
     @ApplicationContext private val context: Context,
 ) : SafeCloseable {
+    // Guarded by itself, icons are rendered on several threads at once
     private val iconPacks = mutableMapOf<String, IconPack?>()
     private val systemIcon = CustomAdaptiveIconDrawable.wrapNonNull(
         ContextCompat.getDrawable(context, R.drawable.ic_launcher_foreground)!!
@@ -41,11 +42,13 @@ class IconPackProvider @Inject constructor(
         if (packageName.isEmpty()) {
             return null
         }
-        return iconPacks.getOrPut(packageName) {
-            try {
-                CustomIconPack(context, packageName)
-            } catch (_: PackageManager.NameNotFoundException) {
-                null
+        return synchronized(iconPacks) {
+            iconPacks.getOrPut(packageName) {
+                try {
+                    CustomIconPack(context, packageName)
+                } catch (_: PackageManager.NameNotFoundException) {
+                    null
+                }
             }
         }
     }
@@ -4,12 +4,13 @@ import com.neoapps.neolauncher.data.models.IconPickerItem
 
 data class IconPickerCategory(
     val title: String,
-    val items: List<IconPickerItem>
+    val items: List<IconPickerItem>,
+    // Whether this continues the category with the same title from the previous page
+    val isContinuation: Boolean = false,
 )
 
 fun IconPickerCategory.filter(searchQuery: String): IconPickerCategory {
-    return IconPickerCategory(
-        title = title,
+    return copy(
         items = items
             .filter { it.label.lowercase().contains(searchQuery.lowercase()) }
     )
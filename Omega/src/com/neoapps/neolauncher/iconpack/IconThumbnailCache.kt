@@ -0,0 +1,64 @@
+/*
+ * This file is part of Neo Launcher
+ * Copyright (c) 2026   Neo Launcher Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.neoapps.neolauncher.iconpack
+
+import android.graphics.Bitmap
+import android.util.LruCache
+import com.neoapps.neolauncher.icons.drawableToBitmap
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
+
+/**
+ * Memory bounded cache of the icon picker thumbnails. Decoding is limited to a few threads, so
+ * that flinging through a large pack doesn't queue up hundreds of decodes at once.
+ */
+object IconThumbnailCache {
+
+    private const val DECODE_PARALLELISM = 2
+
+    private val decodeDispatcher = Dispatchers.IO.limitedParallelism(DECODE_PARALLELISM)
+
+    private val cache =
+        object : LruCache<IconEntry, Bitmap>((Runtime.getRuntime().maxMemory() / 16).toInt()) {
+            override fun sizeOf(key: IconEntry, value: Bitmap) = value.allocationByteCount
+        }
+
+    /** Removes the thumbnails of [packPackageName], after its icons changed */
+    fun clear(packPackageName: String) {
+        cache.snapshot().keys
+            .filter { it.packPackageName == packPackageName }
+            .forEach { cache.remove(it) }
+    }
+
+    /** Returns the thumbnail of [entry] if it was already decoded */
+    fun getCached(entry: IconEntry): Bitmap? = cache[entry]
+
+    /**
+     * Returns the thumbnail of [entry], decoding it if needed. Cancelling the caller before the
+     * decode started skips it entirely.
+     */
+    suspend fun load(iconPack: IconPack, entry: IconEntry): Bitmap? =
+        cache[entry]
+            ?: withContext(decodeDispatcher) {
+                cache[entry]
+                    ?: iconPack.getIcon(entry, 0)
+                        ?.let { drawableToBitmap(it) }
+                        ?.also { cache.put(entry, it) }
+            }
+}
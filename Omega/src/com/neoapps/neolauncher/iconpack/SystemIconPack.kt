@@ -69,7 +69,7 @@ class SystemIconPack(context: Context, pkg: String) : IconPack(context, pkg) {
     override fun loadInternal() {
     }
 
-    override fun getAllIcons(): Flow<List<IconPickerCategory>> = flow {
+    override fun getIconPages(): Flow<List<IconPickerCategory>> = flow {
         val items = appMap
             .map { (key, info) ->
                 IconPickerItem(
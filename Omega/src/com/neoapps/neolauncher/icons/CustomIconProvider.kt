@@ -36,7 +36,6 @@ import com.android.launcher3.graphics.ThemeManager
 import com.android.launcher3.icons.ClockDrawableWrapper
 import com.android.launcher3.icons.LauncherIconProvider
 import com.android.launcher3.icons.mono.ThemedIconDrawable
-import com.android.launcher3.util.ComponentKey
 import com.neoapps.neolauncher.data.IconOverrideRepository
 import com.neoapps.neolauncher.iconpack.IconEntry
 import com.neoapps.neolauncher.iconpack.IconPackProvider
@@ -61,6 +60,10 @@ class CustomIconProvider @JvmOverloads @Inject constructor(
         context.packageManager.getPackageVersionCode(LAWNICONS_PACKAGE_NAME) in 1..3
     private val iconPackProvider = IconPackProvider.INSTANCE.get(context)
     private val overrideRepo = IconOverrideRepository.INSTANCE.get(context)
+    private val launchComponents = LaunchComponentCache.INSTANCE.get(context)
+
+    @Volatile
+    private var themedColors: IntArray? = null
     private var themeMapName: String = ""
     private var mThemedIconMap: Map<String, ThemeData>? = null
     private val themedIconPack
@@ -68,8 +71,10 @@ class CustomIconProvider @JvmOverloads @Inject constructor(
             ?.apply { loadBlocking() }
     private val iconPack
         get() = iconPackProvider.getIconPack(iconPackPref.getValue())?.apply { loadBlocking() }
+    private val themeMapLock = Any()
     private val themeMap: Map<String, ThemeData>
-        get() {
+        // Icons are rendered on several threads at once
+        get() = synchronized(themeMapLock) {
             if (!themedIconsEnabled) {
                 mThemedIconMap = DISABLED_MAP
             }
@@ -83,12 +88,13 @@ class CustomIconProvider @JvmOverloads @Inject constructor(
                 themeMapName = themedIconPack!!.packPackageName
                 mThemedIconMap = getThemedIconMap()
             }
-            return mThemedIconMap!!
+            mThemedIconMap!!
         }
     private val supportsIconTheme get() = themeMap != DISABLED_MAP
 
     init {
         setIconThemeSupported(themeManager.isIconThemeEnabled && supportsIconTheme)
+        themeManager.addChangeListener { themedColors = null }
     }
 
     override fun getThemedIconMap(): MutableMap<String, ThemeData> {
@@ -146,16 +152,30 @@ class CustomIconProvider @JvmOverloads @Inject constructor(
     }
 
     fun setIconThemeSupported(isSupported: Boolean) {
-        mThemedIconMap = if (isSupported && isOlderLawnIconsInstalled) null else DISABLED_MAP
+        synchronized(themeMapLock) {
+            mThemedIconMap = if (isSupported && isOlderLawnIconsInstalled) null else DISABLED_MAP
+        }
     }
 
     override fun updateSystemState() {
         super.updateSystemState()
         mSystemState += ",${iconPackPref.getValue()},$themedIconsEnabled"
+        themedColors = null
     }
+
+    override fun getStateForApp(appInfo: ApplicationInfo?): String {
+        val state = super.getStateForApp(appInfo)
+        appInfo ?: return state
+        // Changing an override invalidates the cached icons of that package
+        val overrideState = overrideRepo.getOverrideState(
+            appInfo.packageName,
+            launchComponents.getUserForUid(appInfo.uid)
+        )
+        return if (overrideState != null) "$state,$overrideState" else state
+    }
+
     private fun resolveIconEntry(componentName: ComponentName, user: UserHandle): IconEntry? {
-        val componentKey = ComponentKey(componentName, user)
-        val overrideItem = overrideRepo.overridesMap[componentKey]
+        val overrideItem = overrideRepo.getOverride(componentName, user)
         if (overrideItem != null) {
             return overrideItem.toIconEntry()
         }
@@ -168,14 +188,18 @@ class CustomIconProvider @JvmOverloads @Inject constructor(
         return iconPack.getIcon(componentName)
     }
 
+    /** Returns the themed icon colors, shared until the theme or the system state changes */
+    private fun getThemedColors(): IntArray =
+        themedColors ?: ThemedIconDrawable.getThemedColors(context).also { themedColors = it }
+
     override fun getIcon(
         info: PackageItemInfo,
         appInfo: ApplicationInfo,
         iconDpi: Int,
     ): Drawable {
         val packageName = appInfo.packageName
-        val componentName = context.packageManager.getLaunchIntentForPackage(packageName)?.component
-        val user = UserHandle.getUserHandleForUid(appInfo.uid)
+        val user = launchComponents.getUserForUid(appInfo.uid)
+        val componentName = launchComponents.getLaunchComponent(packageName, user)
 
         var iconEntry: IconEntry? = null
         if (componentName != null) {
@@ -187,7 +211,7 @@ class CustomIconProvider @JvmOverloads @Inject constructor(
         val themeData = getThemeDataForPackage(packageName)
         var themedIcon: Drawable? = null
 
-        val themedColors = ThemedIconDrawable.getThemedColors(context)
+        val themedColors = getThemedColors()
 
         if (iconEntry != null) {
             val clock = iconPackProvider.getClockMetadata(iconEntry)
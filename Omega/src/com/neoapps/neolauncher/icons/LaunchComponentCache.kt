@@ -0,0 +1,107 @@
+/*
+ * This file is part of Neo Launcher
+ * Copyright (c) 2026   Neo Launcher Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.neoapps.neolauncher.icons
+
+import android.content.ComponentName
+import android.content.Context
+import android.content.pm.LauncherActivityInfo
+import android.content.pm.LauncherApps
+import android.os.UserHandle
+import android.util.SparseArray
+import androidx.annotation.WorkerThread
+import com.android.launcher3.dagger.ApplicationContext
+import com.android.launcher3.dagger.LauncherAppComponent
+import com.android.launcher3.dagger.LauncherAppSingleton
+import com.android.launcher3.util.DaggerSingletonObject
+import java.util.concurrent.ConcurrentHashMap
+import javax.inject.Inject
+
+/**
+ * Maps packages to the launcher activity used to resolve their icon, per user. It is filled from
+ * the activity lists the model already queries, so icon loading doesn't need a binder call per
+ * package.
+ */
+@LauncherAppSingleton
+class LaunchComponentCache @Inject constructor(
+    @ApplicationContext private val context: Context,
+) {
+    private val launcherApps = context.getSystemService(LauncherApps::class.java)!!
+
+    private val components = ConcurrentHashMap<UserHandle, MutableMap<String, ComponentName>>()
+
+    // Guarded by itself
+    private val users = SparseArray<UserHandle>()
+
+    /** Replaces the cached components of [user] with the full activity list of that user */
+    @WorkerThread
+    fun setActivities(user: UserHandle, activities: List<LauncherActivityInfo>) {
+        val userComponents = ConcurrentHashMap<String, ComponentName>(activities.size)
+        activities.forEach {
+            userComponents.putIfAbsent(it.componentName.packageName, it.componentName)
+        }
+        components[user] = userComponents
+    }
+
+    /** Updates the cached component of [packageName] after it was installed or changed */
+    @WorkerThread
+    fun setPackageActivities(
+        packageName: String,
+        user: UserHandle,
+        activities: List<LauncherActivityInfo>,
+    ) {
+        getUserComponents(user)[packageName] =
+            activities.firstOrNull()?.componentName ?: NO_COMPONENT
+    }
+
+    /**
+     * Returns the launcher activity of [packageName], or null if it has none. Only packages missing
+     * from the model's activity lists are queried from the system.
+     */
+    fun getLaunchComponent(packageName: String, user: UserHandle): ComponentName? {
+        val userComponents = getUserComponents(user)
+        val component = userComponents[packageName]
+            ?: (launcherApps.getActivityList(packageName, user).firstOrNull()?.componentName
+                ?: NO_COMPONENT)
+                .also { userComponents[packageName] = it }
+        return component.takeIf { it !== NO_COMPONENT }
+    }
+
+    /** Returns the user owning [uid], reusing the same handle for every app of that user */
+    fun getUserForUid(uid: Int): UserHandle {
+        val userId = uid / PER_USER_RANGE
+        synchronized(users) {
+            return users[userId]
+                ?: UserHandle.getUserHandleForUid(uid).also { users.put(userId, it) }
+        }
+    }
+
+    private fun getUserComponents(user: UserHandle) =
+        components.getOrPut(user) { ConcurrentHashMap() }
+
+    companion object {
+        /** Range of uids allocated to each user, see UserHandle.PER_USER_RANGE */
+        private const val PER_USER_RANGE = 100000
+
+        // Marks packages without a launcher activity, ConcurrentHashMap doesn't allow null values
+        private val NO_COMPONENT = ComponentName("", "")
+
+        @JvmField
+        val INSTANCE = DaggerSingletonObject(LauncherAppComponent::getLaunchComponentCache)
+    }
+}
@@ -79,8 +79,13 @@ class IdpIntPref(
         return selectDefaultValue(defaultGrid)
     }
 
-    fun get(defaultGrid: InvariantDeviceProfile.GridOption): Int {
-        val value = getValue()
+    fun get(defaultGrid: InvariantDeviceProfile.GridOption): Int =
+        resolve(getValue(), defaultGrid)
+
+    fun get(defaultGrid: InvariantDeviceProfile.GridOption, preferences: Preferences): Int =
+        resolve(getValue(preferences), defaultGrid)
+
+    private fun resolve(value: Int, defaultGrid: InvariantDeviceProfile.GridOption): Int {
         return if (value == -1 || value == 0) {
             selectDefaultValue(defaultGrid)
         } else {
@@ -407,6 +412,9 @@ abstract class PrefDelegate<T : Any>(
         }
     }
 
+    /** Returns the value in [preferences], a snapshot read once for several prefs */
+    fun getValue(preferences: Preferences): T = preferences[key] ?: defaultValue
+
     @Composable
     fun getState(): State<T> {
         return get().collectAsState(initial = defaultValue)
@@ -79,10 +79,12 @@ import kotlinx.coroutines.flow.MutableSharedFlow
 import kotlinx.coroutines.flow.asSharedFlow
 import kotlinx.coroutines.flow.distinctUntilChanged
 import kotlinx.coroutines.flow.drop
+import kotlinx.coroutines.flow.first
 import kotlinx.coroutines.flow.launchIn
 import kotlinx.coroutines.flow.onEach
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.plus
+import kotlinx.coroutines.runBlocking
 import org.koin.dsl.module
 import org.koin.java.KoinJavaComponent.getKoin
 import kotlin.math.roundToInt
@@ -239,7 +241,8 @@ class NeoPrefs private constructor(val context: Context) {
         maxValue = 1.5f,
         minValue = 0.1f,
         steps = 27,
-        specialOutputs = { "${(it * 100).roundToInt()}%" }
+        specialOutputs = { "${(it * 100).roundToInt()}%" },
+        onChange = { updateBlur.invoke() }
     )
 
     var profileWindowCornerRadius = FloatPref(
@@ -1438,6 +1441,12 @@ class NeoPrefs private constructor(val context: Context) {
 
     fun getOnChangeCallback() = onChangeCallback
 
+    /**
+     * Returns the current values of all the prefs, for reading several of them with a single
+     * blocking read, see [PrefDelegate.getValue].
+     */
+    fun getSnapshot(): Preferences = runBlocking(Dispatchers.IO) { dataStore.data.first() }
+
     private fun initializeIconShape(shape: IconShape) {
         CustomAdaptiveIconDrawable.sInitialized = true
         CustomAdaptiveIconDrawable.sMaskId = shape.getHashString()
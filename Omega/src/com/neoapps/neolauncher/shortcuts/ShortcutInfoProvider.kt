@@ -70,7 +70,7 @@ class ShortcutInfoProvider(context: Context) : CustomInfoProvider<WorkspaceItemI
             val drawable = iconCache.getFullResIcon(launcherActivityInfo as ActivityInfo)!!
             val bitmap = LauncherIcons.obtain(context)
                 .createBadgedIconBitmap(drawable)
-            val repository = IconOverrideRepository(context)
+            val repository = IconOverrideRepository.INSTANCE.get(context)
             val scope = MainScope()
             scope.launch {
                 val iconPicker = IconPickerItem(
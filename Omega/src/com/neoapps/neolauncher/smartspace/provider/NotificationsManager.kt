@@ -21,6 +21,7 @@ package com.neoapps.neolauncher.smartspace.provider
 import android.content.Context
 import android.content.pm.PackageManager
 import android.service.notification.StatusBarNotification
+import android.view.Choreographer
 import com.android.launcher3.notification.NotificationListener
 import com.android.launcher3.util.MainThreadInitializedObject
 import com.neoapps.neolauncher.util.checkPackagePermission
@@ -38,6 +39,13 @@ class NotificationsManager(@Suppress("UNUSED_PARAMETER") context: Context) {
     private val _notifications = MutableStateFlow(emptyList<StatusBarNotification>())
     val notifications: Flow<List<StatusBarNotification>> get() = _notifications
 
+    // Chatty apps can post many updates per frame, only publish the snapshot once per frame
+    private var changePending = false
+    private val frameCallback = Choreographer.FrameCallback {
+        changePending = false
+        _notifications.value = notificationsMap.values.toList()
+    }
+
     fun onNotificationPosted(sbn: StatusBarNotification) {
         notificationsMap[sbn.key] = sbn
         onChange()
@@ -64,7 +72,10 @@ class NotificationsManager(@Suppress("UNUSED_PARAMETER") context: Context) {
     }
 
     private fun onChange() {
-        _notifications.value = notificationsMap.values.toList()
+        if (!changePending) {
+            changePending = true
+            Choreographer.getInstance().postFrameCallback(frameCallback)
+        }
     }
 
     companion object {
@@ -310,9 +310,7 @@ fun getAllAppsComparator(context: Context, sortType: Int): Comparator<AppInfo> {
 
         Config.SORT_MOST_USED       -> {
             val repository = AppTrackerRepository.INSTANCE[context]
-            val appsCounter = repository.getAppsCount()
-            val mostUsedComparator = AppUsageComparator(appsCounter)
-            mostUsedComparator
+            AppUsageComparator(repository.getUsageScores())
         }
 
         Config.SORT_BY_COLOR        -> AppColorComparator(context)
@@ -22,54 +22,170 @@ import android.content.Context
 import android.content.pm.LauncherActivityInfo
 import android.content.pm.LauncherApps
 import android.graphics.Bitmap
-import android.os.Handler
+import android.os.UserHandle
 import androidx.compose.runtime.Composable
 import androidx.compose.runtime.LaunchedEffect
 import androidx.compose.runtime.State
+import androidx.compose.runtime.collectAsState
+import androidx.compose.runtime.derivedStateOf
+import androidx.compose.runtime.getValue
 import androidx.compose.runtime.mutableStateOf
 import androidx.compose.runtime.remember
+import androidx.compose.runtime.setValue
 import androidx.compose.ui.platform.LocalContext
 import com.android.launcher3.LauncherAppState
-import com.android.launcher3.Utilities
+import com.android.launcher3.dagger.ApplicationContext
+import com.android.launcher3.dagger.LauncherAppComponent
+import com.android.launcher3.dagger.LauncherAppSingleton
 import com.android.launcher3.icons.cache.CacheLookupFlag.Companion.DEFAULT_LOOKUP_FLAG
 import com.android.launcher3.model.data.AppInfo
 import com.android.launcher3.pm.UserCache
 import com.android.launcher3.util.ComponentKey
+import com.android.launcher3.util.DaggerSingletonObject
 import com.android.launcher3.util.Executors.MODEL_EXECUTOR
-import java.util.Locale
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.CoroutineName
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.MainScope
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.plus
+import kotlinx.coroutines.withContext
+import java.text.CollationKey
+import java.text.Collator
+import javax.inject.Inject
 
 @Composable
 fun appsState(
     comparator: Comparator<App> = appComparator
 ): State<List<App>> {
     val context = LocalContext.current
-    val appsState = remember { mutableStateOf(emptyList<App>()) }
-    LaunchedEffect(true) {
-        Utilities.postAsyncCallback(Handler(MODEL_EXECUTOR.looper)) {
-            val launcherApps = context.getSystemService(LauncherApps::class.java)
-            val appsList = UserCache.INSTANCE.get(context).userProfiles.asSequence()
-                    .flatMap { launcherApps!!.getActivityList(null, it) }
-                    .map { App(context, it) }
-                    .sortedWith(comparator)
-                    .toList()
-            appsState.value = appsList
+    val model = remember { AppListModel.INSTANCE.get(context) }
+    val apps by model.apps.collectAsState()
+    LaunchedEffect(model) { model.load() }
+    return remember(comparator) {
+        derivedStateOf {
+            // The model is already sorted with the default comparator
+            val loaded = apps ?: emptyList()
+            if (comparator === appComparator) loaded else loaded.sortedWith(comparator)
         }
     }
-    return appsState
 }
 
-class App(context: Context, private val info: LauncherActivityInfo) {
+/**
+ * All the apps of every profile, as listed by the settings pages. The list is built once in the
+ * background with low resolution icons and kept until a package changes, and every [App] loads
+ * its high resolution icon when it is first displayed.
+ */
+@LauncherAppSingleton
+class AppListModel @Inject constructor(
+    @ApplicationContext private val context: Context,
+) {
+    private val scope = MainScope() + CoroutineName("AppListModel")
+    private val iconDispatcher = Dispatchers.IO.limitedParallelism(ICON_PARALLELISM)
 
-    val label get() = info.label.toString()
-    val packageName get() = info.componentName.packageName
-    val icon: Bitmap
-    val key = ComponentKey(info.componentName, info.user)
+    private val _apps = MutableStateFlow<List<App>?>(null)
+    val apps: StateFlow<List<App>?> = _apps.asStateFlow()
+
+    private var loadJob: Job? = null
+    private var isStale = true
 
     init {
+        context.getSystemService(LauncherApps::class.java)!!.registerCallback(
+            object : LauncherApps.Callback() {
+                override fun onPackageRemoved(packageName: String, user: UserHandle) =
+                    invalidate()
+
+                override fun onPackageAdded(packageName: String, user: UserHandle) = invalidate()
+                override fun onPackageChanged(packageName: String, user: UserHandle) =
+                    invalidate()
+
+                override fun onPackagesAvailable(
+                    packageNames: Array<out String>,
+                    user: UserHandle,
+                    replacing: Boolean,
+                ) = invalidate()
+
+                override fun onPackagesUnavailable(
+                    packageNames: Array<out String>,
+                    user: UserHandle,
+                    replacing: Boolean,
+                ) = invalidate()
+            },
+            MODEL_EXECUTOR.handler
+        )
+    }
+
+    /** Loads the apps, unless they are already loaded and up to date */
+    fun load() {
+        scope.launch {
+            if (!isStale || loadJob?.isActive == true) return@launch
+            loadJob = launch {
+                // Packages changing while loading trigger another pass
+                while (isStale) {
+                    isStale = false
+                    _apps.value = withContext(Dispatchers.IO) { loadApps() }
+                }
+            }
+        }
+    }
+
+    private fun invalidate() {
+        scope.launch {
+            isStale = true
+            // Refresh in place if a page is showing the list
+            if (_apps.subscriptionCount.value > 0) load()
+        }
+    }
+
+    private fun loadApps(): List<App> {
+        val launcherApps = context.getSystemService(LauncherApps::class.java)!!
+        val collator = Collator.getInstance()
+        return UserCache.INSTANCE.get(context).userProfiles
+            .flatMap { launcherApps.getActivityList(null, it) }
+            .map { App(context, it, collator.getCollationKey(it.label.toString()), iconDispatcher) }
+            .sortedWith(appComparator)
+    }
+
+    companion object {
+        private const val ICON_PARALLELISM = 2
+
+        @JvmField
+        val INSTANCE = DaggerSingletonObject(LauncherAppComponent::getAppListModel)
+    }
+}
+
+class App internal constructor(
+    private val context: Context,
+    private val info: LauncherActivityInfo,
+    val sortKey: CollationKey,
+    private val iconDispatcher: CoroutineDispatcher,
+) {
+    val label: String = sortKey.sourceString
+    val packageName: String get() = info.componentName.packageName
+    val key = ComponentKey(info.componentName, info.user)
+
+    private var isLowRes = true
+    var icon: Bitmap by mutableStateOf(loadIcon(lowRes = true))
+        private set
+
+    /** Replaces the low resolution icon with the full one, called once the app is displayed */
+    suspend fun loadHighResIcon() {
+        if (!isLowRes) return
+        val highRes = withContext(iconDispatcher) { loadIcon(lowRes = false) }
+        isLowRes = false
+        icon = highRes
+    }
+
+    private fun loadIcon(lowRes: Boolean): Bitmap {
         val appInfo = AppInfo(context, info, info.user)
-        LauncherAppState.getInstance(context).iconCache.getTitleAndIcon(appInfo, DEFAULT_LOOKUP_FLAG)
-        icon = appInfo.bitmap.icon
+        LauncherAppState.getInstance(context).iconCache
+            .getTitleAndIcon(appInfo, DEFAULT_LOOKUP_FLAG.withUseLowRes(lowRes))
+        return appInfo.bitmap.icon
     }
 }
 
-val appComparator: Comparator<App> = comparing { it.label.lowercase(Locale.getDefault()) }
+val appComparator: Comparator<App> = comparing { it.sortKey }
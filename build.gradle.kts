@@ -36,7 +36,9 @@ addFrameworkJar("framework-16.jar")
 plugins {
     alias(libs.plugins.android.application)
     alias(libs.plugins.android.library) apply false
+    alias(libs.plugins.androidx.benchmark) apply false
     alias(libs.plugins.kotlin.compose)
+    alias(libs.plugins.kotlin.jvm) apply false
     alias(libs.plugins.kotlin.parcelize)
     alias(libs.plugins.kotlin.serialization)
     alias(libs.plugins.protobuf)
@@ -74,6 +74,10 @@ constructor(
 
     private val shadowGenerator: ShadowGenerator by lazy { ShadowGenerator(iconBitmapSize) }
 
+    // Reused across icons as it holds large scratch buffers. Factories are obtained per thread, so
+    // the normalizer and shadow generator locks are not contended when rendering in parallel.
+    private val normalizer: IconNormalizer by lazy { IconNormalizer(iconBitmapSize) }
+
     /** Default IconShape for when custom shape is not needed */
     val defaultIconShape: IconShape by
     lazy(LazyThreadSafetyMode.NONE) { getDefaultIconShape(iconBitmapSize) }
@@ -151,7 +155,7 @@ constructor(
 
         val scale: Float
         if (shrinkNonAdaptiveIcons && icon !is AdaptiveIconDrawable) {
-            scale = IconNormalizer(iconBitmapSize).getScale(icon)
+            scale = normalizer.getScale(icon)
             val wrapperBackgroundColor: Int = IconPreferences(context).getWrapperBackgroundColor(icon)
             val foreground = FixedScaleDrawable()
             foreground.apply {
@@ -160,7 +164,7 @@ constructor(
             }
             val wrapper =
                 CustomAdaptiveIconDrawable(wrapperBackgroundColor.toDrawable(), foreground)
-            outScale[0] = IconNormalizer(iconBitmapSize).getScale(wrapper)
+            outScale[0] = normalizer.getScale(wrapper)
             return wrapper
         } else {
             if (icon is AdaptiveIconDrawable) {
@@ -171,7 +175,7 @@ constructor(
                 outScale[0] = ICON_VISIBLE_AREA_FACTOR
                 return wrapToAdaptiveIcon(icon)
             } else {
-                scale = IconNormalizer(iconBitmapSize).getScale(icon)
+                scale = normalizer.getScale(icon)
                 outScale[0] = scale
                 return icon
             }
@@ -331,7 +335,7 @@ constructor(
         if(icon is AdaptiveIconDrawable) return icon
         else{
             val iconBackground = IconPreferences(context).getWrapperBackgroundColor(icon)
-            val scale = options?.iconScale ?: IconNormalizer(iconBitmapSize).getScale(icon)
+            val scale = options?.iconScale ?: normalizer.getScale(icon)
             val dr = CustomAdaptiveIconDrawable(
                 iconBackground.toDrawable(),
                 createScaledDrawable(icon, scale * LEGACY_ICON_SCALE))
@@ -26,8 +26,6 @@ import android.database.Cursor
 import android.database.sqlite.SQLiteReadOnlyDatabaseException
 import android.graphics.Bitmap
 import android.graphics.Bitmap.Config.HARDWARE
-import android.graphics.BitmapFactory
-import android.graphics.BitmapFactory.Options
 import android.graphics.drawable.Drawable
 import android.os.Handler
 import android.os.Looper
@@ -36,6 +34,7 @@ import android.os.UserHandle
 import android.text.TextUtils
 import android.util.Log
 import android.util.SparseArray
+import androidx.annotation.AnyThread
 import androidx.annotation.VisibleForTesting
 import androidx.annotation.WorkerThread
 import androidx.core.graphics.drawable.toDrawable
@@ -49,6 +48,7 @@ import com.android.launcher3.icons.IconProvider
 import com.android.launcher3.icons.SourceHint
 import com.android.launcher3.icons.ThemedBitmap
 import com.android.launcher3.icons.cache.CacheLookupFlag.Companion.DEFAULT_LOOKUP_FLAG
+import com.android.launcher3.icons.mono.MonoThemedBitmap
 import com.android.launcher3.util.ComponentKey
 import com.android.launcher3.util.FlagOp
 import com.android.launcher3.util.SQLiteCacheHelper
@@ -90,6 +90,7 @@ constructor(
     private var defaultIcon: BitmapInfo? = null
     private val userFlagOpMap = SparseArray<FlagOp>()
     private val userFormatString = SparseArray<String?>()
+    private var activeUpdateHandler: IconCacheUpdateHandler? = null
     private val appInfoCachingLogic =
         AppInfoCachingLogic(
             pm = context.packageManager,
@@ -158,11 +159,15 @@ constructor(
             arrayOf("$packageName/%", getSerialNumberForUser(user).toString()),
         )
     }
+    @Synchronized
     fun getUpdateHandler(): IconCacheUpdateHandler {
         updateSystemState()
-        // Remove all active icon update tasks.
+        // Remove all active icon update tasks, including the ones still rendering.
         workerHandler.removeCallbacksAndMessages(iconUpdateToken)
-        return IconCacheUpdateHandler(this, iconDb, workerHandler)
+        activeUpdateHandler?.cancel()
+        return IconCacheUpdateHandler(this, iconDb, workerHandler).also {
+            activeUpdateHandler = it
+        }
     }
     /**
      * Refreshes the system state definition used to check the validity of the cache. It
@@ -201,35 +206,79 @@ constructor(
      */
     @Synchronized
     fun <T : Any> addIconToDBAndMemCache(obj: T, cachingLogic: CachingLogic<T>, userSerial: Long) {
+        val icon = renderIcon(obj, cachingLogic) ?: return
+        addRenderedIconsToDBAndMemCache(listOf(icon), userSerial)
+    }
+
+    /**
+     * Loads the icon and label of [obj] to be added using [addRenderedIconsToDBAndMemCache].
+     * Unlike [addIconToDBAndMemCache], this doesn't access the cache and can be called from any
+     * thread. Returns null if the icon fails to load.
+     */
+    @AnyThread
+    fun <T : Any> renderIcon(obj: T, cachingLogic: CachingLogic<T>): RenderedIcon? {
         val user = cachingLogic.getUser(obj)
         val componentName = cachingLogic.getComponent(obj)
-        val key = ComponentKey(componentName, user)
         val bitmapInfo = cachingLogic.loadIcon(context, this, obj)
         // Icon can't be loaded from cachingLogic, which implies alternative icon was loaded
         // (e.g. fallback icon, default icon). So we drop here since there's no point in caching
         // an empty entry.
         if (bitmapInfo.isLowRes || isDefaultIcon(bitmapInfo, user)) {
-            return
+            return null
         }
         val entryTitle =
             cachingLogic.getLabel(obj).let {
                 if (it.isNullOrEmpty()) componentName.packageName else it
             }
-        // Only add an entry in memory, if there was already something previously
-        val existingEntry = cache[key]
-        if (existingEntry != null) {
-            val entry = CacheEntry()
-            entry.bitmap =
-                bitmapInfo.downSampleToLookupFlag(existingEntry.bitmap.matchingLookupFlag)
-            entry.title = entryTitle
-            entry.contentDescription = getUserBadgedLabel(entryTitle, user)
-            cache[key] = entry
-        }
-        val freshnessId = cachingLogic.getFreshnessIdentifier(obj, iconProvider)
-        if (freshnessId != null) {
-            addOrUpdateCacheDbEntry(bitmapInfo, entryTitle, componentName, userSerial, freshnessId)
+        return RenderedIcon(
+            ComponentKey(componentName, user),
+            bitmapInfo,
+            entryTitle,
+            cachingLogic.getFreshnessIdentifier(obj, iconProvider),
+        )
+    }
+
+    /**
+     * Adds/updates the entries returned by [renderIcon] into the in-memory cache, and into the DB
+     * using a single transaction.
+     */
+    @Synchronized
+    fun addRenderedIconsToDBAndMemCache(icons: List<RenderedIcon>, userSerial: Long) {
+        val rows = ArrayList<ContentValues>(icons.size)
+        for (icon in icons) {
+            // Only add an entry in memory, if there was already something previously
+            val existingEntry = cache[icon.key]
+            if (existingEntry != null) {
+                val entry = CacheEntry()
+                entry.bitmap =
+                    icon.bitmapInfo.downSampleToLookupFlag(existingEntry.bitmap.matchingLookupFlag)
+                entry.title = icon.title
+                entry.contentDescription = getUserBadgedLabel(icon.title, icon.key.user)
+                cache[icon.key] = entry
+            }
+            if (icon.freshnessId != null) {
+                rows.add(
+                    createCacheDbEntry(
+                        icon.bitmapInfo,
+                        icon.title,
+                        icon.key.componentName,
+                        userSerial,
+                        icon.freshnessId,
+                    )
+                )
+            }
         }
+        iconDb.insertOrReplace(rows)
     }
+
+    /** An icon loaded by [renderIcon], which is not yet part of the cache */
+    class RenderedIcon(
+        val key: ComponentKey,
+        val bitmapInfo: BitmapInfo,
+        val title: CharSequence,
+        val freshnessId: String?,
+    )
+
     @Synchronized
     fun getDefaultIcon(user: UserHandle): BitmapInfo {
         if (defaultIcon == null) {
@@ -426,12 +475,14 @@ constructor(
                     // package updates.
                     appInfoCachingLogic.getFreshnessIdentifier(appInfo, iconProvider)?.let {
                             freshnessId ->
-                        addOrUpdateCacheDbEntry(
-                            iconInfo,
-                            entry.title,
-                            cacheKey.componentName,
-                            getSerialNumberForUser(user),
-                            freshnessId,
+                        iconDb.insertOrReplace(
+                            createCacheDbEntry(
+                                iconInfo,
+                                entry.title,
+                                cacheKey.componentName,
+                                getSerialNumberForUser(user),
+                                freshnessId,
+                            )
                         )
                     }
                 } catch (e: NameNotFoundException) {
@@ -500,12 +551,7 @@ constructor(
                 val data: ByteArray = c.getBlob(INDEX_ICON) ?: return false
                 entry.bitmap =
                     BitmapInfo.of(
-                        BitmapFactory.decodeByteArray(
-                            data,
-                            0,
-                            data.size,
-                            Options().apply { inPreferredConfig = HARDWARE }
-                        )!!,
+                        ICON_BLOB_FORMAT.decodeBitmap(data, HARDWARE)!!,
                         entry.bitmap.color,
                         iconFactory.use { it.defaultIconShape }
                     )
@@ -517,7 +563,14 @@ constructor(
                 entry.bitmap = entry.bitmap.copy(themedBitmap = ThemedBitmap.NOT_SUPPORTED)
                 iconFactory.use { factory ->
                     val themeController = factory.themeController
-                    val monoIconData = c.getBlob(INDEX_MONO_ICON)
+                    val monoIconData =
+                        c.getBlob(INDEX_MONO_ICON)?.let {
+                            val icon = entry.bitmap.icon
+                            ICON_BLOB_FORMAT.decodeBytes(
+                                it,
+                                icon.width * icon.height + MonoThemedBitmap.DOUBLE_BYTE_SIZE,
+                            )
+                        }
                     if (themeController != null && monoIconData != null) {
                         entry.bitmap =
                             entry.bitmap.copy(
@@ -545,17 +598,20 @@ constructor(
         iconProvider.notifyIconLoaded(entry.bitmap, cacheKey, logic)
         return true
     }
-    private fun addOrUpdateCacheDbEntry(
+    private fun createCacheDbEntry(
         bitmapInfo: BitmapInfo,
         label: CharSequence,
         key: ComponentName,
         userSerial: Long,
         freshnessId: String,
-    ) {
+    ): ContentValues {
         val values = ContentValues()
         if (bitmapInfo.canPersist()) {
-            values.put(COLUMN_ICON, GraphicsUtils.flattenBitmap(bitmapInfo.icon))
-            values.put(COLUMN_MONO_ICON, bitmapInfo.themedBitmap?.serialize())
+            values.put(COLUMN_ICON, ICON_BLOB_FORMAT.encodeBitmap(bitmapInfo.icon))
+            values.put(
+                COLUMN_MONO_ICON,
+                bitmapInfo.themedBitmap?.serialize()?.let(ICON_BLOB_FORMAT::encodeBytes),
+            )
         } else {
             values.put(COLUMN_ICON, null as ByteArray?)
             values.put(COLUMN_MONO_ICON, null as ByteArray?)
@@ -566,7 +622,7 @@ constructor(
         values.put(COLUMN_COMPONENT, key.flattenToString())
         values.put(COLUMN_USER, userSerial)
         values.put(COLUMN_FRESHNESS_ID, freshnessId)
-        iconDb.insertOrReplace(values)
+        return values
     }
     private fun assertWorkerThread() {
         check(Looper.myLooper() == bgLooper) {
@@ -607,10 +663,15 @@ constructor(
         const val EMPTY_CLASS_NAME: String = "."
         fun getPackageKey(packageName: String, user: UserHandle) =
             ComponentKey(ComponentName(packageName, packageName + EMPTY_CLASS_NAME), user)
+        /** Encoding of the persisted icon blobs, changing it resets the cache */
+        @JvmField val ICON_BLOB_FORMAT = IconBlobFormat.DEFAULT
+
         // Ensures themed bitmaps in the icon cache are invalidated
         // LINT.IfChange(cache_release_version)
         @JvmField
-        val RELEASE_VERSION = if (Flags.enableLauncherIconShapes()) 14 else 12
+        val RELEASE_VERSION =
+            (if (Flags.enableLauncherIconShapes()) 14 else 12) +
+                (ICON_BLOB_FORMAT.versionCode shl 8)
 
         // LINT.ThenChange()
         @JvmField val TABLE_NAME = "icons"
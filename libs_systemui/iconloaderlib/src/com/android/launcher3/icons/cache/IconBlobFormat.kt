@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.icons.cache
+
+import android.graphics.Bitmap
+import android.graphics.Bitmap.CompressFormat
+import android.graphics.Bitmap.Config.ARGB_8888
+import android.graphics.BitmapFactory
+import android.graphics.BitmapFactory.Options
+import android.util.Log
+import com.android.launcher3.icons.GraphicsUtils
+import java.io.ByteArrayOutputStream
+import java.nio.ByteBuffer
+import java.util.zip.DataFormatException
+import java.util.zip.Deflater
+import java.util.zip.Inflater
+
+/**
+ * Encoding used for the icon blobs persisted in the icon cache database. The format is part of the
+ * database version, so changing it drops the existing entries which are then lazily re-added with
+ * the new encoding.
+ */
+enum class IconBlobFormat(val versionCode: Int) {
+
+    /** Lossless PNG, the format used by older versions of the cache */
+    PNG(0) {
+        override fun encodeBitmap(bitmap: Bitmap) = GraphicsUtils.flattenBitmap(bitmap)
+    },
+
+    /** Lossless WebP, smaller than PNG and decoded by the same [BitmapFactory] path */
+    WEBP_LOSSLESS(1) {
+        override fun encodeBitmap(bitmap: Bitmap) =
+            compress(bitmap, CompressFormat.WEBP_LOSSLESS)
+    },
+
+    /**
+     * Premultiplied ARGB pixels compressed with a fast deflate pass. Decoding skips the image
+     * codecs entirely and only needs an inflate and a pixel copy.
+     */
+    RAW_DEFLATE(3) {
+        override fun encodeBitmap(bitmap: Bitmap): ByteArray {
+            // The pixels are stored with 4 bytes each, convert any other config
+            val source = if (bitmap.config == ARGB_8888) bitmap else bitmap.copy(ARGB_8888, false)
+            val pixels = ByteBuffer.allocate(GraphicsUtils.getExpectedBitmapSize(source))
+            source.copyPixelsToBuffer(pixels)
+            if (source !== bitmap) source.recycle()
+
+            val header =
+                ByteBuffer.allocate(RAW_HEADER_SIZE)
+                    .put(RAW_MAGIC)
+                    .put(RAW_VERSION)
+                    .putInt(bitmap.width)
+                    .putInt(bitmap.height)
+                    .array()
+            return header + deflate(pixels.array())
+        }
+
+        override fun decodeBitmap(data: ByteArray, config: Bitmap.Config): Bitmap? {
+            if (!hasRawMagic(data)) return super.decodeBitmap(data, config)
+            if (data.size < RAW_HEADER_SIZE || data[RAW_MAGIC.size] != RAW_VERSION) return null
+            val header = ByteBuffer.wrap(data, RAW_MAGIC.size + 1, 8)
+            val width = header.getInt()
+            val height = header.getInt()
+            if (width <= 0 || height <= 0 || width.toLong() * height * 4 > Int.MAX_VALUE) {
+                return null
+            }
+            val pixels = ByteArray(width * height * 4)
+            if (inflate(data, RAW_HEADER_SIZE, pixels) != pixels.size) return null
+
+            val bitmap = Bitmap.createBitmap(width, height, ARGB_8888)
+            bitmap.copyPixelsFromBuffer(ByteBuffer.wrap(pixels))
+            if (config == ARGB_8888) return bitmap
+            return bitmap.copy(config, false).also { bitmap.recycle() }
+        }
+
+        override fun encodeBytes(data: ByteArray) = deflate(data)
+
+        override fun decodeBytes(data: ByteArray, maxSize: Int): ByteArray? {
+            val out = ByteArray(maxSize)
+            val size = inflate(data, 0, out) ?: return null
+            return if (size == maxSize) out else out.copyOf(size)
+        }
+    };
+
+    /** Serializes the icon bitmap for [BaseIconCache.COLUMN_ICON] */
+    abstract fun encodeBitmap(bitmap: Bitmap): ByteArray
+
+    /** Parses a blob created by [encodeBitmap], returns null if the data is corrupt */
+    open fun decodeBitmap(data: ByteArray, config: Bitmap.Config): Bitmap? =
+        BitmapFactory.decodeByteArray(data, 0, data.size, Options().apply {
+            inPreferredConfig = config
+        })
+
+    /** Wraps an already serialized pixel buffer, like [BaseIconCache.COLUMN_MONO_ICON] */
+    open fun encodeBytes(data: ByteArray): ByteArray = data
+
+    /**
+     * Reverses [encodeBytes], returns null if the data is corrupt, truncated or larger than
+     * [maxSize]. The returned array always has the original size.
+     */
+    open fun decodeBytes(data: ByteArray, maxSize: Int): ByteArray? =
+        data.takeIf { it.size <= maxSize }
+
+    companion object {
+        private const val TAG = "IconBlobFormat"
+
+        // Like the PNG signature, the high first byte keeps it apart from the other image formats
+        private val RAW_MAGIC = "\u0089RAW".toByteArray(Charsets.ISO_8859_1)
+        private const val RAW_VERSION: Byte = 1
+        // Magic, version, width and height
+        private val RAW_HEADER_SIZE = RAW_MAGIC.size + 1 + 4 + 4
+
+        /** Format used for new cache entries, keep [BaseIconCache.RELEASE_VERSION] in sync */
+        @JvmField val DEFAULT = RAW_DEFLATE
+
+        private fun hasRawMagic(data: ByteArray) =
+            data.size >= RAW_MAGIC.size && RAW_MAGIC.indices.all { data[it] == RAW_MAGIC[it] }
+
+        private fun compress(bitmap: Bitmap, format: CompressFormat): ByteArray {
+            val out = ByteArrayOutputStream(GraphicsUtils.getExpectedBitmapSize(bitmap))
+            bitmap.compress(format, 100, out)
+            return out.toByteArray()
+        }
+
+        private fun deflate(data: ByteArray): ByteArray {
+            val deflater = Deflater(Deflater.BEST_SPEED)
+            try {
+                deflater.setInput(data)
+                deflater.finish()
+                val out = ByteArrayOutputStream(data.size / 2)
+                val buffer = ByteArray(8192)
+                while (!deflater.finished()) {
+                    out.write(buffer, 0, deflater.deflate(buffer))
+                }
+                return out.toByteArray()
+            } finally {
+                deflater.end()
+            }
+        }
+
+        /**
+         * Inflates [data] from [offset] into [out], returns the number of bytes written or null if
+         * the stream is corrupt, truncated or doesn't fit in [out].
+         */
+        private fun inflate(data: ByteArray, offset: Int, out: ByteArray): Int? {
+            val inflater = Inflater()
+            try {
+                inflater.setInput(data, offset, data.size - offset)
+                var size = 0
+                while (!inflater.finished()) {
+                    if (size == out.size) {
+                        // Any further output means the data is larger than expected
+                        return if (inflater.inflate(ByteArray(1)) > 0 || !inflater.finished())
+                            null
+                        else size
+                    }
+                    val read = inflater.inflate(out, size, out.size - size)
+                    if (read == 0 && !inflater.finished()) return null
+                    size += read
+                }
+                return size
+            } catch (e: DataFormatException) {
+                Log.e(TAG, "Error inflating icon blob", e)
+                return null
+            } finally {
+                inflater.end()
+            }
+        }
+    }
+}
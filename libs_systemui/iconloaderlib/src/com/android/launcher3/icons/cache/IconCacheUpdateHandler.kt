@@ -18,6 +18,7 @@ import android.content.ComponentName
 import android.content.pm.ApplicationInfo
 import android.database.sqlite.SQLiteException
 import android.os.Handler
+import android.os.Process
 import android.os.SystemClock
 import android.os.UserHandle
 import android.util.ArrayMap
@@ -25,6 +26,11 @@ import android.util.Log
 import com.android.launcher3.util.ComponentKey
 import com.android.launcher3.util.SQLiteCacheHelper
 import java.util.ArrayDeque
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionException
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
 /** Utility class to handle updating the Icon cache */
 class IconCacheUpdateHandler(
     private val iconCache: BaseIconCache,
@@ -39,6 +45,8 @@ class IconCacheUpdateHandler(
     // mItemsToDelete. In follow up passes, we  go through the items in mItemsToDelete, and if the
     // item is valid, removes it from the list, or leave it there.
     private var firstPass = true
+
+    @Volatile private var cancelled = false
     /** Sets a package to ignore for processing */
     fun addPackagesToIgnore(userHandle: UserHandle, packageName: String) {
         packagesToIgnore.getOrPut(userHandle) { HashSet() }.add(packageName)
@@ -217,10 +225,19 @@ class IconCacheUpdateHandler(
         val user: UserHandle,
         val freshnessId: String,
     )
+    /**
+     * Stops scheduling any further icon updates. Icons which are already being rendered are
+     * dropped instead of being committed.
+     */
+    internal fun cancel() {
+        cancelled = true
+    }
+
     /**
      * A runnable that updates invalid icons and adds missing icons in the DB for the provided
-     * LauncherActivityInfo list. Items are updated/added one at a time, so that the worker thread
-     * doesn't get blocked.
+     * LauncherActivityInfo list. Items are processed in batches: the icons of a batch are rendered
+     * in parallel on [RENDER_EXECUTOR] and then committed on the worker thread in a single DB
+     * transaction, so that the worker thread doesn't get blocked.
      */
     private inner class SerializedIconUpdateTask<T : Any>(
         private val userSerial: Long,
@@ -230,25 +247,81 @@ class IconCacheUpdateHandler(
         private val cachingLogic: CachingLogic<T>,
         private val onUpdateCallback: OnUpdateCallback,
     ) : Runnable {
-        private val updatedPackages = HashSet<String>()
-        override fun run() {
-            if (appsToUpdate.isNotEmpty()) {
-                val app = appsToUpdate.removeLast()
+        // Number of components left to update for each package
+        private val pendingUpdates = HashMap<String, Int>()
+
+        init {
+            for (app in appsToUpdate) {
                 val pkg = cachingLogic.getComponent(app).packageName
-                iconCache.addIconToDBAndMemCache(app, cachingLogic, userSerial)
-                updatedPackages.add(pkg)
-                if (appsToUpdate.isEmpty() && updatedPackages.isNotEmpty()) {
-                    // No more app to update. Notify callback.
+                pendingUpdates[pkg] = (pendingUpdates[pkg] ?: 0) + 1
+            }
+        }
+
+        override fun run() {
+            if (cancelled) return
+            // Updates are processed first, so that the callback is notified as soon as possible
+            val isUpdate = appsToUpdate.isNotEmpty()
+            val source = if (isUpdate) appsToUpdate else appsToAdd
+            val batch = ArrayList<T>(RENDER_BATCH_SIZE)
+            while (batch.size < RENDER_BATCH_SIZE && source.isNotEmpty()) {
+                batch.add(source.removeLast())
+            }
+            if (batch.isEmpty()) return
+
+            val renders =
+                batch.map { app ->
+                    CompletableFuture.supplyAsync(
+                        { iconCache.renderIcon(app, cachingLogic) },
+                        RENDER_EXECUTOR,
+                    )
+                }
+            CompletableFuture.allOf(*renders.toTypedArray()).whenComplete { _, _ ->
+                workerHandler.postAtTime(
+                    { commit(batch, renders, isUpdate) },
+                    iconCache.iconUpdateToken,
+                    SystemClock.uptimeMillis(),
+                )
+            }
+        }
+
+        private fun commit(
+            batch: List<T>,
+            renders: List<CompletableFuture<BaseIconCache.RenderedIcon?>>,
+            isUpdate: Boolean,
+        ) {
+            if (cancelled) return
+            val icons =
+                renders.mapNotNull { render ->
+                    try {
+                        render.join()
+                    } catch (e: CompletionException) {
+                        Log.e(TAG, "Failed to render icon", e.cause)
+                        null
+                    }
+                }
+            iconCache.addRenderedIconsToDBAndMemCache(icons, userSerial)
+
+            if (isUpdate) {
+                // Notify the packages for which all the components are now updated
+                val updatedPackages = HashSet<String>()
+                for (app in batch) {
+                    val pkg = cachingLogic.getComponent(app).packageName
+                    val remaining = (pendingUpdates[pkg] ?: 1) - 1
+                    if (remaining == 0) {
+                        pendingUpdates.remove(pkg)
+                        updatedPackages.add(pkg)
+                    } else {
+                        pendingUpdates[pkg] = remaining
+                    }
+                }
+                if (updatedPackages.isNotEmpty()) {
                     onUpdateCallback.onPackageIconsUpdated(updatedPackages, userHandle)
                 }
-                // Let it run one more time.
-                scheduleNext()
-            } else if (appsToAdd.isNotEmpty()) {
-                iconCache.addIconToDBAndMemCache(appsToAdd.removeLast(), cachingLogic, userSerial)
-                // Let it run one more time.
-                scheduleNext()
             }
+            // Let it run one more time.
+            scheduleNext()
         }
+
         fun scheduleNext() {
             workerHandler.postAtTime(
                 this,
@@ -257,10 +330,34 @@ class IconCacheUpdateHandler(
             )
         }
     }
+
     fun interface OnUpdateCallback {
         fun onPackageIconsUpdated(updatedPackages: HashSet<String>, user: UserHandle)
     }
     companion object {
         private const val TAG = "IconCacheUpdateHandler"
+
+        // Number of icons rendered in parallel and committed in a single transaction
+        private const val RENDER_BATCH_SIZE = 16
+        private val RENDER_THREADS = (Runtime.getRuntime().availableProcessors() - 1).coerceIn(1, 4)
+
+        /** Pool used to render icons, the threads are only kept alive while there are updates */
+        private val RENDER_EXECUTOR =
+            ThreadPoolExecutor(
+                    RENDER_THREADS,
+                    RENDER_THREADS,
+                    1,
+                    TimeUnit.SECONDS,
+                    LinkedBlockingQueue(),
+                ) { r ->
+                    Thread(
+                        {
+                            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND)
+                            r.run()
+                        },
+                        "icon-render",
+                    )
+                }
+                .apply { allowCoreThreadTimeOut(true) }
     }
 }
\ No newline at end of file
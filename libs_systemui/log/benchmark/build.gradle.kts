@@ -0,0 +1,41 @@
+/*
+ * Microbenchmarks of the log library, run on a device with:
+ *
+ *   ./gradlew :log-benchmark:connectedReleaseAndroidTest
+ *
+ * The results are printed to the test output and written as JSON to the device's
+ * additional test output directory.
+ */
+plugins {
+    alias(libs.plugins.android.library)
+    alias(libs.plugins.androidx.benchmark)
+}
+
+kotlin {
+    jvmToolchain(21)
+}
+
+android {
+    compileSdk = 37
+    namespace = "com.android.systemui.log.benchmark"
+
+    defaultConfig {
+        minSdk = 30
+        testInstrumentationRunner = "androidx.benchmark.junit4.AndroidBenchmarkRunner"
+    }
+
+    // Benchmarks measure the optimized code
+    testBuildType = "release"
+
+    sourceSets {
+        getByName("androidTest") {
+            kotlin.directories.add("src")
+        }
+    }
+}
+
+dependencies {
+    androidTestImplementation(project(":log"))
+    androidTestImplementation(libs.benchmark.junit4)
+    androidTestImplementation(libs.test.junit)
+}
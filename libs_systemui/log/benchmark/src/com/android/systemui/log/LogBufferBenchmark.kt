@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.systemui.log
+
+import androidx.benchmark.junit4.BenchmarkRule
+import androidx.benchmark.junit4.measureRepeated
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.LargeTest
+import com.android.systemui.log.core.LogLevel
+import com.android.systemui.log.core.MessagePrinter
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import org.junit.After
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Throughput of [LogBuffer.obtain] and [LogBuffer.commit], from a single producer and from
+ * [PRODUCER_COUNT] producers contending for the same buffer. Every measured iteration logs
+ * [MESSAGES_PER_PRODUCER] messages from each producer, so the reported time divided by the number
+ * of messages of an iteration is the cost of logging one message.
+ */
+@LargeTest
+@RunWith(AndroidJUnit4::class)
+class LogBufferBenchmark {
+
+    @get:Rule val benchmarkRule = BenchmarkRule()
+
+    private val echoTracker =
+        object : LogcatEchoTracker {
+            override fun isBufferLoggable(bufferName: String, level: LogLevel) = false
+
+            override fun isTagLoggable(tagName: String, level: LogLevel) = false
+        }
+
+    private val buffer = LogBuffer("BenchmarkBuffer", MAX_SIZE, echoTracker, systrace = false)
+
+    private val producers: ExecutorService = Executors.newFixedThreadPool(PRODUCER_COUNT)
+
+    @After
+    fun tearDown() {
+        producers.shutdownNow()
+    }
+
+    @Test
+    fun obtainCommit_singleProducer() {
+        benchmarkRule.measureRepeated { logMessages(0) }
+    }
+
+    @Test
+    fun obtainCommit_contended() {
+        val tasks = List(PRODUCER_COUNT) { producer -> Callable { logMessages(producer) } }
+        benchmarkRule.measureRepeated {
+            // The producers start together and the iteration ends when all of them are done
+            producers.invokeAll(tasks).forEach { it.get() }
+        }
+    }
+
+    private fun logMessages(producer: Int) {
+        repeat(MESSAGES_PER_PRODUCER) {
+            val message = buffer.obtain(TAG, LogLevel.DEBUG, PRINTER, null)
+            message.int1 = producer
+            message.int2 = it
+            buffer.commit(message)
+        }
+    }
+
+    companion object {
+        private const val TAG = "LogBufferBenchmark"
+        private const val MAX_SIZE = 1000
+        private const val PRODUCER_COUNT = 8
+        private const val MESSAGES_PER_PRODUCER = 1000
+        private val PRINTER: MessagePrinter = { "line $int1 $int2" }
+    }
+}
@@ -18,7 +18,6 @@ package com.android.systemui.log
 
 import android.os.Trace
 import android.util.Log
-import com.android.systemui.common.buffer.RingBuffer
 import com.android.systemui.log.core.LogLevel
 import com.android.systemui.log.core.LogMessage
 import com.android.systemui.log.core.MessageBuffer
@@ -26,7 +25,11 @@ import com.android.systemui.log.core.MessageInitializer
 import com.android.systemui.log.core.MessagePrinter
 import com.google.errorprone.annotations.CompileTimeConstant
 import java.io.PrintWriter
+import java.io.StringWriter
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicLongArray
 import kotlin.math.max
+import kotlin.math.min
 
 /**
  * A simple ring buffer of recyclable log messages
@@ -43,6 +46,11 @@ import kotlin.math.max
  *
  * ...where `bufferName` is the (case-sensitive) [name] passed to the constructor.
  *
+ * Logging never takes a lock: each message claims the next sequence number of the ring and is only
+ * visible to [dump] once it was committed. A producer that is still writing its message a full lap
+ * later loses its slot to the producer lapping it, so that a message which is never committed only
+ * drops itself.
+ *
  * By default, only messages of WARN level or higher are echoed to logcat, but this can be adjusted
  * locally (usually for debugging purposes).
  *
@@ -76,8 +84,21 @@ constructor(
     private val logcatEchoTracker: LogcatEchoTracker,
     private val systrace: Boolean = true,
 ) : MessageBuffer {
-    private val buffer = RingBuffer(maxSize) { LogMessageImpl.create() }
+    // Created on first use, and again when a slot is taken over from a producer a lap behind
+    private val messages = arrayOfNulls<LogMessageImpl>(maxSize)
+
+    /**
+     * State of each slot: `2 * sequence` once the message of that sequence was committed, or
+     * `2 * sequence + 1` while its producer is still writing it.
+     */
+    private val slotStates = AtomicLongArray(maxSize).apply {
+        for (i in 0 until maxSize) set(i, EMPTY_SLOT)
+    }
 
+    // Sequence of the next message to obtain, never wrapped
+    private val cursor = AtomicLong(0)
+
+    @Volatile
     var frozen = false
         private set
 
@@ -158,7 +179,6 @@ constructor(
      * After calling [obtain], the message will now be at the end of the buffer. The caller must
      * store any relevant data on the message and then call [commit].
      */
-    @Synchronized
     override fun obtain(
         tag: String,
         level: LogLevel,
@@ -168,8 +188,22 @@ constructor(
         if (!mutable) {
             return FROZEN_MESSAGE
         }
-        val message = buffer.advance()
+        val sequence = cursor.getAndIncrement()
+        val slot = slotOf(sequence)
+        var state: Long
+        do {
+            state = slotStates.get(slot)
+            if (state shr 1 >= sequence) {
+                // Another producer lapped this one and already claimed the slot
+                return FROZEN_MESSAGE
+            }
+        } while (!slotStates.compareAndSet(slot, state, 2 * sequence + 1))
+        val message =
+            messages[slot]?.takeIf { state and 1L == 0L }
+                // The previous producer may still write its message, so it keeps it to itself
+                ?: LogMessageImpl.create().also { messages[slot] = it }
         message.reset(tag, level, System.currentTimeMillis(), messagePrinter, exception)
+        message.sequence = sequence
         return message
     }
 
@@ -179,12 +213,20 @@ constructor(
      * After acquiring a message via [obtain], call this method to signal to the buffer that you
      * have finished filling in its data fields. The message will be echoed to logcat if necessary.
      */
-    @Synchronized
     override fun commit(message: LogMessage) {
-        if (!mutable) {
+        if (message === FROZEN_MESSAGE || message !is LogMessageImpl) {
             return
         }
-        echoToDesiredEndpoints(message)
+        if (mutable) {
+            // Echo before publishing, the slot can be recycled by other producers right after
+            echoToDesiredEndpoints(message)
+        }
+        // Fails if the slot was taken over meanwhile, dropping the message
+        slotStates.compareAndSet(
+            slotOf(message.sequence),
+            2 * message.sequence + 1,
+            2 * message.sequence,
+        )
     }
 
     /** Sends message to echo after determining whether to use Logcat and/or systrace. */
@@ -206,21 +248,39 @@ constructor(
         }
     }
 
-    /** Converts the entire buffer to a newline-delimited string */
-    @Synchronized
+    /**
+     * Converts the entire buffer to a newline-delimited string. Messages that are still being
+     * written, or get recycled while being printed, are skipped.
+     */
     fun dump(pw: PrintWriter, tailLength: Int) {
-        val iterationStart =
-            if (tailLength <= 0) {
-                0
-            } else {
-                max(0, buffer.size - tailLength)
-            }
+        val end = cursor.get()
+        val size = min(end, maxSize.toLong())
+        val start = if (tailLength <= 0) end - size else max(end - size, end - tailLength)
 
-        for (i in iterationStart until buffer.size) {
-            buffer[i].dump(pw)
+        val line = StringWriter()
+        val linePrinter = PrintWriter(line)
+        for (sequence in start until end) {
+            val slot = slotOf(sequence)
+            if (slotStates.get(slot) != 2 * sequence) {
+                continue
+            }
+            line.buffer.setLength(0)
+            try {
+                messages[slot]!!.dump(linePrinter)
+            } catch (e: RuntimeException) {
+                // The printer may fail on the fields of a message that got recycled meanwhile
+                if (slotStates.get(slot) == 2 * sequence) throw e
+                continue
+            }
+            linePrinter.flush()
+            if (slotStates.get(slot) == 2 * sequence) {
+                pw.write(line.toString())
+            }
         }
     }
 
+    private fun slotOf(sequence: Long) = (sequence % maxSize).toInt()
+
     /**
      * "Freezes" the contents of the buffer, making it immutable until [unfreeze] is called. Calls
      * to [log], [obtain], and [commit] will not affect the buffer and will return dummy values if
@@ -264,4 +324,6 @@ constructor(
 }
 
 private const val TAG = "LogBuffer"
+// Committed state of a slot that was never used, below the state of any sequence
+private const val EMPTY_SLOT = -2L
 private val FROZEN_MESSAGE = LogMessageImpl.create()
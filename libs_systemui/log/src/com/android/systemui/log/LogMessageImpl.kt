@@ -41,6 +41,9 @@ data class LogMessageImpl(
     override var bool4: Boolean,
 ) : LogMessage {
 
+    /** Sequence of this message in its [LogBuffer], set when the message is obtained */
+    internal var sequence = 0L
+
     fun reset(
         tag: String,
         level: LogLevel,
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.systemui.log
+
+import com.android.systemui.log.core.LogLevel
+import com.google.common.truth.Truth.assertThat
+import java.io.PrintWriter
+import java.io.StringWriter
+import java.util.concurrent.CountDownLatch
+import kotlin.concurrent.thread
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.JUnit4
+
+@RunWith(JUnit4::class)
+class LogBufferTest {
+
+    private val echoTracker =
+        object : LogcatEchoTracker {
+            override fun isBufferLoggable(bufferName: String, level: LogLevel) = false
+
+            override fun isTagLoggable(tagName: String, level: LogLevel) = false
+        }
+
+    private val buffer = LogBuffer("TestBuffer", MAX_SIZE, echoTracker, systrace = false)
+
+    @Test
+    fun dump_keepsLatestMessagesInOrder() {
+        repeat(MAX_SIZE + 10) { logLine(0, it) }
+
+        val lines = dumpLines()
+
+        assertThat(lines).hasSize(MAX_SIZE)
+        assertThat(lines.map { it.substringAfter("line ") })
+            .containsExactlyElementsIn((10 until MAX_SIZE + 10).map { "0 $it" })
+            .inOrder()
+    }
+
+    @Test
+    fun dump_withTailLength_printsLastMessages() {
+        repeat(5) { logLine(0, it) }
+
+        assertThat(dumpLines(tailLength = 2).map { it.substringAfter("line ") })
+            .containsExactly("0 3", "0 4")
+            .inOrder()
+    }
+
+    @Test
+    fun frozenBuffer_ignoresMessages() {
+        logLine(0, 0)
+        buffer.freeze()
+        logLine(0, 1)
+
+        assertThat(dumpLines().filter { it.contains("line ") }).hasSize(1)
+    }
+
+    @Test
+    fun concurrentProducers_keepEachProducerInOrder() {
+        runProducers(PRODUCER_COUNT, LOGS_PER_PRODUCER)
+
+        val lines = dumpLines()
+        assertThat(lines.size).isAtMost(MAX_SIZE)
+        lines
+            .map { it.substringAfter("line ").split(" ").map(String::toInt) }
+            .groupBy({ it[0] }, { it[1] })
+            .values
+            .forEach { counters -> assertThat(counters).isInStrictOrder() }
+    }
+
+    @Test
+    fun uncommittedMessage_slotIsTakenOverNextLap() {
+        val abandoned = buffer.obtain(TAG, LogLevel.DEBUG, { "abandoned" }, null)
+        repeat(2 * MAX_SIZE) { logLine(0, it) }
+        buffer.commit(abandoned)
+
+        assertThat(dumpLines().map { it.substringAfter("line ") })
+            .containsExactlyElementsIn((MAX_SIZE until 2 * MAX_SIZE).map { "0 $it" })
+            .inOrder()
+    }
+
+    private fun logLine(producer: Int, counter: Int) {
+        buffer.log(
+            TAG,
+            LogLevel.DEBUG,
+            {
+                int1 = producer
+                int2 = counter
+            },
+            { "line $int1 $int2" },
+        )
+    }
+
+    /** Logs from [producerCount] threads at once */
+    private fun runProducers(producerCount: Int, logsPerProducer: Int) {
+        val start = CountDownLatch(1)
+        val threads =
+            List(producerCount) { producer ->
+                thread {
+                    start.await()
+                    repeat(logsPerProducer) { logLine(producer, it) }
+                }
+            }
+        start.countDown()
+        threads.forEach { it.join() }
+    }
+
+    private fun dumpLines(tailLength: Int = 0): List<String> {
+        val writer = StringWriter()
+        buffer.dump(PrintWriter(writer), tailLength)
+        return writer.toString().lines().filter { it.isNotEmpty() }
+    }
+
+    companion object {
+        private const val TAG = "LogBufferTest"
+        private const val MAX_SIZE = 100
+        private const val PRODUCER_COUNT = 8
+        private const val LOGS_PER_PRODUCER = 100_000
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * JMH benchmarks of the Kairos engine. Kairos is plain Kotlin, so the benchmarks compile its
+ * sources for the JVM and run on any host:
+ *
+ *   ./gradlew :kairos-benchmark:jmh
+ *
+ * Allocation rates are reported by the gc profiler next to the throughput numbers.
+ */
+plugins {
+    alias(libs.plugins.kotlin.jvm)
+    alias(libs.plugins.jmh)
+}
+
+kotlin {
+    jvmToolchain(21)
+    compilerOptions {
+        optIn.add("com.android.systemui.kairos.ExperimentalFrpApi")
+    }
+}
+
+sourceSets {
+    main {
+        kotlin.srcDir("../src")
+    }
+}
+
+dependencies {
+    implementation(libs.coroutines.core)
+}
+
+jmh {
+    jmhVersion = libs.versions.jmh.get()
+    fork = 1
+    warmupIterations = 3
+    iterations = 5
+    profilers.add("gc")
+    resultFormat = "JSON"
+}
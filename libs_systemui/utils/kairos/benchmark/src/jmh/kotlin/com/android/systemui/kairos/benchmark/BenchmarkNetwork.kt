@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.systemui.kairos.benchmark
+
+import com.android.systemui.kairos.FrpSpec
+import com.android.systemui.kairos.FrpTransactionScope
+import com.android.systemui.kairos.MutableTFlow
+import com.android.systemui.kairos.RootFrpNetwork
+import com.android.systemui.kairos.newFrpNetwork
+import java.util.concurrent.Executors
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.ExecutorCoroutineDispatcher
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.asCoroutineDispatcher
+import kotlinx.coroutines.cancel
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.runBlocking
+
+/**
+ * A [RootFrpNetwork] running on its own thread, driven synchronously from the benchmark thread.
+ * Every [emit] returns once the transaction it started, including its observers, has completed.
+ */
+class BenchmarkNetwork : AutoCloseable {
+
+    private val dispatcher: ExecutorCoroutineDispatcher =
+        Executors.newSingleThreadExecutor { Thread(it, "kairos-benchmark") }
+            .asCoroutineDispatcher()
+    private val scope = CoroutineScope(SupervisorJob() + dispatcher)
+
+    val network: RootFrpNetwork = scope.newFrpNetwork()
+
+    /** Activates [spec] and returns its result once the activation transaction completed. */
+    fun <R> activate(spec: FrpSpec<R>): R = runBlocking {
+        val result = CompletableDeferred<R>()
+        scope.launch { network.activateSpec { result.complete(spec()) } }
+        result.await().also {
+            // Transactions are ordered, so this returns after the activation was committed
+            network.transact {}
+        }
+    }
+
+    fun <T> emit(flow: MutableTFlow<T>, value: T) = runBlocking { flow.emit(value) }
+
+    fun <R> transact(block: suspend FrpTransactionScope.() -> R): R = runBlocking {
+        network.transact(block)
+    }
+
+    override fun close() {
+        scope.cancel()
+        dispatcher.close()
+    }
+}
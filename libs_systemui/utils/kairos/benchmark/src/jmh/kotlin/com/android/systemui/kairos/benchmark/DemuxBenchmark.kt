@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.systemui.kairos.benchmark
+
+import com.android.systemui.kairos.MutableTFlow
+import com.android.systemui.kairos.groupByKey
+import java.util.concurrent.TimeUnit
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Level
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.TearDown
+
+/**
+ * [groupByKey] with [keyCount] observed keys. A single key emission should stay constant in the
+ * number of keys, while emitting to every key is the worst case for the demux node.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+open class DemuxBenchmark {
+
+    @Param("16", "1024", "16384") var keyCount = 0
+
+    private lateinit var benchmarkNetwork: BenchmarkNetwork
+    private lateinit var input: MutableTFlow<Map<Int, Int>>
+    private lateinit var singleKeyEvents: Array<Map<Int, Int>>
+    private lateinit var allKeysEvent: Map<Int, Int>
+    private var counter = 0
+
+    @Volatile private var sink = 0
+
+    @Setup(Level.Trial)
+    fun setUp() {
+        singleKeyEvents = Array(keyCount) { mapOf(it to it) }
+        allKeysEvent = (0 until keyCount).associateWith { it }
+
+        benchmarkNetwork = BenchmarkNetwork()
+        input = benchmarkNetwork.network.mutableTFlow()
+        benchmarkNetwork.activate {
+            val grouped = input.groupByKey(keyCount)
+            repeat(keyCount) { key -> grouped.eventsForKey(key).observe { sink = it } }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    fun tearDown() {
+        benchmarkNetwork.close()
+    }
+
+    @Benchmark
+    fun emitSingleKey(): Int {
+        benchmarkNetwork.emit(input, singleKeyEvents[counter++ % keyCount])
+        return sink
+    }
+
+    @Benchmark
+    fun emitAllKeys(): Int {
+        benchmarkNetwork.emit(input, allKeysEvent)
+        return sink
+    }
+}
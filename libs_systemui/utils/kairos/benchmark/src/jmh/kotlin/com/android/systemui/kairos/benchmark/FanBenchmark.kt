@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.systemui.kairos.benchmark
+
+import com.android.systemui.kairos.MutableTFlow
+import com.android.systemui.kairos.TFlow
+import com.android.systemui.kairos.map
+import com.android.systemui.kairos.merge
+import java.util.concurrent.TimeUnit
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Level
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.TearDown
+
+/**
+ * Cost of a transaction against the shape of the graph: [size] observed branches of one input
+ * (fan-out), [size] branches merged back into one node (fan-in), and a chain [size] nodes deep.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+open class FanBenchmark {
+
+    @Param("1", "16", "256") var size = 0
+
+    private lateinit var benchmarkNetwork: BenchmarkNetwork
+    private lateinit var fanOutInput: MutableTFlow<Int>
+    private lateinit var fanInInput: MutableTFlow<Int>
+    private lateinit var chainInput: MutableTFlow<Int>
+    private var counter = 0
+
+    @Volatile private var sink = 0
+
+    @Setup(Level.Trial)
+    fun setUp() {
+        benchmarkNetwork = BenchmarkNetwork()
+        val network = benchmarkNetwork.network
+        fanOutInput = network.mutableTFlow()
+        fanInInput = network.mutableTFlow()
+        chainInput = network.mutableTFlow()
+        benchmarkNetwork.activate {
+            repeat(size) { i -> fanOutInput.map { it + i }.observe { sink = it } }
+
+            List(size) { i -> fanInInput.map { it + i } }.merge().observe { sink = it.size }
+
+            var chain: TFlow<Int> = chainInput
+            repeat(size) { chain = chain.map { it + 1 } }
+            chain.observe { sink = it }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    fun tearDown() {
+        benchmarkNetwork.close()
+    }
+
+    @Benchmark
+    fun fanOut(): Int {
+        benchmarkNetwork.emit(fanOutInput, counter++)
+        return sink
+    }
+
+    @Benchmark
+    fun fanIn(): Int {
+        benchmarkNetwork.emit(fanInInput, counter++)
+        return sink
+    }
+
+    @Benchmark
+    fun chain(): Int {
+        benchmarkNetwork.emit(chainInput, counter++)
+        return sink
+    }
+}
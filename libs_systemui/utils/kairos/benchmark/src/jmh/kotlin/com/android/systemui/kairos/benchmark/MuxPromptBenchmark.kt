@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.systemui.kairos.benchmark
+
+import com.android.systemui.kairos.FrpStateScope
+import com.android.systemui.kairos.MutableTFlow
+import com.android.systemui.kairos.TFlow
+import com.android.systemui.kairos.filter
+import com.android.systemui.kairos.map
+import com.android.systemui.kairos.switchPromptly
+import com.android.systemui.kairos.util.Maybe
+import com.android.systemui.kairos.util.just
+import com.android.systemui.kairos.util.none
+import java.util.concurrent.TimeUnit
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Level
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.TearDown
+
+/**
+ * Churn of the prompt mux nodes: [switchPromptly] changing its upstream in every transaction, and
+ * [FrpStateScope.mergeIncrementallyPromptly] removing or re-adding one of [flowCount] merged flows
+ * in every transaction.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+open class MuxPromptBenchmark {
+
+    @Param("2", "64", "1024") var flowCount = 0
+
+    private lateinit var benchmarkNetwork: BenchmarkNetwork
+    private lateinit var switchInput: MutableTFlow<Int>
+    private lateinit var mergeSource: MutableTFlow<Int>
+    private lateinit var mergePatches: MutableTFlow<Map<Int, Maybe<TFlow<Int>>>>
+    private lateinit var patches: Array<Map<Int, Maybe<TFlow<Int>>>>
+    private var counter = 0
+
+    @Volatile private var sink = 0
+
+    @Setup(Level.Trial)
+    fun setUp() {
+        benchmarkNetwork = BenchmarkNetwork()
+        val network = benchmarkNetwork.network
+        switchInput = network.mutableTFlow()
+        mergeSource = network.mutableTFlow()
+        mergePatches = network.mutableTFlow()
+
+        val mergedFlows = List(flowCount) { i -> mergeSource.map { it + i } }
+        // Even patches remove a flow, odd ones add it back
+        patches =
+            Array(flowCount * 2) {
+                val key = it / 2
+                mapOf(key to if (it % 2 == 0) none() else just(mergedFlows[key]))
+            }
+
+        benchmarkNetwork.activate {
+            // Each event selects the flow that will forward it, within the same transaction
+            val switchFlows = List(flowCount) { i -> switchInput.filter { it % flowCount == i } }
+            switchInput
+                .map { switchFlows[it % flowCount] }
+                .hold(switchFlows[0])
+                .switchPromptly()
+                .observe { sink = it }
+
+            mergePatches
+                .mergeIncrementallyPromptly(
+                    mergedFlows.withIndex().associate { (i, flow) -> i to flow }
+                )
+                .observe { sink = it.size }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    fun tearDown() {
+        benchmarkNetwork.close()
+    }
+
+    @Benchmark
+    fun switchPromptlyChurn(): Int {
+        benchmarkNetwork.emit(switchInput, counter++)
+        return sink
+    }
+
+    @Benchmark
+    fun mergeIncrementallyPromptlyChurn(): Int {
+        benchmarkNetwork.emit(mergePatches, patches[counter++ % patches.size])
+        return sink
+    }
+
+    @Benchmark
+    fun mergedEmit(): Int {
+        benchmarkNetwork.emit(mergeSource, counter++)
+        return sink
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.systemui.kairos.benchmark
+
+import com.android.systemui.kairos.MutableTFlow
+import com.android.systemui.kairos.TState
+import com.android.systemui.kairos.map
+import java.util.concurrent.TimeUnit
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Level
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.TearDown
+
+/** Raw transaction throughput: one input, an observer and a held state. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+open class TransactionBenchmark {
+
+    private lateinit var benchmarkNetwork: BenchmarkNetwork
+    private lateinit var input: MutableTFlow<Int>
+    private lateinit var held: TState<Int>
+    private var counter = 0
+
+    @Volatile private var sink = 0
+
+    @Setup(Level.Trial)
+    fun setUp() {
+        benchmarkNetwork = BenchmarkNetwork()
+        input = benchmarkNetwork.network.mutableTFlow()
+        held =
+            benchmarkNetwork.activate {
+                input.observe { sink = it }
+                input.map { it + 1 }.hold(0)
+            }
+    }
+
+    @TearDown(Level.Trial)
+    fun tearDown() {
+        benchmarkNetwork.close()
+    }
+
+    @Benchmark
+    fun emitAndObserve(): Int {
+        benchmarkNetwork.emit(input, counter++)
+        return sink
+    }
+
+    @Benchmark
+    fun emitAndSample(): Int {
+        benchmarkNetwork.emit(input, counter++)
+        return benchmarkNetwork.transact { held.sample() }
+    }
+}
@@ -41,6 +41,10 @@ internal sealed class MuxNode<K : Any, V, Output>(val lifecycle: MuxLifecycle<Ou
     // TODO: inline DepthTracker? would need to be added to PushNode signature
     final override val depthTracker = DepthTracker()
 
+    // Entries of this node in the network's schedulers, see SchedulerImpl
+    val evalEntry = SchedulerEntry(this)
+    val compactEntry = SchedulerEntry(this)
+
     final override suspend fun addDownstream(downstream: Schedulable) {
         mutex.withLock { addDownstreamLocked(downstream) }
     }
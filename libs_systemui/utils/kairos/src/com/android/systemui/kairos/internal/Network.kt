@@ -52,8 +52,8 @@ internal class Network(val coroutineScope: CoroutineScope) : NetworkScope {
     override val network
         get() = this
 
-    override val compactor = SchedulerImpl()
-    override val scheduler = SchedulerImpl()
+    override val compactor = SchedulerImpl { it.compactEntry }
+    override val scheduler = SchedulerImpl { it.evalEntry }
     override val transactionStore = HeteroMap()
 
     private val stateWrites = ConcurrentLinkedQueue<TStateSource<*>>()
@@ -18,8 +18,6 @@
 
 package com.android.systemui.kairos.internal
 
-import java.util.concurrent.ConcurrentHashMap
-import java.util.concurrent.PriorityBlockingQueue
 import kotlinx.coroutines.ExperimentalCoroutinesApi
 import kotlinx.coroutines.coroutineScope
 import kotlinx.coroutines.launch
@@ -30,18 +28,36 @@ internal interface Scheduler {
     fun scheduleIndirect(indirectDepth: Int, node: MuxNode<*, *, *>)
 }
 
-internal class SchedulerImpl : Scheduler {
-    val enqueued = ConcurrentHashMap<MuxNode<*, *, *>, Any>()
-    val scheduledQ = PriorityBlockingQueue<Pair<Int, MuxNode<*, *, *>>>(16, compareBy { it.first })
+/**
+ * State of a [MuxNode] within one [SchedulerImpl]. Every node owns one entry per scheduler, so that
+ * scheduling a node only links its entry into a depth bucket, without allocating.
+ */
+internal class SchedulerEntry(val node: MuxNode<*, *, *>) {
+    // All fields are guarded by the lock of the owning scheduler
+    var enqueued = false
+    var key = 0
+    var next: SchedulerEntry? = null
+}
+
+/**
+ * Schedules [MuxNode]s by depth, using an array of buckets per depth kind instead of a priority
+ * queue. Indirect depths sort before all direct depths, matching [scheduleIndirect].
+ *
+ * Nodes are drained from a single coroutine, but visits may run in parallel on a multi-threaded
+ * dispatcher and schedule further nodes, so the buckets are guarded by an uncontended monitor.
+ */
+internal class SchedulerImpl(private val entryOf: (MuxNode<*, *, *>) -> SchedulerEntry) :
+    Scheduler {
+    private val lock = Any()
+    private val direct = DepthBuckets()
+    private val indirect = DepthBuckets()
 
     override fun schedule(depth: Int, node: MuxNode<*, *, *>) {
-        if (enqueued.putIfAbsent(node, node) == null) {
-            scheduledQ.add(Pair(depth, node))
-        }
+        enqueue(node, depth)
     }
 
     override fun scheduleIndirect(indirectDepth: Int, node: MuxNode<*, *, *>) {
-        schedule(Int.MIN_VALUE + indirectDepth, node)
+        enqueue(node, Int.MIN_VALUE + indirectDepth)
     }
 
     internal suspend fun drainEval(network: Network) {
@@ -57,33 +73,103 @@ internal class SchedulerImpl : Scheduler {
         drain { runStep -> runStep { muxNode -> muxNode.visitCompact(scheduler = this) } }
     }
 
+    private fun enqueue(node: MuxNode<*, *, *>, key: Int) {
+        val entry = entryOf(node)
+        synchronized(lock) {
+            if (!entry.enqueued) {
+                entry.enqueued = true
+                push(entry, key)
+            }
+        }
+    }
+
     private suspend inline fun drain(
         crossinline onStep:
             suspend (runStep: suspend (visit: suspend (MuxNode<*, *, *>) -> Unit) -> Unit) -> Unit
     ): Unit = coroutineScope {
-        while (scheduledQ.isNotEmpty()) {
-            val maxDepth = scheduledQ.peek()?.first ?: error("Unexpected empty scheduler")
-            onStep { visit -> runStep(maxDepth, visit) }
+        while (synchronized(lock) { !isEmpty() }) {
+            val maxKey = synchronized(lock) { minKey() }
+            onStep { visit -> runStep(maxKey, visit) }
         }
     }
 
     private suspend inline fun runStep(
-        maxDepth: Int,
+        maxKey: Int,
         crossinline visit: suspend (MuxNode<*, *, *>) -> Unit,
     ) = coroutineScope {
-        while (scheduledQ.peek()?.first?.let { it <= maxDepth } == true) {
-            val (d, node) = scheduledQ.remove()
+        while (true) {
+            val entry = synchronized(lock) { pollAtMost(maxKey) } ?: break
+            val node = entry.node
             if (
                 node.depthTracker.dirty_hasDirectUpstream() &&
-                    d < node.depthTracker.dirty_directDepth
+                    entry.key < node.depthTracker.dirty_directDepth
             ) {
-                scheduledQ.add(node.depthTracker.dirty_directDepth to node)
+                // The node moved deeper since it was scheduled, it stays enqueued at its new depth
+                synchronized(lock) { push(entry, node.depthTracker.dirty_directDepth) }
             } else {
                 launch {
-                    enqueued.remove(node)
+                    synchronized(lock) { entry.enqueued = false }
                     visit(node)
                 }
             }
         }
     }
+
+    private fun isEmpty() = indirect.isEmpty() && direct.isEmpty()
+
+    private fun minKey(): Int =
+        if (!indirect.isEmpty()) Int.MIN_VALUE + indirect.minDepth() else direct.minDepth()
+
+    private fun push(entry: SchedulerEntry, key: Int) {
+        entry.key = key
+        if (key < 0) indirect.push(entry, key - Int.MIN_VALUE) else direct.push(entry, key)
+    }
+
+    private fun pollAtMost(maxKey: Int): SchedulerEntry? {
+        if (isEmpty()) return null
+        val key = minKey()
+        if (key > maxKey) return null
+        return if (key < 0) indirect.pop(key - Int.MIN_VALUE) else direct.pop(key)
+    }
+}
+
+/**
+ * Entries bucketed by depth, each bucket being an intrusive stack linked through
+ * [SchedulerEntry.next]. The array only grows when a deeper node than ever before is scheduled.
+ */
+private class DepthBuckets {
+    private var heads = arrayOfNulls<SchedulerEntry>(INITIAL_DEPTHS)
+    // No bucket below this depth is occupied
+    private var low = 0
+    private var size = 0
+
+    fun isEmpty() = size == 0
+
+    fun push(entry: SchedulerEntry, depth: Int) {
+        if (depth >= heads.size) {
+            heads = heads.copyOf(maxOf(heads.size * 2, depth + 1))
+        }
+        entry.next = heads[depth]
+        heads[depth] = entry
+        if (size == 0 || depth < low) low = depth
+        size++
+    }
+
+    /** Returns the lowest occupied depth, must not be called when empty */
+    fun minDepth(): Int {
+        while (heads[low] == null) low++
+        return low
+    }
+
+    fun pop(depth: Int): SchedulerEntry {
+        val entry = heads[depth]!!
+        heads[depth] = entry.next
+        entry.next = null
+        size--
+        return entry
+    }
+
+    private companion object {
+        const val INITIAL_DEPTHS = 32
+    }
 }
@@ -32,6 +32,8 @@ project(":plugincore").projectDir = File(rootDir, "libs_systemui/plugin_core")
 
 include(":log")
 project(":log").projectDir = File(rootDir, "libs_systemui/log")
+include(":log-benchmark")
+project(":log-benchmark").projectDir = File(rootDir, "libs_systemui/log/benchmark")
 
 include(":smartspace")
 project(":smartspace").projectDir = File(rootDir, "libs_systemui/smartspace")
@@ -41,6 +43,12 @@ project(":common").projectDir = File(rootDir, "libs_systemui/common")
 include(":utils")
 project(":utils").projectDir = File(rootDir, "libs_systemui/utils")
 
+include(":kairos-benchmark")
+project(":kairos-benchmark").projectDir = File(rootDir, "libs_systemui/utils/kairos/benchmark")
+
+include(":neo-benchmark")
+project(":neo-benchmark").projectDir = File(rootDir, "Omega/benchmark")
+
 include(":shared")
 project(":shared").projectDir = File(rootDir, "libs_systemui/shared")
 
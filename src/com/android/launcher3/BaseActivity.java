@@ -298,6 +298,7 @@ public abstract class BaseActivity extends Activity implements ActivityContext,
         super.onStop();
         NotificationListener.removeNotificationsChangedListener(
                 getActivityComponent().getPopupDataProvider());
+        getActivityComponent().getPopupDataProvider().flushPendingDotUpdates();
         mEventCallbacks[EVENT_STOPPED].executeAllAndClear();
 
 
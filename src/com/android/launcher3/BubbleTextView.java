@@ -89,6 +89,7 @@ import com.android.launcher3.icons.DotRenderer;
 import com.android.launcher3.icons.DotRenderer.IconShapeInfo;
 import com.android.launcher3.icons.FastBitmapDrawable;
 import com.android.launcher3.icons.IconCache.ItemInfoUpdateReceiver;
+import com.android.launcher3.icons.IconRequestScheduler.Priority;
 import com.android.launcher3.icons.PlaceHolderDrawableDelegate;
 import com.android.launcher3.icons.cache.CacheLookupFlag;
 import com.android.launcher3.model.data.AppInfo;
@@ -779,6 +780,10 @@ public class BubbleTextView extends TextView implements ItemInfoUpdateReceiver,
         if (mIcon != null) {
             mIcon.setVisible(isVisible, false);
         }
+        if (mIconLoadRequest != null) {
+            LauncherAppState.getInstance(getContext()).getIconCache().setIconRequestPriority(this,
+                    isVisible ? Priority.VISIBLE : Priority.OFFSCREEN);
+        }
     }
 
     public void clearPressedBackground() {
@@ -1453,11 +1458,18 @@ public class BubbleTextView extends TextView implements ItemInfoUpdateReceiver,
         }
     }
 
+    /**
+     * Returns the lookup flag of the high-res icon this view displays.
+     */
+    public CacheLookupFlag getHighResLookupFlag() {
+        return DEFAULT_LOOKUP_FLAG.withThemeIcon(shouldUseTheme());
+    }
+
     /**
      * Verifies that the current icon is high-res otherwise posts a request to load the icon.
      */
     public void verifyHighRes() {
-        CacheLookupFlag expectedFlag = DEFAULT_LOOKUP_FLAG.withThemeIcon(shouldUseTheme());
+        CacheLookupFlag expectedFlag = getHighResLookupFlag();
         if (getTag() instanceof ItemInfoWithIcon info && !mHighResUpdateInProgress
                 && info.getMatchingLookupFlag().isVisuallyLessThan(expectedFlag)) {
             if (mIconLoadRequest != null) {
@@ -37,6 +37,7 @@ import static com.android.launcher3.util.SimpleBroadcastReceiver.actionsFilter;
 
 import android.content.Context;
 import android.content.Intent;
+import android.content.res.Configuration;
 import android.content.res.Resources;
 import android.content.res.TypedArray;
 import android.content.res.XmlResourceParser;
@@ -48,6 +49,7 @@ import android.text.TextUtils;
 import android.util.AttributeSet;
 import android.util.DisplayMetrics;
 import android.util.Log;
+import android.util.LruCache;
 import android.util.SparseArray;
 import android.util.Xml;
 
@@ -93,6 +95,7 @@ import java.lang.annotation.RetentionPolicy;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -145,11 +148,26 @@ public class InvariantDeviceProfile {
     private static final String RES_GRID_NUM_COLUMNS = "grid_num_columns";
     private static final String RES_GRID_ICON_SIZE_DP = "grid_icon_size_dp";
 
+    // Number of resource and display states whose parsed grid options are kept, and number of
+    // grid and display states whose device profiles are kept.
+    private static final int PARSED_GRIDS_CACHE_SIZE = 4;
+    private static final int PROFILES_CACHE_SIZE = 4;
+
+    // Grid options parsed from R.xml.device_profiles, keyed by the resource and display state the
+    // parsing depends on. Shared by the whole process.
+    private static final LruCache<List<Object>, ParsedGrids> sParsedGrids =
+            new LruCache<>(PARSED_GRIDS_CACHE_SIZE);
+
     private final DisplayController mDisplayController;
     private final WindowManagerProxy mWMProxy;
     private final LauncherPrefs mPrefs;
     private final ThemeManager mThemeManager;
 
+    // Device profiles built for recent grid and display states, so that returning to a known
+    // state, like unfolding the device again, is a lookup instead of a rebuild.
+    private final LruCache<List<Object>, ProfileSet> mProfiles =
+            new LruCache<>(PROFILES_CACHE_SIZE);
+
     /**
      * Number of icons per row and column in the workspace.
      */
@@ -410,8 +428,9 @@ public class InvariantDeviceProfile {
         gridType = closestProfile.gridType;
         defaultLayoutId = closestProfile.defaultLayoutId;
 
-        numFolderRows = closestProfile.numFolderRows;
-        numFolderColumns = closestProfile.numFolderColumns;
+        // Copied as the overrides below modify them, and the grid options are cached
+        numFolderRows = closestProfile.numFolderRows.clone();
+        numFolderColumns = closestProfile.numFolderColumns.clone();
         folderStyle = closestProfile.folderStyle;
 
         cellStyle = closestProfile.cellStyle;
@@ -439,8 +458,8 @@ public class InvariantDeviceProfile {
 
         inlineNavButtonsEndSpacing = closestProfile.inlineNavButtonsEndSpacing;
 
-        iconSize = displayOption.iconSizes;
-        allAppsIconSize = displayOption.allAppsIconSizes;
+        iconSize = displayOption.iconSizes.clone();
+        allAppsIconSize = displayOption.allAppsIconSizes.clone();
         float maxIconSize = iconSize[0];
         for (int i = 1; i < iconSize.length; i++) {
             maxIconSize = Math.max(maxIconSize, iconSize[i]);
@@ -477,7 +496,6 @@ public class InvariantDeviceProfile {
 
         allAppsCellSize = displayOption.allAppsCellSize;
         allAppsBorderSpaces = displayOption.allAppsBorderSpaces;
-        allAppsIconSize = displayOption.allAppsIconSizes;
         allAppsIconTextSize = displayOption.allAppsIconTextSizes;
 
         inlineQsb = closestProfile.inlineQsb;
@@ -498,6 +516,14 @@ public class InvariantDeviceProfile {
         DeviceProfileOverrides.Options neoOptions = overrides.getOverrides(closestProfile);
         neoOptions.applyUi(this);
 
+        List<Object> profilesKey = getProfilesKey(displayInfo, closestProfile, neoOptions);
+        ProfileSet profiles = mProfiles.get(profilesKey);
+        if (profiles != null) {
+            supportedProfiles = profiles.supportedProfiles();
+            defaultWallpaperSize = new Point(profiles.defaultWallpaperSize());
+            return;
+        }
+
         final List<DeviceProfile> localSupportedProfiles = new ArrayList<>();
         defaultWallpaperSize = new Point(displayInfo.currentSize);
         SparseArray<DotRenderer> dotRendererCache = new SparseArray<>();
@@ -539,6 +565,35 @@ public class InvariantDeviceProfile {
                     deviceProfile.numShownHotseatIcons = numMinShownHotseatIconsForTablet;
                     deviceProfile.recalculateHotseatWidthAndBorderSpace();
                 });
+        mProfiles.put(profilesKey,
+                new ProfileSet(supportedProfiles, new Point(defaultWallpaperSize)));
+    }
+
+    /**
+     * Returns everything the supported profiles are built from: the grid after all overrides, the
+     * prefs the profiles read themselves and the display state.
+     */
+    private List<Object> getProfilesKey(Info displayInfo, GridOption grid,
+            DeviceProfileOverrides.Options overrides) {
+        Configuration config = displayInfo.context.getResources().getConfiguration();
+        return Arrays.asList(
+                Arrays.asList(toModelState()),
+                grid.name,
+                overrides,
+                isFixedLandscape,
+                enableTwoLinesInAllApps,
+                displayInfo.getDensityDpi(),
+                displayInfo.getStableDensityScaleFactor(),
+                displayInfo.fontScale,
+                config.smallestScreenWidthDp,
+                displayInfo.getNavigationMode(),
+                displayInfo.getDeviceType(),
+                new HashSet<>(displayInfo.supportedBounds),
+                new HashSet<>(displayInfo.getAllDisplays()),
+                displayInfo.isInDesktopFirstMode(),
+                displayInfo.showLockedTaskbarOnHome(),
+                displayInfo.showDesktopTaskbarForFreeformDisplay(),
+                taskbarModeUtil.isTransient());
     }
 
     DeviceProfile.Builder newDPBuilder(Info info) {
@@ -607,30 +662,12 @@ public class InvariantDeviceProfile {
             boolean isFixedLandscapeMode
     ) {
         ArrayList<DisplayOption> profiles = new ArrayList<>();
-        Context context = displayInfo.context;
-
-        try (XmlResourceParser parser = context.getResources().getXml(R.xml.device_profiles)) {
-            final int depth = parser.getDepth();
-            int type;
-            while (((type = parser.next()) != XmlPullParser.END_TAG ||
-                    parser.getDepth() > depth) && type != XmlPullParser.END_DOCUMENT) {
-                if ((type == XmlPullParser.START_TAG)
-                        && GridOption.TAG_NAME.equals(parser.getName())) {
-                    GridOption gridOption = new GridOption(
-                            context, Xml.asAttributeSet(parser), displayInfo);
-                    if (firstGridFilter(gridOption, displayInfo.getDeviceType(), allowDisabledGrid,
-                            isFixedLandscapeMode)) {
-                        final int displayDepth = parser.getDepth();
-                        while (((type = parser.next()) != XmlPullParser.END_TAG
-                                || parser.getDepth() > displayDepth)
-                                && type != XmlPullParser.END_DOCUMENT) {
-                            if ((type == XmlPullParser.START_TAG) && "display-option".equals(
-                                    parser.getName())) {
-                                profiles.add(new DisplayOption(gridOption, context,
-                                        Xml.asAttributeSet(parser)));
-                            }
-                        }
-                    }
+        try {
+            for (DisplayOption option
+                    : getParsedGrids(displayInfo.context, displayInfo).displayOptions()) {
+                if (firstGridFilter(option.grid, displayInfo.getDeviceType(), allowDisabledGrid,
+                        isFixedLandscapeMode)) {
+                    profiles.add(option);
                 }
             }
         } catch (IOException | XmlPullParserException e) {
@@ -836,7 +873,40 @@ public class InvariantDeviceProfile {
      * @return all the grid options that can be shown on the device
      */
     public static List<GridOption> parseAllDefinedGridOptions(Context context, Info displayInfo) {
-        List<GridOption> result = new ArrayList<>();
+        try {
+            return new ArrayList<>(getParsedGrids(context, displayInfo).grids());
+        } catch (IOException | XmlPullParserException e) {
+            Log.e(TAG, "Error parsing device profile", e);
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Returns all the grid options and display options defined in R.xml.device_profiles, parsing
+     * them only if they weren't parsed for the same resources and displays before.
+     */
+    private static ParsedGrids getParsedGrids(Context context, Info displayInfo)
+            throws IOException, XmlPullParserException {
+        Configuration config = context.getResources().getConfiguration();
+        List<Object> key = Arrays.asList(
+                config.densityDpi,
+                config.smallestScreenWidthDp,
+                config.getLocales(),
+                displayInfo.getDeviceType(),
+                displayInfo.getStableDensityScaleFactor(),
+                new HashSet<>(displayInfo.getAllDisplays()));
+        ParsedGrids grids = sParsedGrids.get(key);
+        if (grids == null) {
+            grids = parseGrids(context, displayInfo);
+            sParsedGrids.put(key, grids);
+        }
+        return grids;
+    }
+
+    private static ParsedGrids parseGrids(Context context, Info displayInfo)
+            throws IOException, XmlPullParserException {
+        List<GridOption> grids = new ArrayList<>();
+        List<DisplayOption> displayOptions = new ArrayList<>();
         try (XmlResourceParser parser = context.getResources().getXml(R.xml.device_profiles)) {
             final int depth = parser.getDepth();
             int type;
@@ -844,14 +914,24 @@ public class InvariantDeviceProfile {
                     || parser.getDepth() > depth) && type != XmlPullParser.END_DOCUMENT) {
                 if ((type == XmlPullParser.START_TAG)
                         && GridOption.TAG_NAME.equals(parser.getName())) {
-                    result.add(new GridOption(context, Xml.asAttributeSet(parser), displayInfo));
+                    GridOption gridOption = new GridOption(
+                            context, Xml.asAttributeSet(parser), displayInfo);
+                    grids.add(gridOption);
+                    final int displayDepth = parser.getDepth();
+                    while (((type = parser.next()) != XmlPullParser.END_TAG
+                            || parser.getDepth() > displayDepth)
+                            && type != XmlPullParser.END_DOCUMENT) {
+                        if ((type == XmlPullParser.START_TAG) && "display-option".equals(
+                                parser.getName())) {
+                            displayOptions.add(new DisplayOption(gridOption, context,
+                                    Xml.asAttributeSet(parser)));
+                        }
+                    }
                 }
             }
-        } catch (IOException | XmlPullParserException e) {
-            Log.e(TAG, "Error parsing device profile", e);
-            return Collections.emptyList();
         }
-        return result;
+        return new ParsedGrids(Collections.unmodifiableList(grids),
+                Collections.unmodifiableList(displayOptions));
     }
 
     private int getLauncherIconDensity(int requiredSize) {
@@ -1063,6 +1143,14 @@ public class InvariantDeviceProfile {
                         displayInfo.getDeviceType()), isLandscape);
     }
 
+    /** Grid options and their display options, as defined in R.xml.device_profiles */
+    private record ParsedGrids(List<GridOption> grids, List<DisplayOption> displayOptions) {
+    }
+
+    /** Device profiles built for one grid and display state */
+    private record ProfileSet(List<DeviceProfile> supportedProfiles, Point defaultWallpaperSize) {
+    }
+
     /** Class to expose properties required for external displays to {@link DeviceProfile} */
     public static final class DisplayOptionSpec {
         public final int typeIndex;
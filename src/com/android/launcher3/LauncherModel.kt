@@ -459,6 +459,7 @@ constructor(
             }
             writer.println()
         }
+        iconCache.iconRequestScheduler.dump(prefix, writer)
     }
 
     /** Returns true if there are any callbacks attached to the model */
@@ -59,6 +59,12 @@ class ModelCallbacks(private var launcher: Launcher) : BgDataModel.Callbacks {
     var pendingExecutor: ViewOnDrawExecutor? = null
     var workspaceLoading = true
 
+    /** Items bound by [bindFirstScreenAsync] that the next complete bind has not yet picked up */
+    private var firstScreenBoundItems: WorkspaceData? = null
+
+    /** Pending [bindFirstScreenAsync] task, which the next complete bind waits for */
+    @Volatile private var firstScreenBind: CompletableFuture<*>? = null
+
     /**
      * Refreshes the shortcuts shown on the workspace.
      *
@@ -494,6 +500,63 @@ class ModelCallbacks(private var launcher: Launcher) : BgDataModel.Callbacks {
         }
     }
 
+    @AnyThread
+    override fun bindFirstScreenAsync(itemIdMap: WorkspaceData) {
+        if (!Flags.simplifiedLauncherModelBinding()) return
+        val taskTracker = CancellationSignal()
+        activeBindTask.getAndSet(taskTracker).cancel()
+
+        val orderedScreenIds = itemIdMap.collectWorkspaceScreens()
+        val items = itemIdMap.filter {
+            it.container == CONTAINER_DESKTOP || it.container == CONTAINER_HOTSEAT
+        }
+        val inflater = launcher.itemInflater
+        firstScreenBind =
+            CompletableFuture.completedFuture(null)
+                .thenOn(MAIN_EXECUTOR, taskTracker) {
+                    firstScreenBoundItems = null
+                    clearPendingBinds()
+                    startBinding()
+                    bindScreens(orderedScreenIds)
+                    emptyList<Void>()
+                }
+                .thenOn(UI_HELPER_EXECUTOR, taskTracker) {
+                    items.map { Pair.create(it, inflater.inflateItem(it, null)) }
+                }
+                .thenOn(MAIN_EXECUTOR, taskTracker) { inflatedItems ->
+                    launcher.bindInflatedItems(inflatedItems, null)
+                    firstScreenBoundItems = itemIdMap
+                    emptyList<Void>()
+                }
+    }
+
+    /**
+     * Returns true if the views bound by [bindFirstScreenAsync] can be kept for binding
+     * [itemIdMap]. This is the case when every bound item is still part of the model and the
+     * bound screens come first in [orderedScreenIds], in which case the missing screens are added.
+     */
+    @UiThread
+    private fun resumeFirstScreenBind(
+        itemIdMap: WorkspaceData,
+        orderedScreenIds: LIntArray,
+    ): Boolean {
+        val boundItems = firstScreenBoundItems ?: return false
+        if (boundItems.any { itemIdMap[it.id] !== it }) return false
+
+        val boundScreens = launcher.workspace.screenOrder
+        for (i in 0 until boundScreens.size()) {
+            if (i >= orderedScreenIds.size() || orderedScreenIds[i] != boundScreens[i]) {
+                return false
+            }
+        }
+        val newScreens = LIntArray()
+        for (i in boundScreens.size() until orderedScreenIds.size()) {
+            newScreens.add(orderedScreenIds[i])
+        }
+        if (!newScreens.isEmpty) bindAddScreens(newScreens)
+        return true
+    }
+
     /**
      * Helper method for chaining calls while keeping the callback cancelable. This executes the
      * [block] on the [executor] passing in the result of the previous block. If the [taskTracker]
@@ -512,8 +575,12 @@ class ModelCallbacks(private var launcher: Launcher) : BgDataModel.Callbacks {
     /** Binds the model while inflating items asynchronously */
     private fun bindModelWithAsyncInflation(itemIdMap: WorkspaceData, isBindingSync: Boolean) {
         val taskTracker = CancellationSignal()
-        // Cancel any previously running task and set the current as active task
-        activeBindTask.getAndSet(taskTracker).cancel()
+        // Cancel any previously running task and set the current as active task, unless it is a
+        // first screen bind which this bind can build upon
+        val previousTask = activeBindTask.getAndSet(taskTracker)
+        val pendingFirstScreenBind = firstScreenBind
+        firstScreenBind = null
+        if (pendingFirstScreenBind == null) previousTask.cancel()
 
         val orderedScreenIds = itemIdMap.collectWorkspaceScreens()
         val currentScreenIds = getPagesToBindSynchronously(orderedScreenIds)
@@ -525,18 +592,28 @@ class ModelCallbacks(private var launcher: Launcher) : BgDataModel.Callbacks {
             }
 
         val inflater = launcher.itemInflater
-        CompletableFuture.completedFuture(null)
+        // Items already bound by bindFirstScreenAsync, set on the main thread before inflation
+        var boundItems: WorkspaceData? = null
+        (pendingFirstScreenBind?.handle { _, _ -> null } ?: CompletableFuture.completedFuture(null))
             .thenOn(MAIN_EXECUTOR, taskTracker) {
-                // Tell the workspace that we're about to start binding items
-                clearPendingBinds()
-                startBinding()
-                bindScreens(orderedScreenIds)
+                if (resumeFirstScreenBind(itemIdMap, orderedScreenIds)) {
+                    boundItems = firstScreenBoundItems
+                    clearPendingBinds()
+                } else {
+                    // Tell the workspace that we're about to start binding items
+                    clearPendingBinds()
+                    startBinding()
+                    bindScreens(orderedScreenIds)
+                }
+                firstScreenBoundItems = null
                 emptyList<Void>()
             }
             .thenOn(if (isBindingSync) MAIN_EXECUTOR else UI_HELPER_EXECUTOR, taskTracker) {
                 // If we are binding synchronously, inflate the first items on main thread,
                 // otherwise on background thread
-                firstBindItems.map { Pair.create(it, inflater.inflateItem(it, null)) }
+                firstBindItems
+                    .filter { boundItems?.get(it.id) !== it }
+                    .map { Pair.create(it, inflater.inflateItem(it, null)) }
             }
             .thenOn(MAIN_EXECUTOR, taskTracker) { inflatedItems ->
                 // Bind items
@@ -558,7 +635,9 @@ class ModelCallbacks(private var launcher: Launcher) : BgDataModel.Callbacks {
             }
             .thenOn(UI_HELPER_EXECUTOR, taskTracker) {
                 // Inflate remaining items on background thread
-                lastBindItems.map { Pair.create(it, inflater.inflateItem(it, null)) }
+                lastBindItems
+                    .filter { boundItems?.get(it.id) !== it }
+                    .map { Pair.create(it, inflater.inflateItem(it, null)) }
             }
             .thenOn(MAIN_EXECUTOR, taskTracker) { inflatedItems ->
                 // Bind items
@@ -118,7 +118,7 @@ public class AllAppsGridAdapter extends BaseAllAppsAdapter {
         public int getRowCountForAccessibility(RecyclerView.Recycler recycler,
                 RecyclerView.State state) {
             return super.getRowCountForAccessibility(recycler, state) -
-                    getRowsNotForAccessibility(mApps.getAdapterItems().size() - 1);
+                    getRowsNotForAccessibility(mApps.getBoundAdapterItems().size() - 1);
         }
 
         @Override
@@ -152,7 +152,7 @@ public class AllAppsGridAdapter extends BaseAllAppsAdapter {
          * which should not be counted towards the collection info.
          */
         private int getRowsNotForAccessibility(int adapterPosition) {
-            List<AdapterItem> items = mApps.getAdapterItems();
+            List<AdapterItem> items = mApps.getBoundAdapterItems();
             adapterPosition = Math.max(adapterPosition, items.size() - 1);
             int extraRows = 0;
             for (int i = 0; i <= adapterPosition && i < items.size(); i++) {
@@ -173,7 +173,7 @@ public class AllAppsGridAdapter extends BaseAllAppsAdapter {
 
         @Override
         protected int incrementTotalHeight(Adapter adapter, int position, int heightUntilLastPos) {
-            AllAppsGridAdapter.AdapterItem item = mApps.getAdapterItems().get(position);
+            AllAppsGridAdapter.AdapterItem item = mApps.getBoundAdapterItems().get(position);
             // only account for the first icon in the row since they are the same size within a row
             return (isIconViewType(item.viewType) && item.rowAppIndex != 0)
                     ? heightUntilLastPos
@@ -206,7 +206,7 @@ public class AllAppsGridAdapter extends BaseAllAppsAdapter {
         @Override
         public int getSpanSize(int position) {
             int totalSpans = mGridLayoutMgr.getSpanCount();
-            List<AdapterItem> items = mApps.getAdapterItems();
+            List<AdapterItem> items = mApps.getBoundAdapterItems();
             if (position >= items.size()) {
                 return totalSpans;
             }
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.launcher3.allapps
+
+import androidx.recyclerview.widget.LinearLayoutManager
+import androidx.recyclerview.widget.RecyclerView
+import com.android.launcher3.allapps.BaseAllAppsAdapter.AdapterItem
+import com.android.launcher3.icons.IconCache.ItemInfoUpdateReceiver
+import com.android.launcher3.icons.cache.CacheLookupFlag
+import com.android.launcher3.icons.cache.CacheLookupFlag.Companion.DEFAULT_LOOKUP_FLAG
+import com.android.launcher3.model.data.AppInfo
+import java.util.Collections
+import java.util.IdentityHashMap
+import kotlin.math.abs
+import kotlin.math.ceil
+import kotlin.math.sign
+
+/**
+ * Loads the high-res icons of the all apps rows about to scroll into view, so that they are ready
+ * when bound instead of showing low-res placeholders during a fling. The number of rows loaded
+ * ahead follows the scroll velocity, up to [maxRows].
+ */
+class AllAppsIconPrefetcher(private val iconLoader: IconLoader) : RecyclerView.OnScrollListener() {
+
+    /** Loads the icon of [info] with [lookupFlag] in the background, then notifies [receiver] */
+    fun interface IconLoader {
+        fun load(info: AppInfo, lookupFlag: CacheLookupFlag, receiver: ItemInfoUpdateReceiver)
+    }
+
+    /** Maximum number of rows loaded ahead of the visible ones */
+    var maxRows = DEFAULT_MAX_ROWS
+
+    /** Number of frames of scrolling at the current velocity that should be covered */
+    var lookaheadFrames = DEFAULT_LOOKAHEAD_FRAMES
+
+    /** Flag the bound icons expect, see BubbleTextView.getHighResLookupFlag */
+    var lookupFlag: CacheLookupFlag = DEFAULT_LOOKUP_FLAG
+
+    private val pendingInfos = Collections.newSetFromMap(IdentityHashMap<AppInfo, Boolean>())
+
+    override fun onScrolled(recyclerView: RecyclerView, dx: Int, dy: Int) {
+        if (dy == 0) return
+        val items = (recyclerView as? AllAppsRecyclerView)?.apps?.adapterItems ?: return
+        val layoutManager = recyclerView.layoutManager as? LinearLayoutManager ?: return
+        val edgePosition =
+            if (dy > 0) layoutManager.findLastVisibleItemPosition()
+            else layoutManager.findFirstVisibleItemPosition()
+        val rowHeight = layoutManager.findViewByPosition(edgePosition)?.height ?: return
+        prefetch(items, edgePosition, dy.sign, getRowsAhead(abs(dy), rowHeight))
+    }
+
+    /** Returns how many rows to load ahead when scrolling [distancePerFrame] pixels per frame */
+    fun getRowsAhead(distancePerFrame: Int, rowHeight: Int): Int {
+        if (rowHeight <= 0) return maxRows
+        val rows = ceil(distancePerFrame * lookaheadFrames / rowHeight.toFloat()).toInt()
+        return rows.coerceIn(1, maxRows)
+    }
+
+    /**
+     * Loads the high-res icons of the [rows] app rows following [edgePosition] in [direction],
+     * skipping the ones already being loaded.
+     */
+    fun prefetch(items: List<AdapterItem>, edgePosition: Int, direction: Int, rows: Int) {
+        var lastRow = items.getOrNull(edgePosition)?.takeIf { it.itemInfo != null }?.rowIndex
+        var rowsLeft = rows
+        var position = edgePosition + direction
+        while (position in items.indices) {
+            val item = items[position]
+            position += direction
+            val info = item.itemInfo ?: continue
+            if (item.rowIndex != lastRow) {
+                if (rowsLeft-- == 0) return
+                lastRow = item.rowIndex
+            }
+            if (info.matchingLookupFlag.isVisuallyLessThan(lookupFlag) && pendingInfos.add(info)) {
+                iconLoader.load(info, lookupFlag) { pendingInfos.remove(info) }
+            }
+        }
+    }
+
+    companion object {
+        const val DEFAULT_MAX_ROWS = 8
+        const val DEFAULT_LOOKAHEAD_FRAMES = 6
+    }
+}
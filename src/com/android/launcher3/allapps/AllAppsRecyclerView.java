@@ -43,12 +43,14 @@ import androidx.constraintlayout.widget.ConstraintSet;
 import androidx.core.util.Consumer;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.android.launcher3.BubbleTextView;
 import com.android.launcher3.ExtendedEditText;
 import com.android.launcher3.FastScrollRecyclerView;
 import com.android.launcher3.Flags;
 import com.android.launcher3.LauncherAppState;
 import com.android.launcher3.R;
 import com.android.launcher3.Utilities;
+import com.android.launcher3.icons.IconCache;
 import com.android.launcher3.logging.StatsLogManager;
 import com.android.launcher3.views.ActivityContext;
 
@@ -69,6 +71,7 @@ public class AllAppsRecyclerView extends FastScrollRecyclerView {
     private final AllAppsFastScrollHelper mFastScrollHelper;
     private int mCumulativeVerticalScroll;
     private ConstraintLayout mLetterList;
+    private final AllAppsIconPrefetcher mIconPrefetcher;
 
     protected AlphabeticalAppsList mApps;
 
@@ -89,6 +92,19 @@ public class AllAppsRecyclerView extends FastScrollRecyclerView {
         super(context, attrs, defStyleAttr);
         mNumAppsPerRow = LauncherAppState.getIDP(context).numColumns;
         mFastScrollHelper = new AllAppsFastScrollHelper(this);
+
+        IconCache iconCache = LauncherAppState.getInstance(context).getIconCache();
+        mIconPrefetcher = new AllAppsIconPrefetcher(
+                (info, lookupFlag, receiver) ->
+                        iconCache.updateIconInBackground(receiver, info, lookupFlag));
+        addOnScrollListener(mIconPrefetcher);
+    }
+
+    /**
+     * Returns the prefetcher loading the icons ahead of scrolling, to tune its budget.
+     */
+    public AllAppsIconPrefetcher getIconPrefetcher() {
+        return mIconPrefetcher;
     }
 
     /**
@@ -204,7 +220,7 @@ public class AllAppsRecyclerView extends FastScrollRecyclerView {
         if (mApps == null) {
             return;
         }
-        List<AllAppsGridAdapter.AdapterItem> items = mApps.getAdapterItems();
+        List<AllAppsGridAdapter.AdapterItem> items = mApps.getBoundAdapterItems();
 
         // Skip early if there are no items or we haven't been measured
         if (items.isEmpty() || mNumAppsPerRow == 0 || getChildCount() == 0) {
@@ -281,6 +297,9 @@ public class AllAppsRecyclerView extends FastScrollRecyclerView {
 
     @Override
     public void onChildAttachedToWindow(@NonNull View child) {
+        if (child instanceof BubbleTextView btv) {
+            mIconPrefetcher.setLookupFlag(btv.getHighResLookupFlag());
+        }
         if (mChildAttachedConsumer != null) {
             mChildAttachedConsumer.accept(child);
         }
@@ -24,7 +24,8 @@ import static com.android.launcher3.allapps.SectionDecorationInfo.ROUND_BOTTOM_R
 import static com.android.launcher3.allapps.SectionDecorationInfo.ROUND_NOTHING;
 import static com.android.launcher3.logging.StatsLogManager.LauncherEvent.LAUNCHER_PRIVATE_SPACE_PREINSTALLED_APPS_COUNT;
 import static com.android.launcher3.logging.StatsLogManager.LauncherEvent.LAUNCHER_PRIVATE_SPACE_USER_INSTALLED_APPS_COUNT;
-import static com.neoapps.neolauncher.util.OmegaUtilsKt.getAllAppsComparator;
+import static com.android.launcher3.util.Executors.MAIN_EXECUTOR;
+import static com.android.launcher3.util.Executors.UI_HELPER_EXECUTOR;
 
 import android.content.Context;
 import android.text.Spannable;
@@ -48,12 +49,12 @@ import com.android.launcher3.model.data.ItemInfo;
 import com.android.launcher3.util.ComponentKey;
 import com.android.launcher3.util.LabelComparator;
 import com.android.launcher3.views.ActivityContext;
+import com.neoapps.neolauncher.allapps.AppOrderCache;
 import com.neoapps.neolauncher.groups.category.DrawerFolderInfo;
 import com.neoapps.neolauncher.preferences.NeoPrefs;
 
 import java.io.PrintWriter;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -72,6 +73,9 @@ public class AlphabeticalAppsList implements AllAppsStore.OnUpdateListener {
     public static final String TAG = "AlphabeticalAppsList";
     public static final String PRIVATE_SPACE_PACKAGE = "com.android.privatespace";
 
+    // Diffs of smaller lists are cheap enough to be computed directly on the UI thread
+    private static final int MIN_ITEMS_FOR_ASYNC_DIFF = 100;
+
     private final WorkProfileManager mWorkProviderManager;
 
     private final PrivateProfileManager mPrivateProviderManager;
@@ -109,17 +113,25 @@ public class AlphabeticalAppsList implements AllAppsStore.OnUpdateListener {
 
     // The number of results in current adapter
     private int mAccessibilityResultsCount = 0;
-    // The current set of adapter items
+    // The adapter items and fast scroller sections being built by updateAdapterItems()
     private final ArrayList<AdapterItem> mAdapterItems = new ArrayList<>();
-    // The set of sections that we allow fast-scrolling to (includes non-merged sections)
     private final List<FastScrollSectionInfo> mFastScrollerSections = new ArrayList<>();
+    // The current set of adapter items, as last dispatched to the adapter
+    private ArrayList<AdapterItem> mBoundAdapterItems = new ArrayList<>();
+    // The set of sections that we allow fast-scrolling to (includes non-merged sections)
+    private List<FastScrollSectionInfo> mBoundFastScrollerSections = new ArrayList<>();
+    // Binds the update whose diff is being computed in the background and dispatches it, cleared
+    // once bound or superseded by a newer update
+    @Nullable
+    private Runnable mPendingBind;
 
     // The of ordered component names as a result of a search query
     private final ArrayList<AdapterItem> mSearchResults = new ArrayList<>();
     private final SpannableString mPrivateProfileAppScrollerBadge;
     private final SpannableString mPrivateProfileDividerBadge;
     private BaseAllAppsAdapter mAdapter;
-    private Comparator mAppNameComparator;
+    @Nullable
+    private final AppOrderCache mAppOrderCache;
     private int mNumAppsPerRowAllApps;
     private int mNumAppRowsInAdapter;
     private Predicate<ItemInfo> mItemFilter;
@@ -144,7 +156,7 @@ public class AlphabeticalAppsList implements AllAppsStore.OnUpdateListener {
         prefs = NeoPrefs.getInstance();
 
         Context context = activityContext.asContext();
-        mAppNameComparator = getAllAppsComparator(context, prefs.getDrawerSortMode().getValue());
+        mAppOrderCache = appsStore != null ? AppOrderCache.INSTANCE.get(context) : null;
         mWorkProviderManager = workProfileManager;
         mPrivateProviderManager = privateProfileManager;
         mNumAppsPerRowAllApps = mActivityContext.getDeviceProfile().numShownAllAppsColumns;
@@ -183,33 +195,44 @@ public class AlphabeticalAppsList implements AllAppsStore.OnUpdateListener {
      * Returns fast scroller sections of all the current filtered applications.
      */
     public List<FastScrollSectionInfo> getFastScrollerSections() {
-        return mFastScrollerSections;
+        return mBoundFastScrollerSections;
     }
 
     /**
-     * Returns the current filtered list of applications broken down into their sections.
+     * Returns the current filtered list of applications broken down into their sections. An update
+     * whose diff is still computed in the background is bound first, so that the result always
+     * reflects the latest update, along with the adapter.
      */
     public List<AdapterItem> getAdapterItems() {
-        return mAdapterItems;
+        bindPendingUpdate();
+        return mBoundAdapterItems;
+    }
+
+    /**
+     * Returns the adapter items as last dispatched to the adapter, without binding any pending
+     * update. Used by the adapter and its recycler view, which must match the dispatched updates.
+     */
+    List<AdapterItem> getBoundAdapterItems() {
+        return mBoundAdapterItems;
     }
 
     /**
      * Returns the child adapter item with IME launch focus.
      */
     public AdapterItem getFocusedChild() {
-        if (mAdapterItems.size() == 0 || getFocusedChildIndex() == -1) {
-            return null;
-        }
-        return mAdapterItems.get(getFocusedChildIndex());
+        List<AdapterItem> items = getAdapterItems();
+        int index = getFocusedChildIndex();
+        return index == -1 ? null : items.get(index);
     }
 
     /**
      * Returns the index of the child with IME launch focus.
      */
     public int getFocusedChildIndex() {
-        for (AdapterItem item : mAdapterItems) {
-            if (item.isCountedForAccessibility()) {
-                return mAdapterItems.indexOf(item);
+        List<AdapterItem> items = getAdapterItems();
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i).isCountedForAccessibility()) {
+                return i;
             }
         }
         return -1;
@@ -262,15 +285,14 @@ public class AlphabeticalAppsList implements AllAppsStore.OnUpdateListener {
                 mPrivateProviderManager.getAnimationRunning())) {
             return;
         }
-        // Sort the list of apps
         mApps.clear();
         mPrivateApps.clear();
-        mAppNameComparator = getAllAppsComparator(mActivityContext.asContext(), prefs.getDrawerSortMode().getValue());
+        // The sorted order is shared by all tabs, each of them only filters it.
+        List<AppInfo> sortedApps = mAppOrderCache.getSortedApps(mAllAppsStore.getApps());
 
         // Filter against private space app that may show outside of Private Profile.
-        Stream<AppInfo> appSteam = Stream.of(mAllAppsStore.getApps()).filter(
-                info -> !isPrivateSpaceApp(info));
-        Stream<AppInfo> privateAppStream = Stream.of(mAllAppsStore.getApps());
+        Stream<AppInfo> appSteam = sortedApps.stream().filter(info -> !isPrivateSpaceApp(info));
+        Stream<AppInfo> privateAppStream = sortedApps.stream();
 
         if (prefs.getDrawerEnableFolders().getValue()) {
             Set<ComponentKey> folderFilteredApps = getFolderFilteredApps();
@@ -286,8 +308,6 @@ public class AlphabeticalAppsList implements AllAppsStore.OnUpdateListener {
                         .filter(mPrivateProviderManager.getItemInfoMatcher());
             }
         }
-        appSteam = appSteam.sorted(mAppNameComparator);
-        privateAppStream = privateAppStream.sorted(mAppNameComparator);
 
         // As a special case for some languages (currently only Simplified Chinese), we may need to
         // coalesce sections
@@ -318,12 +338,10 @@ public class AlphabeticalAppsList implements AllAppsStore.OnUpdateListener {
      * mCachedSectionNames to have been calculated for the set of all apps in mApps.
      */
     public void updateAdapterItems() {
-        List<AdapterItem> oldItems = new ArrayList<>(mAdapterItems);
         // Prepare to update the list of sections, filtered apps, etc.
         mFastScrollerSections.clear();
         Log.d(TAG, "Clearing FastScrollerSections.");
         mAdapterItems.clear();
-        mAccessibilityResultsCount = 0;
 
         // Recreate the filtered and sectioned apps (for convenience for the grid layout) from the
         // ordered set of sections
@@ -360,8 +378,9 @@ public class AlphabeticalAppsList implements AllAppsStore.OnUpdateListener {
                 Log.d(TAG, "Adding FastScrollSection duplicate to scroll to the bottom.");
             }
         }
-        mAccessibilityResultsCount = (int) mAdapterItems.stream()
+        int accessibilityResultsCount = (int) mAdapterItems.stream()
                 .filter(AdapterItem::isCountedForAccessibility).count();
+        int numAppRowsInAdapter = mNumAppRowsInAdapter;
 
         if (mNumAppsPerRowAllApps != 0) {
             // Update the number of rows in the adapter after we do all the merging (otherwise, we
@@ -386,12 +405,68 @@ public class AlphabeticalAppsList implements AllAppsStore.OnUpdateListener {
                     numAppsInRow++;
                 }
             }
-            mNumAppRowsInAdapter = rowIndex + 1;
+            numAppRowsInAdapter = rowIndex + 1;
+        }
+
+        ArrayList<AdapterItem> newItems = new ArrayList<>(mAdapterItems);
+        List<FastScrollSectionInfo> newSections = new ArrayList<>(mFastScrollerSections);
+        int numAppRows = numAppRowsInAdapter;
+        Runnable bindItems = () -> {
+            mBoundAdapterItems = newItems;
+            mBoundFastScrollerSections = newSections;
+            mAccessibilityResultsCount = accessibilityResultsCount;
+            mNumAppRowsInAdapter = numAppRows;
+        };
+        mPendingBind = null;
+        ArrayList<AdapterItem> oldItems = mBoundAdapterItems;
+        BaseAllAppsAdapter adapter = mAdapter;
+        Runnable bindAndDiff = () -> {
+            bindItems.run();
+            if (adapter != null) {
+                DiffUtil.calculateDiff(new MyDiffCallback(oldItems, newItems), false)
+                        .dispatchUpdatesTo(adapter);
+            }
+        };
+        if (adapter == null || oldItems.isEmpty() || newItems.isEmpty()
+                || oldItems.size() + newItems.size() < MIN_ITEMS_FOR_ASYNC_DIFF) {
+            bindAndDiff.run();
+            return;
         }
+        // Callers reading the items before the diff is done bind it on the UI thread instead
+        mPendingBind = bindAndDiff;
+
+        // Similar to AsyncListDiffer, compute the diff in the background and only bind the new
+        // items along with the diff, so that the adapter never observes a partial update.
+        List<AdapterItem> oldSnapshot = new ArrayList<>(oldItems);
+        UI_HELPER_EXECUTOR.execute(() -> {
+            DiffUtil.DiffResult result =
+                    DiffUtil.calculateDiff(new MyDiffCallback(oldSnapshot, newItems), false);
+            MAIN_EXECUTOR.execute(() -> {
+                if (mPendingBind != bindAndDiff) {
+                    // A newer update was posted, or this one was already bound, in the meantime
+                    return;
+                }
+                mPendingBind = null;
+                bindItems.run();
+                if (mBoundAdapterItems != newItems || adapter != mAdapter) {
+                    return;
+                }
+                if (oldItems.size() != oldSnapshot.size()) {
+                    // The bound items were modified directly while the diff was computed
+                    adapter.notifyDataSetChanged();
+                } else {
+                    result.dispatchUpdatesTo(adapter);
+                }
+            });
+        });
+    }
 
-        if (mAdapter != null) {
-            DiffUtil.calculateDiff(new MyDiffCallback(oldItems, mAdapterItems), false)
-                    .dispatchUpdatesTo(mAdapter);
+    /** Binds the update whose diff is still computed in the background, if any */
+    private void bindPendingUpdate() {
+        Runnable pendingBind = mPendingBind;
+        if (pendingBind != null) {
+            mPendingBind = null;
+            pendingBind.run();
         }
     }
 
@@ -621,9 +696,10 @@ public class AlphabeticalAppsList implements AllAppsStore.OnUpdateListener {
     }
 
     public void dump(String prefix, PrintWriter writer) {
-        writer.println(prefix + "SectionInfo[] size: " + mFastScrollerSections.size());
-        for (int i = 0; i < mFastScrollerSections.size(); i++) {
-            writer.println("\tFastScrollSection: " + mFastScrollerSections.get(i).sectionName);
+        writer.println(prefix + "SectionInfo[] size: " + mBoundFastScrollerSections.size());
+        for (int i = 0; i < mBoundFastScrollerSections.size(); i++) {
+            writer.println("\tFastScrollSection: "
+                    + mBoundFastScrollerSections.get(i).sectionName);
         }
     }
 
@@ -291,7 +291,7 @@ public abstract class BaseAllAppsAdapter
         switch (holder.getItemViewType()) {
             case VIEW_TYPE_PRIVATE_SPACE_APP_ICON:
             case VIEW_TYPE_ICON: {
-                AdapterItem adapterItem = mApps.getAdapterItems().get(position);
+                AdapterItem adapterItem = mApps.getBoundAdapterItems().get(position);
                 BubbleTextView icon = (BubbleTextView) holder.itemView;
                 icon.reset();
                 icon.applyFromApplicationInfo(adapterItem.itemInfo);
@@ -335,7 +335,7 @@ public abstract class BaseAllAppsAdapter
                 break;
             }
             case VIEW_TYPE_EMPTY_SEARCH: {
-                AppInfo info = mApps.getAdapterItems().get(position).itemInfo;
+                AppInfo info = mApps.getBoundAdapterItems().get(position).itemInfo;
                 if (info != null) {
                     ((TextView) holder.itemView).setText(mActivityContext.asContext().getString(
                             R.string.all_apps_no_search_results, info.title));
@@ -344,7 +344,7 @@ public abstract class BaseAllAppsAdapter
             }
             case VIEW_TYPE_FOLDER:
                 ViewGroup container = (ViewGroup) holder.itemView;
-                FolderIcon folderIcon = mApps.getAdapterItems().get(position)
+                FolderIcon folderIcon = mApps.getBoundAdapterItems().get(position)
                         .folderItem.getFolderIcon((Launcher) mActivityContext.asContext(), container);
 
                 container.removeAllViews();
@@ -354,7 +354,7 @@ public abstract class BaseAllAppsAdapter
                 RelativeLayout psHeaderLayout = holder.itemView.findViewById(
                         R.id.ps_header_layout);
                 mApps.getPrivateProfileManager().bindPrivateSpaceHeaderViewElements(psHeaderLayout);
-                AdapterItem adapterItem = mApps.getAdapterItems().get(position);
+                AdapterItem adapterItem = mApps.getBoundAdapterItems().get(position);
                 int roundRegions = ROUND_TOP_LEFT | ROUND_TOP_RIGHT;
                 if (mApps.getPrivateProfileManager().getCurrentState() == STATE_DISABLED) {
                     roundRegions |= (ROUND_BOTTOM_LEFT | ROUND_BOTTOM_RIGHT);
@@ -363,7 +363,7 @@ public abstract class BaseAllAppsAdapter
                         new SectionDecorationInfo(mActivityContext.asContext(), roundRegions);
                 break;
             case VIEW_TYPE_PRIVATE_SPACE_SYS_APPS_DIVIDER:
-                adapterItem = mApps.getAdapterItems().get(position);
+                adapterItem = mApps.getBoundAdapterItems().get(position);
                 adapterItem.decorationInfo =
                         mApps.getPrivateProfileManager().getCurrentState() == STATE_DISABLED
                                 ? null
@@ -408,12 +408,12 @@ public abstract class BaseAllAppsAdapter
 
     @Override
     public int getItemCount() {
-        return mApps.getAdapterItems().size();
+        return mApps.getBoundAdapterItems().size();
     }
 
     @Override
     public int getItemViewType(int position) {
-        AdapterItem item = mApps.getAdapterItems().get(position);
+        AdapterItem item = mApps.getBoundAdapterItems().get(position);
         return item.viewType;
     }
 
@@ -43,10 +43,11 @@ public class PrivateAppsSectionDecorator extends RecyclerView.ItemDecoration {
         for (int i = 0; i < parent.getChildCount(); i++) {
             View view = parent.getChildAt(i);
             int position = parent.getChildAdapterPosition(view);
-            if (position < 0 || position >= mAppsList.getAdapterItems().size()) {
+            if (position < 0 || position >= mAppsList.getBoundAdapterItems().size()) {
                 continue;
             }
-            BaseAllAppsAdapter.AdapterItem adapterItem = mAppsList.getAdapterItems().get(position);
+            BaseAllAppsAdapter.AdapterItem adapterItem =
+                    mAppsList.getBoundAdapterItems().get(position);
             SectionDecorationInfo info = adapterItem.decorationInfo;
             if (info == null) {
                 continue;
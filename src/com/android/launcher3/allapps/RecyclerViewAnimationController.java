@@ -100,7 +100,7 @@ public class RecyclerViewAnimationController {
             }
             int adapterPosition = allAppsRecyclerView.getChildAdapterPosition(currentView);
             List<BaseAllAppsAdapter.AdapterItem> allAppsAdapters = allAppsRecyclerView.getApps()
-                    .getAdapterItems();
+                    .getBoundAdapterItems();
             if (adapterPosition < 0 || adapterPosition >= allAppsAdapters.size()) {
                 continue;
             }
@@ -140,7 +140,7 @@ public class RecyclerViewAnimationController {
 
                 // Apply background alpha to decorator if possible.
                 setAdjustedAdapterItemDecorationBackgroundAlpha(
-                        allAppsRecyclerView.getApps().getAdapterItems().get(adapterPosition),
+                        allAppsRecyclerView.getApps().getBoundAdapterItems().get(adapterPosition),
                         numItemsAnimated);
 
                 // Apply background alpha to view's background (e.g. for Search Edu card).
@@ -210,7 +210,7 @@ public class RecyclerViewAnimationController {
             child.setTranslationY(0);
             int adapterPosition = getRecyclerView().getChildAdapterPosition(child);
             List<BaseAllAppsAdapter.AdapterItem> allAppsAdapters =
-                    getRecyclerView().getApps().getAdapterItems();
+                    getRecyclerView().getApps().getBoundAdapterItems();
             if (adapterPosition >= 0 && adapterPosition < allAppsAdapters.size()) {
                 allAppsAdapters.get(adapterPosition).setDecorationFillAlpha(255);
             }
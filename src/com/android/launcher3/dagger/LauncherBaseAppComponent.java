@@ -41,6 +41,7 @@ import com.android.launcher3.logging.StatsLogManager;
 import com.android.launcher3.model.GridSizeMigrationLogic;
 import com.android.launcher3.model.ItemInstallQueue;
 import com.android.launcher3.model.LayoutParserFactory;
+import com.android.launcher3.model.LoaderTimelineRecorder;
 import com.android.launcher3.model.LoaderCursor.LoaderCursorFactory;
 import com.android.launcher3.model.TestableModelState;
 import com.android.launcher3.notification.NotificationRepository;
@@ -71,9 +72,12 @@ import com.android.launcher3.util.window.WindowManagerProxy;
 import com.android.launcher3.widget.LauncherWidgetHolder.WidgetHolderFactory;
 import com.android.launcher3.widget.custom.CustomWidgetManager;
 import com.android.launcher3.widget.util.WidgetSizeHandler;
+import com.neoapps.neolauncher.allapps.AppOrderCache;
 import com.neoapps.neolauncher.data.IconOverrideRepository;
 import com.neoapps.neolauncher.iconpack.IconPackProvider;
 import com.neoapps.neolauncher.icons.IconShapeManager;
+import com.neoapps.neolauncher.icons.LaunchComponentCache;
+import com.neoapps.neolauncher.util.AppListModel;
 import com.neoapps.neolauncher.util.CustomActivityCachingLogic;
 
 import javax.inject.Named;
@@ -119,6 +123,7 @@ public interface LauncherBaseAppComponent {
 
     FolderNameSuggestionLoader getFolderNameSuggestionLoader();
     LoaderCursorFactory getLoaderCursorFactory();
+    LoaderTimelineRecorder getLoaderTimelineRecorder();
     WidgetHolderFactory getWidgetHolderFactory();
     RefreshRateTracker getFrameRateProvider();
 
@@ -188,6 +193,12 @@ public interface LauncherBaseAppComponent {
 
     IconPackProvider getIconPackProvider();
 
+    AppOrderCache getAppOrderCache();
+
+    LaunchComponentCache getLaunchComponentCache();
+
+    AppListModel getAppListModel();
+
     /** Builder for LauncherBaseAppComponent. */
     interface Builder {
         @BindsInstance Builder appContext(@ApplicationContext Context context);
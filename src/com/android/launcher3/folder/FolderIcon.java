@@ -602,6 +602,7 @@ public class FolderIcon extends FrameLayout implements FloatingIconViewCompanion
     public void setFolderBackground(PreviewBackground bg) {
         mBackground = bg;
         mBackground.setInvalidateDelegate(this);
+        mPreviewItemManager.invalidatePreviewCache();
     }
 
     @Override
@@ -740,6 +741,15 @@ public class FolderIcon extends FrameLayout implements FloatingIconViewCompanion
         return mPreviewItemManager.verifyDrawable(who) || super.verifyDrawable(who);
     }
 
+    @Override
+    public void invalidateDrawable(@NonNull Drawable drawable) {
+        if (mPreviewItemManager.verifyDrawable(drawable)) {
+            // A preview item changed its own content, like the progress of a pending icon
+            mPreviewItemManager.invalidatePreviewCache();
+        }
+        super.invalidateDrawable(drawable);
+    }
+
     private void updatePreviewItems(boolean animate) {
         mPreviewItemManager.updatePreviewItems(animate);
         mCurrentPreviewItems.clear();
@@ -768,6 +778,7 @@ public class FolderIcon extends FrameLayout implements FloatingIconViewCompanion
     @Override
     public void onIconChanged() {
         applyTouchActions(mInfo);
+        mPreviewItemManager.invalidatePreviewCache();
 
         FrameLayout.LayoutParams lp = (FrameLayout.LayoutParams) mFolderName.getLayoutParams();
         DeviceProfile grid = mActivity.getDeviceProfile();
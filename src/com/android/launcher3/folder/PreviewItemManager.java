@@ -35,6 +35,7 @@ import android.graphics.Canvas;
 import android.graphics.Path;
 import android.graphics.PointF;
 import android.graphics.Rect;
+import android.graphics.RenderNode;
 import android.graphics.drawable.Drawable;
 import android.util.FloatProperty;
 import android.util.Log;
@@ -106,6 +107,12 @@ public class PreviewItemManager {
     private float mCurrentPageItemsTransX = 0;
     private boolean mShouldSlideInFirstPage;
 
+    // The resting preview is recorded once and replayed until its content key changes, so that
+    // invalidating the folder icon for scrolling or dot updates doesn't redraw every item.
+    private final RenderNode mPreviewNode = new RenderNode(TAG);
+    private int mPreviewKey;
+    private boolean mPreviewDirty = true;
+
     static final int INITIAL_ITEM_ANIMATION_DURATION = 350;
     private static final int FINAL_ITEM_ANIMATION_DURATION = 200;
 
@@ -119,6 +126,7 @@ public class PreviewItemManager {
         mIconSize = ActivityContext.lookupContext(
                 mContext).getDeviceProfile().getFolderProfile().getChildIconSizePx();
         mClipThreshold = dpToPx(1f);
+        mPreviewNode.setClipToBounds(false);
     }
 
     /**
@@ -205,6 +213,71 @@ public class PreviewItemManager {
      * Draws the preview items on {@param canvas}.
      */
     public void draw(Canvas canvas) {
+        if (!canvas.isHardwareAccelerated() || !canCachePreview()) {
+            drawPreview(canvas);
+            return;
+        }
+        PreviewBackground bg = mIcon.getFolderBackground();
+        int key = computePreviewKey(bg);
+        if (mPreviewDirty || key != mPreviewKey || !mPreviewNode.hasDisplayList()) {
+            // Re-record if the content changed or the display list was discarded because the
+            // icon was not drawn for a while.
+            mPreviewNode.setPosition(0, 0, mIcon.getWidth(), mIcon.getHeight());
+            Canvas recordingCanvas = mPreviewNode.beginRecording();
+            drawPreview(recordingCanvas);
+            mPreviewNode.endRecording();
+            mPreviewKey = key;
+            mPreviewDirty = false;
+        }
+        canvas.drawRenderNode(mPreviewNode);
+    }
+
+    /**
+     * Drops the recorded preview, so that it is redrawn from the preview items on the next frame.
+     */
+    public void invalidatePreviewCache() {
+        mPreviewDirty = true;
+    }
+
+    /**
+     * Returns true if the preview is at rest. Animating or clipped items change on every frame
+     * and are drawn directly.
+     */
+    private boolean canCachePreview() {
+        if (mShouldSlideInFirstPage && !mCurrentPageParams.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < mFirstPageParams.size(); i++) {
+            PreviewItemDrawingParams p = mFirstPageParams.get(i);
+            if (p.anim != null || p.index == EXIT_INDEX) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a hash of everything the resting preview depends on: the preview item drawables,
+     * their layout and the size of the folder icon.
+     */
+    private int computePreviewKey(PreviewBackground bg) {
+        int key = mIcon.getWidth();
+        key = 31 * key + mIcon.getHeight();
+        key = 31 * key + Float.floatToIntBits(mIntrinsicIconSize);
+        key = 31 * key + Float.floatToIntBits(bg.basePreviewOffsetX);
+        key = 31 * key + Float.floatToIntBits(bg.basePreviewOffsetY);
+        for (int i = 0; i < mFirstPageParams.size(); i++) {
+            PreviewItemDrawingParams p = mFirstPageParams.get(i);
+            key = 31 * key + System.identityHashCode(p.drawable);
+            key = 31 * key + (p.hidden ? 1 : 0);
+            key = 31 * key + Float.floatToIntBits(p.transX);
+            key = 31 * key + Float.floatToIntBits(p.transY);
+            key = 31 * key + Float.floatToIntBits(p.scale);
+        }
+        return key;
+    }
+
+    private void drawPreview(Canvas canvas) {
         int saveCount = canvas.getSaveCount();
         // The items are drawn in coordinates relative to the preview offset
         PreviewBackground bg = mIcon.getFolderBackground();
@@ -466,6 +539,7 @@ public class PreviewItemManager {
         }
 
         p.item = item;
+        mPreviewDirty = true;
         // Set the callback to FolderIcon as it is responsible to drawing the icon. The
         // callback will be released when the folder is opened.
         p.drawable.setCallback(mIcon);
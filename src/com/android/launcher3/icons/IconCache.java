@@ -44,6 +44,7 @@ import android.util.SparseArray;
 import androidx.annotation.AnyThread;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.UiThread;
 import androidx.annotation.VisibleForTesting;
 import androidx.core.util.Pair;
 
@@ -111,6 +112,8 @@ public class IconCache extends BaseIconCache {
 
     private int mPendingIconRequestCount = 0;
 
+    private final IconRequestScheduler mIconRequestScheduler;
+
     @Inject
     public IconCache(
             @ApplicationContext Context context,
@@ -134,6 +137,7 @@ public class IconCache extends BaseIconCache {
 
         mCancelledTask = new CancellableTask(() -> null, MAIN_EXECUTOR, c -> { });
         mCancelledTask.cancel();
+        mIconRequestScheduler = new IconRequestScheduler(workerHandler);
 
         lifecycle.addCloseable(this::close);
     }
@@ -160,6 +164,7 @@ public class IconCache extends BaseIconCache {
         mCancelledTask = new CancellableTask(() -> null, MAIN_EXECUTOR, c -> {
         });
         mCancelledTask.cancel();
+        mIconRequestScheduler = new IconRequestScheduler(workerHandler);
 
         lifecycle.addCloseable(this::close);
     }
@@ -239,22 +244,49 @@ public class IconCache extends BaseIconCache {
         }
 
         Runnable endRunnable;
+        IconRequestScheduler.Priority priority;
         if (Looper.myLooper() == Looper.getMainLooper()) {
             if (mPendingIconRequestCount <= 0) {
                 MODEL_EXECUTOR.elevatePriority(CALLER_ICON_CACHE);
             }
             mPendingIconRequestCount++;
             endRunnable = this::onIconRequestEnd;
+            priority = IconRequestScheduler.priorityOf(caller);
         } else {
             endRunnable = () -> { };
+            priority = IconRequestScheduler.Priority.PREFETCH;
         }
 
         CancellableTask<ItemInfoWithIcon> request = new CancellableTask<>(
                 task, MAIN_EXECUTOR, caller::reapplyItemInfo, endRunnable);
-        Utilities.postAsyncCallback(workerHandler, request);
+        mIconRequestScheduler.schedule(getIconRequestKey(info), caller, priority, request);
         return request;
     }
 
+    /**
+     * Updates the priority of the pending icon request of {@code caller}, for example when it
+     * scrolls in or out of the screen.
+     */
+    @UiThread
+    public void setIconRequestPriority(ItemInfoUpdateReceiver caller,
+            IconRequestScheduler.Priority priority) {
+        mIconRequestScheduler.setPriority(caller, priority);
+    }
+
+    public IconRequestScheduler getIconRequestScheduler() {
+        return mIconRequestScheduler;
+    }
+
+    /** Returns the key used to coalesce the icon requests loading the same entry */
+    @Nullable
+    private static Object getIconRequestKey(ItemInfoWithIcon info) {
+        if (info instanceof PackageItemInfo pii) {
+            return new PackageUserKey(pii.packageName, pii.user);
+        }
+        ComponentName cn = info.getTargetComponent();
+        return cn == null ? null : new ComponentKey(cn, info.user);
+    }
+
     private void onIconRequestEnd() {
         mPendingIconRequestCount--;
         if (mPendingIconRequestCount <= 0) {
@@ -451,8 +483,11 @@ public class IconCache extends BaseIconCache {
 
     /**
      * Load and fill icons requested in iconRequestInfos using a single bulk sql query.
+     *
+     * @return the number of components which were not found in the database and had to be loaded
+     *         through the fallback path
      */
-    public synchronized <T extends ItemInfoWithIcon> void getTitlesAndIconsInBulk(
+    public synchronized <T extends ItemInfoWithIcon> int getTitlesAndIconsInBulk(
             List<IconRequestInfo<T>> iconRequestInfos) {
         Map<Pair<UserHandle, CacheLookupFlag>, List<IconRequestInfo<T>>> iconLoadSubsectionsMap =
                 iconRequestInfos.stream()
@@ -471,6 +506,7 @@ public class IconCache extends BaseIconCache {
                                 Pair.create(iconRequest.itemInfo.user, iconRequest.lookupFlag)));
 
         Trace.beginSection("loadIconsInBulk");
+        int[] fallbackCount = new int[1];
         iconLoadSubsectionsMap.forEach((sectionKey, filteredList) -> {
             Map<ComponentName, List<IconRequestInfo<T>>> duplicateIconRequestsMap =
                     filteredList.stream()
@@ -489,13 +525,18 @@ public class IconCache extends BaseIconCache {
                                     iconRequest.itemInfo.getTargetComponent()));
 
             Trace.beginSection("loadIconSubsectionInBulk");
-            loadIconSubsection(sectionKey, filteredList, duplicateIconRequestsMap);
+            fallbackCount[0] +=
+                    loadIconSubsection(sectionKey, filteredList, duplicateIconRequestsMap);
             Trace.endSection();
         });
         Trace.endSection();
+        return fallbackCount[0];
     }
 
-    private <T extends ItemInfoWithIcon> void loadIconSubsection(
+    /**
+     * @return the number of components which had to be loaded through the fallback path
+     */
+    private <T extends ItemInfoWithIcon> int loadIconSubsection(
             Pair<UserHandle, CacheLookupFlag> sectionKey,
             List<IconRequestInfo<T>> filteredList,
             Map<ComponentName, List<IconRequestInfo<T>>> duplicateIconRequestsMap) {
@@ -538,6 +579,7 @@ public class IconCache extends BaseIconCache {
         }
 
         Trace.beginSection("loadIconSubsectionWithFallback");
+        int fallbackCount = 0;
         // Fallback title and icon loading
         for (ComponentName cn : duplicateIconRequestsMap.keySet()) {
             IconRequestInfo<T> iconRequestInfo = duplicateIconRequestsMap.get(cn).get(0);
@@ -549,6 +591,7 @@ public class IconCache extends BaseIconCache {
                     || icon == BitmapInfo.LOW_RES_INFO;
 
             if (loadFallbackTitle || loadFallbackIcon) {
+                fallbackCount++;
                 Log.i(TAG,
                         "Database bulk icon loading failed, using fallback bulk icon loading "
                                 + "for: " + cn);
@@ -587,6 +630,7 @@ public class IconCache extends BaseIconCache {
             }
         }
         Trace.endSection();
+        return fallbackCount;
     }
 
     /**
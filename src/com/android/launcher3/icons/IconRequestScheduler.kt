@@ -0,0 +1,222 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.launcher3.icons
+
+import android.os.Handler
+import android.os.SystemClock
+import android.view.View
+import com.android.launcher3.Utilities
+import com.android.launcher3.util.CancellableTask
+import java.io.PrintWriter
+import java.util.WeakHashMap
+import java.util.function.LongSupplier
+
+/**
+ * Runs the background icon requests of [IconCache] on [workerHandler], ordered by [Priority]
+ * instead of FIFO, so that icons on screen load before the ones prefetched or scrolled away.
+ *
+ * Requests for the same key are coalesced into a single queue entry: the first one loads the icon
+ * and the others are then served from the memory cache. A receiver has at most one pending request,
+ * scheduling another one for the same receiver cancels the previous one.
+ */
+class IconRequestScheduler
+@JvmOverloads
+constructor(
+    private val workerHandler: Handler,
+    private val clock: LongSupplier = LongSupplier { SystemClock.uptimeMillis() },
+) {
+
+    enum class Priority {
+        VISIBLE,
+        PREFETCH,
+        OFFSCREEN,
+    }
+
+    private val lock = Any()
+
+    // All guarded by lock
+    private val queues = Array(PRIORITY_COUNT) { ArrayDeque<Group>() }
+    private val groups = HashMap<Any, Group>()
+    private val pendingRequests = WeakHashMap<Any, Request>()
+    private var drainPosted = false
+    private var queueDepth = 0
+    private var maxQueueDepth = 0
+    private var cancelledCount = 0
+    private val completedCounts = IntArray(PRIORITY_COUNT)
+    private val totalLatencies = LongArray(PRIORITY_COUNT)
+    private val maxLatencies = LongArray(PRIORITY_COUNT)
+
+    private val drainRunnable = Runnable { runNextGroup() }
+
+    /** Number of requests waiting to run, including cancelled ones not drained yet */
+    fun getQueueDepth(): Int = synchronized(lock) { queueDepth }
+
+    /** Average time between scheduling and completing the requests run at [priority] */
+    fun getAverageLatencyMs(priority: Priority): Long =
+        synchronized(lock) {
+            val count = completedCounts[priority.ordinal]
+            if (count == 0) 0 else totalLatencies[priority.ordinal] / count
+        }
+
+    /**
+     * Schedules [task] on the worker thread. Requests with the same non-null [key] run back to
+     * back, at the highest priority of any of them.
+     */
+    fun schedule(key: Any?, receiver: Any, priority: Priority, task: CancellableTask<*>) {
+        val request = Request(receiver, task, priority, clock.asLong)
+        val replaced: Request?
+        synchronized(lock) {
+            replaced = pendingRequests.put(receiver, request)
+            val group =
+                key?.let { groups[it] } ?: Group(key).also { if (key != null) groups[key] = it }
+            group.requests.add(request)
+            request.group = group
+            queueDepth++
+            maxQueueDepth = maxOf(maxQueueDepth, queueDepth)
+            updateGroupPriorityLocked(group)
+            if (!drainPosted) {
+                drainPosted = true
+                Utilities.postAsyncCallback(workerHandler, drainRunnable)
+            }
+        }
+        // The receiver was rebound, its previous icon is not needed anymore
+        replaced?.task?.cancel()
+    }
+
+    /** Changes the priority of the pending request of [receiver], if any */
+    fun setPriority(receiver: Any, priority: Priority) {
+        synchronized(lock) {
+            val request = pendingRequests[receiver] ?: return
+            val group = request.group ?: return
+            if (request.priority != priority) {
+                request.priority = priority
+                updateGroupPriorityLocked(group)
+            }
+        }
+    }
+
+    private fun updateGroupPriorityLocked(group: Group) {
+        var priority = Priority.OFFSCREEN
+        for (request in group.requests) {
+            if (request.priority < priority) priority = request.priority
+        }
+        if (priority != group.priority) {
+            group.priority = priority
+            // The entry left in the previous queue is skipped when polled
+            queues[priority.ordinal].addLast(group)
+        }
+    }
+
+    private fun pollLocked(): Group? {
+        for (i in queues.indices) {
+            val queue = queues[i]
+            while (queue.isNotEmpty()) {
+                val group = queue.removeFirst()
+                if (!group.done && group.priority?.ordinal == i) return group
+            }
+        }
+        return null
+    }
+
+    private fun runNextGroup() {
+        val group: Group
+        synchronized(lock) {
+            group =
+                pollLocked()
+                    ?: run {
+                        drainPosted = false
+                        return
+                    }
+            group.done = true
+            if (group.key != null) groups.remove(group.key)
+            for (request in group.requests) {
+                request.group = null
+                if (pendingRequests[request.receiver] === request) {
+                    pendingRequests.remove(request.receiver)
+                }
+            }
+        }
+
+        for (request in group.requests) {
+            request.task.run()
+            val latency = clock.asLong - request.scheduledTime
+            synchronized(lock) {
+                queueDepth--
+                if (request.task.canceled) {
+                    cancelledCount++
+                } else {
+                    val index = request.priority.ordinal
+                    completedCounts[index]++
+                    totalLatencies[index] += latency
+                    maxLatencies[index] = maxOf(maxLatencies[index], latency)
+                }
+            }
+        }
+
+        // Post the next group separately, so that other work on the thread can interleave
+        Utilities.postAsyncCallback(workerHandler, drainRunnable)
+    }
+
+    fun dump(prefix: String, writer: PrintWriter) {
+        synchronized(lock) {
+            writer.println("${prefix}IconRequestScheduler:")
+            writer.println("$prefix  queueDepth=$queueDepth maxQueueDepth=$maxQueueDepth")
+            writer.println("$prefix  cancelled=$cancelledCount")
+            for (priority in Priority.entries) {
+                val index = priority.ordinal
+                val count = completedCounts[index]
+                writer.println(
+                    "$prefix  $priority: completed=$count" +
+                        " avgLatencyMs=${if (count == 0) 0 else totalLatencies[index] / count}" +
+                        " maxLatencyMs=${maxLatencies[index]}"
+                )
+            }
+        }
+    }
+
+    private class Request(
+        val receiver: Any,
+        val task: CancellableTask<*>,
+        var priority: Priority,
+        val scheduledTime: Long,
+    ) {
+        // Group waiting to run this request, null once it was polled
+        var group: Group? = null
+    }
+
+    private class Group(val key: Any?) {
+        val requests = ArrayList<Request>(1)
+        // Queue the group is currently in
+        var priority: Priority? = null
+        var done = false
+    }
+
+    companion object {
+        private val PRIORITY_COUNT = Priority.entries.size
+
+        /** Returns the priority of a request from [receiver], must be called on the main thread */
+        @JvmStatic
+        fun priorityOf(receiver: Any): Priority =
+            when {
+                receiver !is View -> Priority.PREFETCH
+                // Recycler views are bound before they are attached
+                !receiver.isAttachedToWindow -> Priority.PREFETCH
+                receiver.isShown -> Priority.VISIBLE
+                else -> Priority.OFFSCREEN
+            }
+    }
+}
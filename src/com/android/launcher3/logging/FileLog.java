@@ -18,6 +18,7 @@ import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.PrintWriter;
 import java.text.DateFormat;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.concurrent.CountDownLatch;
@@ -25,7 +26,9 @@ import java.util.concurrent.TimeUnit;
 
 /**
  * Wrapper around {@link Log} to allow writing to a file.
- * This class can safely be called from main thread.
+ * This class can safely be called from main thread. Logs are only recorded into a ring of pending
+ * entries by the caller, they are formatted and written to the disk in batches on a background
+ * thread.
  *
  * Note: This should only be used for logging errors which have a persistent effect on user's data,
  * but whose effect may not be visible immediately.
@@ -39,6 +42,16 @@ public final class FileLog {
 
     private static final long MAX_LOG_FILE_SIZE = 8 << 20;  // 4 mb
 
+    // Number of entries that can be pending before the oldest ones get dropped
+    private static final int RING_SIZE = 512;
+    // Pending entries are written at most this long after the first of them was printed
+    private static final long WRITE_DELAY = 500;
+
+    private static final Object sLock = new Object();
+    // Guarded by sLock
+    private static LogRing sPending = new LogRing(RING_SIZE);
+    private static boolean sWriteScheduled = false;
+
     private static Handler sHandler = null;
     private static File sLogsDirectory = null;
 
@@ -51,6 +64,11 @@ public final class FileLog {
                 if (sHandler != null && !logsDir.equals(sLogsDirectory)) {
                     ((HandlerThread) sHandler.getLooper().getThread()).quit();
                     sHandler = null;
+                    synchronized (sLock) {
+                        // The scheduled write was dropped with the thread, pending entries are
+                        // written to the new directory instead
+                        sWriteScheduled = false;
+                    }
                 }
             }
         }
@@ -105,11 +123,22 @@ public final class FileLog {
         if (!ENABLED) {
             return;
         }
-        String out = String.format("%s %s %s", DATE_FORMAT.format(new Date()), tag, msg);
-        if (e != null) {
-            out += "\n" + Log.getStackTraceString(e);
+        long time = System.currentTimeMillis();
+        int pendingCount;
+        boolean scheduleWrite;
+        synchronized (sLock) {
+            pendingCount = sPending.add(time, tag, msg, e);
+            scheduleWrite = !sWriteScheduled;
+            sWriteScheduled = true;
+        }
+        if (scheduleWrite) {
+            getHandler().sendEmptyMessageDelayed(LogWriterCallback.MSG_WRITE, WRITE_DELAY);
+        } else if (pendingCount == RING_SIZE / 2) {
+            // Write right away before the ring starts dropping entries
+            Handler handler = getHandler();
+            handler.removeMessages(LogWriterCallback.MSG_WRITE);
+            handler.sendEmptyMessage(LogWriterCallback.MSG_WRITE);
         }
-        Message.obtain(getHandler(), LogWriterCallback.MSG_WRITE, out).sendToTarget();
     }
 
     @VisibleForTesting
@@ -155,56 +184,100 @@ public final class FileLog {
         private String mCurrentFileName = null;
         private PrintWriter mCurrentWriter = null;
 
+        // Swapped with the pending ring on every write
+        private LogRing mSpare = new LogRing(RING_SIZE);
+        private final Calendar mCalendar = Calendar.getInstance();
+        private final Date mDate = new Date();
+        private final StringBuilder mLine = new StringBuilder();
+
         private void closeWriter() {
             IOUtils.closeSilently(mCurrentWriter);
             mCurrentWriter = null;
         }
 
+        private void writePending() {
+            LogRing batch;
+            synchronized (sLock) {
+                batch = sPending;
+                sPending = mSpare;
+                sWriteScheduled = false;
+            }
+            mSpare = batch;
+            if (batch.size() == 0) {
+                return;
+            }
+
+            mCalendar.setTimeInMillis(System.currentTimeMillis());
+            // suffix with 0 or 1 based on the day of the year.
+            String fileName = FILE_NAME_PREFIX + (mCalendar.get(Calendar.DAY_OF_YEAR) % LOG_DAYS);
+
+            if (!fileName.equals(mCurrentFileName)) {
+                closeWriter();
+            }
+
+            try {
+                if (mCurrentWriter == null) {
+                    mCurrentFileName = fileName;
+
+                    boolean append = false;
+                    File logFile = new File(sLogsDirectory, fileName);
+                    if (logFile.exists()) {
+                        Calendar modifiedTime = Calendar.getInstance();
+                        modifiedTime.setTimeInMillis(logFile.lastModified());
+
+                        // If the file was modified more that 36 hours ago, purge the file.
+                        // We use instead of 24 to account for day-365 followed by day-1
+                        modifiedTime.add(Calendar.HOUR, 36);
+                        append = mCalendar.before(modifiedTime)
+                                && logFile.length() < MAX_LOG_FILE_SIZE;
+                    }
+                    mCurrentWriter = new PrintWriter(new FileWriter(logFile, append));
+                }
+
+                if (batch.dropped() > 0) {
+                    mCurrentWriter.println("FileLog dropped " + batch.dropped() + " lines");
+                }
+                for (int i = 0; i < batch.size(); i++) {
+                    mCurrentWriter.println(formatLine(batch, batch.indexOf(i)));
+                }
+                mCurrentWriter.flush();
+
+                // Auto close file stream after some time.
+                sHandler.removeMessages(MSG_CLOSE);
+                sHandler.sendEmptyMessageDelayed(MSG_CLOSE, CLOSE_DELAY);
+            } catch (Exception e) {
+                Log.e("FileLog", "Error writing logs to file", e);
+                // Close stream, will try reopening during next log
+                closeWriter();
+            } finally {
+                batch.clear();
+            }
+        }
+
+        private String formatLine(LogRing batch, int index) {
+            mDate.setTime(batch.mTimes[index]);
+            mLine.setLength(0);
+            mLine.append(DATE_FORMAT.format(mDate))
+                    .append(' ').append(batch.mTags[index])
+                    .append(' ').append(batch.mMessages[index]);
+            if (batch.mErrors[index] != null) {
+                mLine.append('\n').append(Log.getStackTraceString(batch.mErrors[index]));
+            }
+            return mLine.toString();
+        }
+
         @Override
         public boolean handleMessage(Message msg) {
             if (sLogsDirectory == null || !ENABLED) {
+                synchronized (sLock) {
+                    // Keep the entries pending, the next log schedules another write
+                    sWriteScheduled = false;
+                }
                 return true;
             }
             switch (msg.what) {
                 case MSG_WRITE: {
-                    Calendar cal = Calendar.getInstance();
-                    // suffix with 0 or 1 based on the day of the year.
-                    String fileName = FILE_NAME_PREFIX + (cal.get(Calendar.DAY_OF_YEAR) % LOG_DAYS);
-
-                    if (!fileName.equals(mCurrentFileName)) {
-                        closeWriter();
-                    }
-
-                    try {
-                        if (mCurrentWriter == null) {
-                            mCurrentFileName = fileName;
-
-                            boolean append = false;
-                            File logFile = new File(sLogsDirectory, fileName);
-                            if (logFile.exists()) {
-                                Calendar modifiedTime = Calendar.getInstance();
-                                modifiedTime.setTimeInMillis(logFile.lastModified());
-
-                                // If the file was modified more that 36 hours ago, purge the file.
-                                // We use instead of 24 to account for day-365 followed by day-1
-                                modifiedTime.add(Calendar.HOUR, 36);
-                                append = cal.before(modifiedTime)
-                                        && logFile.length() < MAX_LOG_FILE_SIZE;
-                            }
-                            mCurrentWriter = new PrintWriter(new FileWriter(logFile, append));
-                        }
-
-                        mCurrentWriter.println((String) msg.obj);
-                        mCurrentWriter.flush();
-
-                        // Auto close file stream after some time.
-                        sHandler.removeMessages(MSG_CLOSE);
-                        sHandler.sendEmptyMessageDelayed(MSG_CLOSE, CLOSE_DELAY);
-                    } catch (Exception e) {
-                        Log.e("FileLog", "Error writing logs to file", e);
-                        // Close stream, will try reopening during next log
-                        closeWriter();
-                    }
+                    writePending();
                     return true;
                 }
                 case MSG_CLOSE: {
@@ -212,6 +285,7 @@ public final class FileLog {
                     return true;
                 }
                 case MSG_FLUSH: {
+                    writePending();
                     closeWriter();
                     Pair<PrintWriter, CountDownLatch> p =
                             (Pair<PrintWriter, CountDownLatch>) msg.obj;
@@ -229,6 +303,60 @@ public final class FileLog {
         }
     }
 
+    /**
+     * Fixed size ring of the entries waiting to be written. Once full, new entries replace the
+     * oldest ones.
+     */
+    private static final class LogRing {
+
+        final long[] mTimes;
+        final String[] mTags;
+        final String[] mMessages;
+        final Exception[] mErrors;
+
+        // Number of entries added since the last clear, never wrapped
+        private long mOmega = 0;
+
+        LogRing(int capacity) {
+            mTimes = new long[capacity];
+            mTags = new String[capacity];
+            mMessages = new String[capacity];
+            mErrors = new Exception[capacity];
+        }
+
+        /** Adds an entry and returns the number of entries in the ring */
+        int add(long time, String tag, String msg, Exception e) {
+            int index = (int) (mOmega % mTimes.length);
+            mTimes[index] = time;
+            mTags[index] = tag;
+            mMessages[index] = msg;
+            mErrors[index] = e;
+            mOmega++;
+            return size();
+        }
+
+        int size() {
+            return (int) Math.min(mOmega, mTimes.length);
+        }
+
+        long dropped() {
+            return Math.max(0, mOmega - mTimes.length);
+        }
+
+        /** Returns the array index of the entry at {@code position}, 0 being the oldest */
+        int indexOf(int position) {
+            return (int) ((dropped() + position) % mTimes.length);
+        }
+
+        void clear() {
+            // Release the logged strings and exceptions
+            Arrays.fill(mTags, null);
+            Arrays.fill(mMessages, null);
+            Arrays.fill(mErrors, null);
+            mOmega = 0;
+        }
+    }
+
     private static void dumpFile(PrintWriter out, String fileName) {
         File logFile = new File(sLogsDirectory, fileName);
         if (logFile.exists()) {
@@ -47,6 +47,7 @@ import com.android.launcher3.util.ComponentKey;
 import com.android.launcher3.util.FlagOp;
 import com.android.launcher3.util.PackageManagerHelper;
 import com.neoapps.neolauncher.allapps.HiddenAppFilter;
+import com.neoapps.neolauncher.icons.LaunchComponentCache;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -324,6 +325,8 @@ public class AllAppsList {
         final PackageManagerHelper pmHelper = PackageManagerHelper.INSTANCE.get(context);
         final List<LauncherActivityInfo> matches = context.getSystemService(LauncherApps.class)
                 .getActivityList(packageName, user);
+        LaunchComponentCache.INSTANCE.get(context)
+                .setPackageActivities(packageName, user, matches);
 
         Map<ComponentName, LauncherActivityInfo> activityMap = matches.stream().collect(
                 Collectors.toMap(LauncherActivityInfo::getComponentName, lai -> lai));
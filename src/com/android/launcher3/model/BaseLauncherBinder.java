@@ -22,6 +22,7 @@ import static com.android.launcher3.util.Executors.MAIN_EXECUTOR;
 import android.content.Context;
 import android.os.Trace;
 import android.util.Log;
+import android.util.SparseArray;
 
 import com.android.launcher3.LauncherModel;
 import com.android.launcher3.LauncherModel.CallbackTask;
@@ -29,11 +30,14 @@ import com.android.launcher3.dagger.ApplicationContext;
 import com.android.launcher3.model.BgDataModel.Callbacks;
 import com.android.launcher3.model.BgDataModel.FixedContainerItems;
 import com.android.launcher3.model.data.AppsListData;
+import com.android.launcher3.model.data.ItemInfo;
 import com.android.launcher3.model.data.WorkspaceData;
+import com.android.launcher3.model.data.WorkspaceData.MutableWorkspaceData;
 import com.android.launcher3.util.LooperExecutor;
 import com.android.launcher3.util.LooperIdleLock;
 import com.android.launcher3.widget.model.WidgetsListBaseEntriesBuilder;
 import com.android.launcher3.widget.model.WidgetsListBaseEntry;
+import com.neoapps.neolauncher.allapps.AppOrderCache;
 
 import dagger.assisted.Assisted;
 import dagger.assisted.AssistedFactory;
@@ -111,12 +115,32 @@ public class BaseLauncherBinder {
         }
     }
 
+    /**
+     * Binds the first screen items while the rest of the workspace is still loading.
+     * {@link #bindWorkspace} must be called with the complete data afterwards.
+     */
+    public void bindFirstScreen(SparseArray<ItemInfo> items) {
+        Trace.beginSection("BaseLauncherBinder#bindFirstScreen");
+        try {
+            MutableWorkspaceData data = new MutableWorkspaceData();
+            data.replaceDataMap(items);
+            WorkspaceData itemsIdMap = data.copy();
+            for (Callbacks cb : mCallbacksList) {
+                cb.bindFirstScreenAsync(itemsIdMap);
+            }
+        } finally {
+            Trace.endSection();
+        }
+    }
+
     /**
      * Binds the all apps results from LoaderTask to the callbacks UX.
      */
     public void bindAllApps() {
         // shallow copy
         AppsListData data = mBgAllAppsList.getImmutableData();
+        // Sort the apps for the drawer here, so that the UI thread only needs to filter them
+        AppOrderCache.INSTANCE.get(mContext).prepare(data.getApps());
         executeCallbacksTask(c -> c.bindAllApplications(
                         data.getApps(), data.getFlags(), data.getPackageUserKeyToUidMap()),
                 mUiExecutor);
@@ -430,6 +430,13 @@ constructor(
 
         fun bindCompleteModel(itemIdMap: WorkspaceData, isBindingSync: Boolean) {}
 
+        /**
+         * Binds the first screen and hotseat while the rest of the workspace is still loading. It
+         * is always followed by [bindCompleteModelAsync] with the complete data, which can skip
+         * the items already bound here. The callback can be called on any thread.
+         */
+        @AnyThread fun bindFirstScreenAsync(itemIdMap: WorkspaceData) {}
+
         fun bindItemsAdded(items: List<@JvmSuppressWildcards ItemInfo>) {}
 
         /** Called when a runtime property of the ItemInfo is updated due to some system event */
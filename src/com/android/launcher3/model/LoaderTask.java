@@ -18,9 +18,24 @@ package com.android.launcher3.model;
 
 import static com.android.launcher3.Flags.enableLauncherBrMetricsFixed;
 import static com.android.launcher3.LauncherPrefs.IS_FIRST_LOAD_AFTER_RESTORE;
+import static com.android.launcher3.WorkspaceLayoutManager.FIRST_SCREEN_ID;
 import static com.android.launcher3.icons.CacheableShortcutInfo.convertShortcutsToCacheableShortcuts;
 import static com.android.launcher3.icons.cache.CacheLookupFlag.DEFAULT_LOOKUP_FLAG;
 import static com.android.launcher3.model.FirstScreenBroadcastHelper.DISABLE_INSTALLED_APPS_BROADCAST;
+import static com.android.launcher3.model.LoaderTimelineRecorder.PHASE_BIND_ALL_APPS;
+import static com.android.launcher3.model.LoaderTimelineRecorder.PHASE_BIND_FIRST_SCREEN;
+import static com.android.launcher3.model.LoaderTimelineRecorder.PHASE_BIND_WIDGETS;
+import static com.android.launcher3.model.LoaderTimelineRecorder.PHASE_BIND_WORKSPACE;
+import static com.android.launcher3.model.LoaderTimelineRecorder.PHASE_FINISH;
+import static com.android.launcher3.model.LoaderTimelineRecorder.PHASE_LOAD_ALL_APPS;
+import static com.android.launcher3.model.LoaderTimelineRecorder.PHASE_LOAD_SHORTCUTS;
+import static com.android.launcher3.model.LoaderTimelineRecorder.PHASE_LOAD_WIDGETS;
+import static com.android.launcher3.model.LoaderTimelineRecorder.PHASE_LOAD_WORKSPACE;
+import static com.android.launcher3.model.LoaderTimelineRecorder.PHASE_SANITIZE_DATA;
+import static com.android.launcher3.model.LoaderTimelineRecorder.PHASE_UPDATE_ICONS;
+import static com.android.launcher3.model.LoaderTimelineRecorder.PHASE_WAIT_ALL_APPS;
+import static com.android.launcher3.model.LoaderTimelineRecorder.PHASE_WAIT_SHORTCUTS;
+import static com.android.launcher3.model.LoaderTimelineRecorder.PHASE_WAIT_WORKSPACE;
 import static com.android.launcher3.model.ModelUtils.WIDGET_FILTER;
 import static com.android.launcher3.model.ModelUtils.currentScreenContentFilter;
 import static com.android.launcher3.model.data.AppsListData.FLAG_HAS_SHORTCUT_PERMISSION;
@@ -42,12 +57,15 @@ import android.content.pm.LauncherApps;
 import android.content.pm.PackageInstaller.SessionInfo;
 import android.content.pm.PackageManager;
 import android.content.pm.ShortcutInfo;
+import android.database.DatabaseUtils;
 import android.net.Uri;
 import android.os.Bundle;
 import android.os.Trace;
 import android.os.UserHandle;
+import android.text.TextUtils;
 import android.util.Log;
 import android.util.LongSparseArray;
+import android.util.SparseArray;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -58,6 +76,7 @@ import com.android.launcher3.Flags;
 import com.android.launcher3.InvariantDeviceProfile;
 import com.android.launcher3.LauncherModel;
 import com.android.launcher3.LauncherPrefs;
+import com.android.launcher3.LauncherSettings.Favorites;
 import com.android.launcher3.Utilities;
 import com.android.launcher3.backuprestore.LauncherRestoreEventLogger;
 import com.android.launcher3.dagger.ApplicationContext;
@@ -100,7 +119,9 @@ import com.android.launcher3.util.SettingsCache;
 import com.android.launcher3.util.TraceHelper;
 import com.android.launcher3.util.UserIconInfo;
 import com.android.launcher3.widget.WidgetInflater;
+import com.android.launcher3.widget.WidgetProviderCache;
 import com.android.launcher3.widget.util.WidgetSizeHandler;
+import com.neoapps.neolauncher.icons.LaunchComponentCache;
 import com.neoapps.neolauncher.util.CustomActivityCachingLogic;
 
 import java.util.ArrayList;
@@ -175,6 +196,8 @@ public class LoaderTask implements Runnable {
     private final kotlin.Lazy<Map<Uri, HomeScreenFile>> mHomeScreenFilesQueryResult;
     private final FirstScreenBroadcastHelper mFirstScreenBroadcastHelper;
     private final SettingsCache mSettingsCache;
+    private final LoaderTimelineRecorder mTimelineRecorder;
+    private LoaderTimelineRecorder.Timeline mTimeline;
 
     @AssistedInject
     protected LoaderTask(
@@ -198,7 +221,8 @@ public class LoaderTask implements Runnable {
             WorkspaceItemSpaceFinder workspaceItemSpaceFinder,
             HomeScreenFilesProvider homeScreenFilesProvider,
             FirstScreenBroadcastHelper firstScreenBroadcastHelper,
-            SettingsCache settingsCache) {
+            SettingsCache settingsCache,
+            LoaderTimelineRecorder timelineRecorder) {
         mContext = context;
         mIDP = idp;
         mModel = model;
@@ -223,6 +247,7 @@ public class LoaderTask implements Runnable {
         mHomeScreenFilesQueryResult = homeScreenFilesProvider.query();
         mFirstScreenBroadcastHelper = firstScreenBroadcastHelper;
         mSettingsCache = settingsCache;
+        mTimelineRecorder = timelineRecorder;
         mUserManagerState = mUserCache.getUserManagerState();
     }
 
@@ -280,6 +305,7 @@ public class LoaderTask implements Runnable {
             Trace.endSection();
         }
         logASplit("loadWorkspace finished");
+        mTimeline.split(PHASE_LOAD_WORKSPACE, mBgDataModel.itemsIdMap.size());
 
         // Sanitize data re-syncs widgets/shortcuts based on the workspace loaded from db.
         // sanitizeData should not be invoked if the workspace is loaded from a db different
@@ -292,11 +318,13 @@ public class LoaderTask implements Runnable {
             verifyNotStopped();
             sanitizeWidgetsShortcutsAndPackages();
             logASplit("sanitizeData finished");
+            mTimeline.split(PHASE_SANITIZE_DATA);
         }
 
         verifyNotStopped();
         mLauncherBinder.bindWorkspace(true /* incrementBindId */, /* isBindSync= */ false);
         logASplit("bindWorkspace finished");
+        mTimeline.split(PHASE_BIND_WORKSPACE);
 
         if (!mParams.getLoadNonWorkspaceItems()) {
             logASplit("Skipping remaining items");
@@ -310,6 +338,7 @@ public class LoaderTask implements Runnable {
         // Take a break
         waitForIdle();
         logASplit("step 1 loading workspace complete");
+        mTimeline.split(PHASE_WAIT_WORKSPACE);
         verifyNotStopped();
 
         // second step
@@ -321,10 +350,12 @@ public class LoaderTask implements Runnable {
             Trace.endSection();
         }
         logASplit("loadAllApps finished");
+        mTimeline.split(PHASE_LOAD_ALL_APPS, allActivityList.size());
 
         verifyNotStopped();
         mLauncherBinder.bindAllApps();
         logASplit("bindAllApps finished");
+        mTimeline.split(PHASE_BIND_ALL_APPS);
 
         verifyNotStopped();
         IconCacheUpdateHandler updateHandler = mIconCache.getUpdateHandler();
@@ -333,6 +364,7 @@ public class LoaderTask implements Runnable {
                 CustomActivityCachingLogic.INSTANCE.get(mContext),
                 mModel::onPackageIconsUpdated);
         logASplit("update AllApps icon cache finished");
+        mTimeline.split(PHASE_UPDATE_ICONS, allActivityList.size());
 
         verifyNotStopped();
         logASplit("saving all shortcuts in icon cache");
@@ -342,11 +374,13 @@ public class LoaderTask implements Runnable {
         // Take a break
         waitForIdle();
         logASplit("step 2 loading AllApps complete");
+        mTimeline.split(PHASE_WAIT_ALL_APPS);
         verifyNotStopped();
 
         // third step
         List<ShortcutInfo> allDeepShortcuts = loadDeepShortcuts();
         logASplit("loadDeepShortcuts finished");
+        mTimeline.split(PHASE_LOAD_SHORTCUTS, allDeepShortcuts.size());
 
         verifyNotStopped();
         logASplit("saving deep shortcuts in icon cache");
@@ -359,16 +393,19 @@ public class LoaderTask implements Runnable {
         // Take a break
         waitForIdle();
         logASplit("step 3 loading all shortcuts complete");
+        mTimeline.split(PHASE_WAIT_SHORTCUTS);
         verifyNotStopped();
 
         // fourth step
         WidgetsModel widgetsModel = mBgDataModel.widgetsModel;
         List<CachedObject> allWidgetsList = widgetsModel.update(/*packageUser=*/null);
         logASplit("load widgets finished");
+        mTimeline.split(PHASE_LOAD_WIDGETS, allWidgetsList.size());
 
         verifyNotStopped();
         mLauncherBinder.bindWidgets();
         logASplit("bindWidgets finished");
+        mTimeline.split(PHASE_BIND_WIDGETS);
         verifyNotStopped();
 
         logASplit("saving all widgets in icon cache");
@@ -382,6 +419,7 @@ public class LoaderTask implements Runnable {
         verifyNotStopped();
         updateHandler.finish();
         logASplit("finish icon update");
+        mTimeline.split(PHASE_FINISH);
 
         mModelDelegate.modelLoadComplete();
     }
@@ -397,6 +435,7 @@ public class LoaderTask implements Runnable {
         TraceHelper.INSTANCE.beginSection(TAG);
         MODEL_EXECUTOR.elevatePriority(CALLER_LOADER_TASK);
         LoaderMemoryLogger memoryLogger = new LoaderMemoryLogger();
+        mTimeline = mTimelineRecorder.newTimeline();
         mIsRestoreFromBackup =
                 LauncherPrefs.get(mContext).get(IS_FIRST_LOAD_AFTER_RESTORE);
         LauncherRestoreEventLogger restoreEventLogger = null;
@@ -418,9 +457,12 @@ public class LoaderTask implements Runnable {
         } catch (CancellationException e) {
             // Loader stopped, ignore
             FileLog.w(TAG, "LoaderTask cancelled");
+            mTimeline.setCancelled(true);
         } catch (Exception e) {
             memoryLogger.printLogs();
             throw e;
+        } finally {
+            mTimelineRecorder.commit(mTimeline);
         }
         MODEL_EXECUTOR.restorePriority(CALLER_LOADER_TASK);
         TraceHelper.INSTANCE.endSection();
@@ -438,7 +480,8 @@ public class LoaderTask implements Runnable {
             @Nullable LoaderMemoryLogger memoryLogger,
             @Nullable LauncherRestoreEventLogger restoreEventLogger) {
         final boolean isSdCardReady = Utilities.isBootCompleted();
-        final WidgetInflater widgetInflater = new WidgetInflater(mContext, mIsSafeModeEnabled);
+        final WidgetInflater widgetInflater = new WidgetInflater(
+                mContext, mIsSafeModeEnabled, new WidgetProviderCache(mContext));
 
         ModelDbController dbController = mModel.getModelDbController();
 
@@ -463,15 +506,31 @@ public class LoaderTask implements Runnable {
             FileLog.d(TAG, "loadWorkspace: Packages with active install/update sessions: "
                     + installingPkgs.keySet().stream().map(info -> info.mPackageName).collect(Collectors.toList()));
 
+            // When binding the first screen first, its rows are sorted before all other rows so
+            // that it can be bound as soon as the first firstScreenRowCount rows are processed
+            final IntSet firstScreenIds = getFirstScreenIdsToBindFirst(selection);
+            final int firstScreenRowCount;
+            final String sortOrder;
+            if (firstScreenIds != null) {
+                String firstScreenSelection = LauncherDbUtils.selectionForWorkspaceScreen(
+                        firstScreenIds.getArray().toArray());
+                firstScreenRowCount = (int) DatabaseUtils.queryNumEntries(
+                        dbController.getDb(), Favorites.TABLE_NAME, firstScreenSelection);
+                sortOrder = LauncherDbUtils.getLoaderCursorQuerySortOrder(firstScreenSelection);
+            } else {
+                firstScreenRowCount = -1;
+                sortOrder = LauncherDbUtils.getLoaderCursorQuerySortOrder();
+            }
+
             mShortcutKeyToPinnedShortcuts = new HashMap<>();
             final LoaderCursor c = mLoaderCursorFactory.createLoaderCursor(
-                    dbController.query(null, selection, null,
-                            LauncherDbUtils.getLoaderCursorQuerySortOrder()),
+                    dbController.query(null, selection, null, sortOrder),
                     mUserManagerState,
                     mIsRestoreFromBackup ? restoreEventLogger : null);
             final Bundle extras = c.getExtras();
             mDbName = extras == null ? null : extras.getString(ModelDbController.EXTRA_DB_NAME);
             WorkspaceItemProcessor itemProcessor;
+            int iconRequestsLoaded = 0;
             try {
                 final LongSparseArray<Boolean> unlockedUsers = new LongSparseArray<>();
                 queryPinnedShortcutsForUnlockedUsers(mContext, unlockedUsers);
@@ -490,11 +549,18 @@ public class LoaderTask implements Runnable {
                     if (Flags.injectableModelItems()) {
                         itemProcessor.processPreloadedItems(mExtraItemsProvider.get());
                     }
+                    int rowsRead = 0;
                     while (!mStopped && c.moveToNext()) {
                         itemProcessor.processItem();
+                        rowsRead++;
+                        if (rowsRead == firstScreenRowCount) {
+                            iconRequestsLoaded = bindFirstScreen(itemProcessor, firstScreenIds);
+                        }
                     }
+                    mTimeline.setDbRowsRead(rowsRead);
                 }
-                tryLoadWorkspaceIconsInBulk(mWorkspaceIconRequestInfos);
+                tryLoadWorkspaceIconsInBulk(mWorkspaceIconRequestInfos.subList(
+                        iconRequestsLoaded, mWorkspaceIconRequestInfos.size()));
             } finally {
                 IOUtils.closeSilently(c);
             }
@@ -518,6 +584,42 @@ public class LoaderTask implements Runnable {
         }
     }
 
+    /**
+     * Returns the screens which should be bound before the rest of the workspace is loaded, or
+     * null if the whole workspace is bound at once. The loader can't know the page the launcher
+     * is going to show, so this is the default page (and its pair on two panel devices).
+     * The early bind is only handled with simplified model binding, see bindFirstScreenAsync.
+     */
+    @Nullable
+    private IntSet getFirstScreenIdsToBindFirst(String selection) {
+        if (!Flags.simplifiedLauncherModelBinding() || !mParams.getBindFirstScreenFirst()
+                || !TextUtils.isEmpty(selection)) {
+            return null;
+        }
+        IntSet screenIds = IntSet.wrap(FIRST_SCREEN_ID);
+        if (mIDP.supportedProfiles.stream()
+                .anyMatch(dp -> dp.getDeviceProperties().isTwoPanels())) {
+            screenIds.add(FIRST_SCREEN_ID + 1);
+        }
+        return screenIds;
+    }
+
+    /**
+     * Loads the icons of the items processed so far and binds the ones on {@code screenIds} and
+     * the hotseat, so that the first screen doesn't wait for the remaining rows to be processed.
+     *
+     * @return the number of workspace icon requests which have been loaded
+     */
+    private int bindFirstScreen(WorkspaceItemProcessor itemProcessor, IntSet screenIds) {
+        verifyNotStopped();
+        tryLoadWorkspaceIconsInBulk(mWorkspaceIconRequestInfos);
+        SparseArray<ItemInfo> items = itemProcessor.collectFirstScreenItems(screenIds);
+        mLauncherBinder.bindFirstScreen(items);
+        logASplit("bindFirstScreen finished");
+        mTimeline.split(PHASE_BIND_FIRST_SCREEN, items.size());
+        return mWorkspaceIconRequestInfos.size();
+    }
+
     /**
      * Initialized the UserManagerState, and determines which users are unlocked. Additionally, if
      * the user is unlocked, it queries LauncherAppsService for pinned shortcuts and stores the
@@ -563,7 +665,8 @@ public class LoaderTask implements Runnable {
             List<IconRequestInfo<WorkspaceItemInfo>> iconRequestInfos) {
         Trace.beginSection("LoadWorkspaceIconsInBulk");
         try {
-            mIconCache.getTitlesAndIconsInBulk(iconRequestInfos);
+            recordIconCacheLookups(iconRequestInfos.size(),
+                    mIconCache.getTitlesAndIconsInBulk(iconRequestInfos));
             for (IconRequestInfo<WorkspaceItemInfo> iconRequestInfo : iconRequestInfos) {
                 WorkspaceItemInfo wai = iconRequestInfo.itemInfo;
                 if (mIconCache.isDefaultIcon(wai.bitmap, wai.user)) {
@@ -577,6 +680,11 @@ public class LoaderTask implements Runnable {
         }
     }
 
+    private void recordIconCacheLookups(int requestCount, int missCount) {
+        mTimeline.setIconCacheHits(mTimeline.getIconCacheHits() + requestCount - missCount);
+        mTimeline.setIconCacheMisses(mTimeline.getIconCacheMisses() + missCount);
+    }
+
     private void setIgnorePackages(IconCacheUpdateHandler updateHandler) {
         // Ignore packages which have a promise icon.
         synchronized (mBgDataModel) {
@@ -632,6 +740,7 @@ public class LoaderTask implements Runnable {
             if (apps == null || apps.isEmpty()) {
                 return allActivityList;
             }
+            LaunchComponentCache.INSTANCE.get(mContext).setActivities(user, apps);
             boolean quietMode = cachedUserInfo.isQuietModeEnabled();
 
             if (Flags.enablePrivateSpace()) {
@@ -672,7 +781,8 @@ public class LoaderTask implements Runnable {
         Trace.beginSection("LoadAllAppsIconsInBulk");
 
         try {
-            mIconCache.getTitlesAndIconsInBulk(allAppsItemRequestInfos);
+            recordIconCacheLookups(allAppsItemRequestInfos.size(),
+                    mIconCache.getTitlesAndIconsInBulk(allAppsItemRequestInfos));
             if (Flags.restoreArchivedAppIconsFromDb()) {
                 for (IconRequestInfo<AppInfo> iconRequestInfo : allAppsItemRequestInfos) {
                     AppInfo appInfo = iconRequestInfo.itemInfo;
@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.launcher3.model
+
+import android.os.SystemClock
+import androidx.annotation.WorkerThread
+import com.android.launcher3.dagger.LauncherAppSingleton
+import com.android.launcher3.logging.DumpManager
+import com.android.launcher3.logging.DumpManager.LauncherDumpable
+import com.android.launcher3.util.DaggerSingletonObject
+import com.android.launcher3.util.DaggerSingletonTracker
+import java.io.PrintWriter
+import java.text.SimpleDateFormat
+import java.util.Date
+import java.util.Locale
+import javax.inject.Inject
+
+/**
+ * Keeps the per-phase timings of the last [MAX_TIMELINES] [LoaderTask] runs, so that startup
+ * regressions can be inspected from a bug report without capturing a systrace.
+ */
+@LauncherAppSingleton
+class LoaderTimelineRecorder
+@Inject
+constructor(dumpManager: DumpManager, lifecycle: DaggerSingletonTracker) : LauncherDumpable {
+
+    private val timelines = ArrayDeque<Timeline>(MAX_TIMELINES)
+
+    init {
+        lifecycle.addCloseable(dumpManager.register(this))
+    }
+
+    /** Starts a new timeline, the first phase starts immediately */
+    @WorkerThread fun newTimeline() = Timeline(System.currentTimeMillis())
+
+    /** Adds a completed (or cancelled) timeline, dropping the oldest one if needed */
+    fun commit(timeline: Timeline) {
+        synchronized(timelines) {
+            if (timelines.size == MAX_TIMELINES) {
+                timelines.removeFirst()
+            }
+            timelines.addLast(timeline)
+        }
+    }
+
+    /** Returns the recorded timelines, oldest first */
+    fun getTimelines(): List<Timeline> = synchronized(timelines) { timelines.toList() }
+
+    override fun dump(prefix: String, writer: PrintWriter, args: Array<String>?) {
+        writer.println("${prefix}LoaderTimelineRecorder:")
+        getTimelines().forEach { it.dump("$prefix  ", writer) }
+    }
+
+    /**
+     * Timings of a single loader run. All methods must be called on the loader thread, since CPU
+     * time is measured for the calling thread.
+     */
+    class Timeline(val startTimeMs: Long) {
+
+        private val _phases = ArrayList<Phase>()
+        val phases: List<Phase>
+            get() = _phases
+
+        var dbRowsRead = 0
+        var iconCacheHits = 0
+        var iconCacheMisses = 0
+        var cancelled = false
+
+        private var phaseStartWallMs = SystemClock.elapsedRealtime()
+        private var phaseStartCpuMs = SystemClock.currentThreadTimeMillis()
+
+        val totalWallMs: Long
+            get() = _phases.sumOf { it.wallMs }
+
+        /** Ends the current phase as [name] and starts the next one */
+        @WorkerThread
+        @JvmOverloads
+        fun split(name: String, itemCount: Int = -1) {
+            val wallMs = SystemClock.elapsedRealtime()
+            val cpuMs = SystemClock.currentThreadTimeMillis()
+            _phases.add(
+                Phase(name, wallMs - phaseStartWallMs, cpuMs - phaseStartCpuMs, itemCount)
+            )
+            phaseStartWallMs = wallMs
+            phaseStartCpuMs = cpuMs
+        }
+
+        /** Returns the first phase recorded as [name] */
+        fun getPhase(name: String) = _phases.firstOrNull { it.name == name }
+
+        fun dump(prefix: String, writer: PrintWriter) {
+            writer.println(
+                "${prefix}${SimpleDateFormat(DATE_FORMAT, Locale.US).format(Date(startTimeMs))}" +
+                    " total=${totalWallMs}ms dbRows=$dbRowsRead" +
+                    " iconCache(hit=$iconCacheHits, miss=$iconCacheMisses)" +
+                    if (cancelled) " CANCELLED" else ""
+            )
+            _phases.forEach { writer.println("$prefix  $it") }
+        }
+    }
+
+    data class Phase(val name: String, val wallMs: Long, val cpuMs: Long, val itemCount: Int) {
+
+        override fun toString() =
+            "$name: wall=${wallMs}ms cpu=${cpuMs}ms" +
+                if (itemCount >= 0) " items=$itemCount" else ""
+    }
+
+    companion object {
+        const val MAX_TIMELINES = 5
+
+        const val PHASE_BIND_FIRST_SCREEN = "bindFirstScreen"
+        const val PHASE_LOAD_WORKSPACE = "loadWorkspace"
+        const val PHASE_SANITIZE_DATA = "sanitizeData"
+        const val PHASE_BIND_WORKSPACE = "bindWorkspace"
+        const val PHASE_WAIT_WORKSPACE = "waitForIdle:workspace"
+        const val PHASE_LOAD_ALL_APPS = "loadAllApps"
+        const val PHASE_BIND_ALL_APPS = "bindAllApps"
+        const val PHASE_UPDATE_ICONS = "updateAllAppsIconCache"
+        const val PHASE_WAIT_ALL_APPS = "waitForIdle:allApps"
+        const val PHASE_LOAD_SHORTCUTS = "loadDeepShortcuts"
+        const val PHASE_WAIT_SHORTCUTS = "waitForIdle:shortcuts"
+        const val PHASE_LOAD_WIDGETS = "loadWidgets"
+        const val PHASE_BIND_WIDGETS = "bindWidgets"
+        const val PHASE_FINISH = "finishIconUpdate"
+
+        private const val DATE_FORMAT = "MM-dd HH:mm:ss.SSS"
+
+        @JvmField
+        val INSTANCE = DaggerSingletonObject { it.loaderTimelineRecorder }
+    }
+}
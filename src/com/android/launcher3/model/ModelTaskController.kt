@@ -27,6 +27,7 @@ import com.android.launcher3.model.data.AppInfo
 import com.android.launcher3.model.data.ItemInfo
 import com.android.launcher3.util.Executors.MAIN_EXECUTOR
 import com.android.launcher3.widget.model.WidgetsListBaseEntriesBuilder
+import com.neoapps.neolauncher.allapps.AppOrderCache
 import java.util.function.Predicate
 import javax.inject.Inject
 
@@ -87,6 +88,7 @@ constructor(
         if (allAppsList.getAndResetChangeFlag()) {
             // shallow copy
             val data = allAppsList.immutableData
+            AppOrderCache.INSTANCE.get(context).prepare(data.apps)
             scheduleCallbackTask {
                 it.bindAllApplications(data.apps, data.flags, data.packageUserKeyToUidMap)
             }
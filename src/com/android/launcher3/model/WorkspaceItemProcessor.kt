@@ -35,6 +35,7 @@ import com.android.launcher3.Utilities.qsbOnFirstScreen
 import com.android.launcher3.WorkspaceLayoutManager
 import com.android.launcher3.backuprestore.LauncherRestoreEventLogger.RestoreError
 import com.android.launcher3.folder.Folder
+import com.android.launcher3.folder.FolderGridOrganizer
 import com.android.launcher3.folder.FolderGridOrganizer.createFolderGridOrganizer
 import com.android.launcher3.homescreenfiles.HomeScreenFile
 import com.android.launcher3.homescreenfiles.HomeScreenFilesUtils
@@ -98,6 +99,9 @@ class WorkspaceItemProcessor(
 
     private val loadedItems = IntSparseArrayMap<ItemInfo>()
 
+    // Folders already processed and handed to the UI by collectFirstScreenItems
+    private val firstScreenFolderIds = IntSet()
+
     private val tempPackageKey = PackageUserKey(null, null)
 
     /**
@@ -709,28 +713,64 @@ class WorkspaceItemProcessor(
         // Sort the folder items, update ranks, and make sure all preview items are high res.
         val verifiers = idp.supportedProfiles.map { createFolderGridOrganizer(it) }
         for (itemInfo in loadedItems) {
-            if (itemInfo !is FolderInfo) {
-                continue
+            // First screen folders may already be inflated on the main thread, don't modify them
+            if (itemInfo is FolderInfo && !firstScreenFolderIds.contains(itemInfo.id)) {
+                processFolder(itemInfo, verifiers)
             }
+        }
+    }
 
-            itemInfo.getContents().sortWith(Folder.ITEM_POS_COMPARATOR)
-            verifiers.forEach { it.setFolderInfo(itemInfo) }
+    private fun processFolder(folder: FolderInfo, verifiers: List<FolderGridOrganizer>) {
+        folder.getContents().sortWith(Folder.ITEM_POS_COMPARATOR)
+        verifiers.forEach { it.setFolderInfo(folder) }
 
-            // Update ranks here to ensure there are no gaps caused by removed folder items.
-            // Ranks are the source of truth for folder items, so cellX and cellY can be
-            // ignored for now. Database will be updated once user manually modifies folder.
-            itemInfo.getContents().forEachIndexed { rank, info ->
-                info.rank = rank
-                if (
-                    info is WorkspaceItemInfo &&
-                    info.matchingLookupFlag.isVisuallyLessThan(Favorites.DESKTOP_ICON_FLAG) &&
-                    info.itemType == Favorites.ITEM_TYPE_APPLICATION &&
-                    verifiers.any { it.isItemInPreview(info.rank) }
-                ) {
-                    iconCache.getTitleAndIcon(info, Favorites.DESKTOP_ICON_FLAG)
+        // Update ranks here to ensure there are no gaps caused by removed folder items.
+        // Ranks are the source of truth for folder items, so cellX and cellY can be
+        // ignored for now. Database will be updated once user manually modifies folder.
+        folder.getContents().forEachIndexed { rank, info ->
+            info.rank = rank
+            if (
+                info is WorkspaceItemInfo &&
+                info.matchingLookupFlag.isVisuallyLessThan(Favorites.DESKTOP_ICON_FLAG) &&
+                info.itemType == Favorites.ITEM_TYPE_APPLICATION &&
+                verifiers.any { it.isItemInPreview(info.rank) }
+            ) {
+                iconCache.getTitleAndIcon(info, Favorites.DESKTOP_ICON_FLAG)
+            }
+        }
+    }
+
+    /**
+     * Returns the items processed so far which are in the hotseat or on one of the [screenIds],
+     * along with the contents of their folders. This allows binding the first screen before the
+     * remaining rows are processed; [finalizeData] still needs to run once all rows are loaded.
+     */
+    fun collectFirstScreenItems(screenIds: IntSet): SparseArray<ItemInfo> {
+        val verifiers = idp.supportedProfiles.map { createFolderGridOrganizer(it) }
+        val result = SparseArray<ItemInfo>()
+        for (itemInfo in loadedItems) {
+            val isFirstScreenItem =
+                itemInfo.container == Favorites.CONTAINER_HOTSEAT ||
+                    (itemInfo.container == Favorites.CONTAINER_DESKTOP &&
+                        screenIds.contains(itemInfo.screenId))
+            if (!isFirstScreenItem) {
+                continue
+            }
+            when (itemInfo) {
+                is FolderInfo -> {
+                    processFolder(itemInfo, verifiers)
+                    firstScreenFolderIds.add(itemInfo.id)
                 }
+                is AppPairInfo -> itemInfo.fetchHiResIconsIfNeeded(iconCache)
+            }
+            result.put(itemInfo.id, itemInfo)
+        }
+        for (itemInfo in loadedItems) {
+            if (result.indexOfKey(itemInfo.container) >= 0) {
+                result.put(itemInfo.id, itemInfo)
             }
         }
+        return result
     }
 
     private fun removeItems(ids: IntArray?) = ids?.forEach { loadedItems.remove(it) }
@@ -18,13 +18,25 @@ package com.android.launcher3.model.data
 
 import javax.inject.Inject
 
-/** Parameters to customize Loader task */
+/**
+ * Parameters to customize Loader task
+ *
+ * @param bindFirstScreenFirst whether the first screen and hotseat are bound as soon as they are
+ *   loaded, before the remaining workspace items are processed
+ */
 data class LoaderParams(
     val workspaceSelection: String,
     val sanitizeData: Boolean,
     val loadNonWorkspaceItems: Boolean,
+    val bindFirstScreenFirst: Boolean = false,
 ) {
 
     @Inject
-    constructor() : this(workspaceSelection = "", sanitizeData = true, loadNonWorkspaceItems = true)
+    constructor() :
+        this(
+            workspaceSelection = "",
+            sanitizeData = true,
+            loadNonWorkspaceItems = true,
+            bindFirstScreenFirst = true,
+        )
 }
@@ -18,7 +18,9 @@ package com.android.launcher3.popup;
 
 import android.content.ComponentName;
 import android.service.notification.StatusBarNotification;
+import android.util.ArraySet;
 import android.util.Log;
+import android.view.Choreographer;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -41,8 +43,10 @@ import com.android.launcher3.views.ActivityContext;
 import java.io.PrintWriter;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Predicate;
 
 /**
@@ -61,6 +65,14 @@ public class PopupDataProvider implements NotificationListener.NotificationsChan
     /** Maps launcher activity components to a count of how many shortcuts they have. */
     private HashMap<ComponentKey, Integer> mDeepShortcutMap = new HashMap<>();
 
+    /**
+     * Packages whose dot changed since the last frame. Individual notification callbacks only
+     * record the key here, the views are updated once per frame in {@link #doFrame(long)}.
+     */
+    private final Set<PackageUserKey> mPendingDotUpdates = new ArraySet<>();
+    private final Choreographer.FrameCallback mFrameCallback = this::doFrame;
+    private boolean mFrameCallbackPosted = false;
+
     public PopupDataProvider(ActivityContext context) {
         mContext = context;
     }
@@ -103,7 +115,7 @@ public class PopupDataProvider implements NotificationListener.NotificationsChan
             mPackageUserToDotInfos.put(postedPackageUserKey, dotInfo);
         }
         if (dotInfo.addOrUpdateNotificationKey(notificationKey)) {
-            updateNotificationDots(postedPackageUserKey::equals);
+            scheduleDotUpdate(postedPackageUserKey);
         }
     }
 
@@ -115,44 +127,83 @@ public class PopupDataProvider implements NotificationListener.NotificationsChan
             if (oldDotInfo.getNotificationKeys().size() == 0) {
                 mPackageUserToDotInfos.remove(removedPackageUserKey);
             }
-            updateNotificationDots(removedPackageUserKey::equals);
+            scheduleDotUpdate(removedPackageUserKey);
         }
     }
 
     @Override
     public void onNotificationFullRefresh(List<StatusBarNotification> activeNotifications) {
         if (activeNotifications == null) return;
-        // This will contain the PackageUserKeys which have updated dots.
-        HashMap<PackageUserKey, DotInfo> updatedDots = new HashMap<>(mPackageUserToDotInfos);
-        mPackageUserToDotInfos.clear();
+        HashMap<PackageUserKey, DotInfo> newDots = new HashMap<>();
         for (StatusBarNotification notification : activeNotifications) {
             PackageUserKey packageUserKey = PackageUserKey.fromNotification(notification);
-            DotInfo dotInfo = mPackageUserToDotInfos.get(packageUserKey);
+            DotInfo dotInfo = newDots.get(packageUserKey);
             if (dotInfo == null) {
                 dotInfo = new DotInfo();
-                mPackageUserToDotInfos.put(packageUserKey, dotInfo);
+                newDots.put(packageUserKey, dotInfo);
             }
             dotInfo.addOrUpdateNotificationKey(NotificationKeyData.fromNotification(notification));
         }
 
-        // Add and remove from updatedDots so it contains the PackageUserKeys of updated dots.
-        for (PackageUserKey packageUserKey : mPackageUserToDotInfos.keySet()) {
-            DotInfo prevDot = updatedDots.get(packageUserKey);
-            DotInfo newDot = mPackageUserToDotInfos.get(packageUserKey);
-            if (prevDot == null
-                    || prevDot.getNotificationCount() != newDot.getNotificationCount()) {
-                updatedDots.put(packageUserKey, newDot);
+        // Diff in place so that only the PackageUserKeys with a visual change are emitted.
+        Iterator<Map.Entry<PackageUserKey, DotInfo>> it =
+                mPackageUserToDotInfos.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<PackageUserKey, DotInfo> entry = it.next();
+            DotInfo newDot = newDots.remove(entry.getKey());
+            if (newDot == null) {
+                it.remove();
+                mPendingDotUpdates.add(entry.getKey());
             } else {
-                // No need to update the dot if it already existed (no visual change).
-                // Note that if the dot was removed entirely, we wouldn't reach this point because
-                // this loop only includes active notifications added above.
-                updatedDots.remove(packageUserKey);
+                if (entry.getValue().getNotificationCount() != newDot.getNotificationCount()) {
+                    mPendingDotUpdates.add(entry.getKey());
+                }
+                // Always take the new keys, since the notifications themselves may have changed
+                // even when the count (and hence the dot) did not.
+                entry.setValue(newDot);
             }
         }
+        // Whatever is left did not have a dot before.
+        mPackageUserToDotInfos.putAll(newDots);
+        mPendingDotUpdates.addAll(newDots.keySet());
+
+        if (!mPendingDotUpdates.isEmpty()) {
+            postFrameCallback();
+        }
+    }
+
+    private void scheduleDotUpdate(PackageUserKey key) {
+        mPendingDotUpdates.add(key);
+        postFrameCallback();
+    }
+
+    private void postFrameCallback() {
+        if (!mFrameCallbackPosted) {
+            mFrameCallbackPosted = true;
+            Choreographer.getInstance().postFrameCallback(mFrameCallback);
+        }
+    }
+
+    private void doFrame(long frameTimeNanos) {
+        mFrameCallbackPosted = false;
+        if (mPendingDotUpdates.isEmpty()) {
+            return;
+        }
+        Set<PackageUserKey> updatedDots = new ArraySet<>(mPendingDotUpdates);
+        mPendingDotUpdates.clear();
+        if (LOGD) Log.d(TAG, "doFrame: updating dots for " + updatedDots);
+        updateNotificationDots(updatedDots::contains);
+    }
 
-        if (!updatedDots.isEmpty()) {
-            updateNotificationDots(updatedDots::containsKey);
+    /**
+     * Applies any dot change that is still waiting for the next frame. Should be called before
+     * the provider is discarded so that views are not left with a stale dot.
+     */
+    public void flushPendingDotUpdates() {
+        if (mFrameCallbackPosted) {
+            Choreographer.getInstance().removeFrameCallback(mFrameCallback);
         }
+        doFrame(0);
     }
 
     public void setDeepShortcutMap(HashMap<ComponentKey, Integer> deepShortcutMapCopy) {
@@ -203,5 +254,6 @@ public class PopupDataProvider implements NotificationListener.NotificationsChan
     public void dump(String prefix, PrintWriter writer) {
         writer.println(prefix + "PopupDataProvider:");
         writer.println(prefix + "\tmPackageUserToDotInfos:" + mPackageUserToDotInfos);
+        writer.println(prefix + "\tmPendingDotUpdates:" + mPendingDotUpdates);
     }
 }
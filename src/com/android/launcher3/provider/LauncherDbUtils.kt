@@ -338,4 +338,13 @@ object LauncherDbUtils {
         }
         return null
     }
+
+    /**
+     * Same as [getLoaderCursorQuerySortOrder], but places the rows matching [prioritySelection]
+     * before all other rows.
+     */
+    @JvmStatic
+    fun getLoaderCursorQuerySortOrder(prioritySelection: String): String =
+        "CASE WHEN ($prioritySelection) THEN 0 ELSE 1 END, " +
+            (getLoaderCursorQuerySortOrder() ?: _ID)
 }
@@ -105,6 +105,12 @@ public class LauncherWidgetHolder {
     /** package visibility */
     @Nullable IntConsumer mAppWidgetRemovedCallback;
 
+    // Views showing a placeholder until they are inflated, see inflateNextPendingView
+    @VisibleForTesting
+    final ArrayList<LauncherAppWidgetHostView> mPendingInflation = new ArrayList<>();
+    private boolean mInflationPosted;
+    private final Runnable mInflateNextRunnable = this::inflateNextPendingView;
+
     @AssistedInject
     protected LauncherWidgetHolder(@Assisted("UI_CONTEXT") @NonNull Context context) {
         this(context, APPWIDGET_HOST_ID);
@@ -157,13 +163,52 @@ public class LauncherWidgetHolder {
     /** Update any views which have been deferred because the host was not listening */
     protected void updateDeferredView() {
         // Update any views which have been deferred because the host was not listening.
-        // We go in reverse order and inflate any deferred or cached widget
+        // We go in reverse order and inflate any deferred or cached widget, one at a time
         for (int i = mViews.size() - 1; i >= 0; i--) {
             LauncherAppWidgetHostView view = mViews.valueAt(i);
+            if (view instanceof PendingAppWidgetHostView pv && !mPendingInflation.contains(pv)) {
+                mPendingInflation.add(pv);
+            }
+        }
+        scheduleNextInflation();
+    }
+
+    private void scheduleNextInflation() {
+        if (!mInflationPosted && !mPendingInflation.isEmpty()) {
+            mInflationPosted = true;
+            MAIN_EXECUTOR.getHandler().post(mInflateNextRunnable);
+        }
+    }
+
+    /**
+     * Replaces the placeholder of one pending view with the actual widget, preferring the views
+     * currently shown. Each view is inflated in its own message, so that the bound page can draw
+     * before all the widgets are inflated.
+     */
+    private void inflateNextPendingView() {
+        mInflationPosted = false;
+        if (!isListening() || mPendingInflation.isEmpty()) {
+            // Resumed by updateDeferredView once listening
+            return;
+        }
+        int index = 0;
+        for (int i = 0; i < mPendingInflation.size(); i++) {
+            if (mPendingInflation.get(i).isShown()) {
+                index = i;
+                break;
+            }
+        }
+        LauncherAppWidgetHostView view = mPendingInflation.remove(index);
+        // Skip views removed or replaced in the meantime
+        if (mViews.get(view.getAppWidgetId()) == view) {
             if (view instanceof PendingAppWidgetHostView pv) {
                 pv.reInflate();
+            } else {
+                // The host creates the widget in the same view, as it is recycled
+                recycleExistingView(view);
             }
         }
+        scheduleNextInflation();
     }
 
     /**
@@ -194,6 +239,10 @@ public class LauncherWidgetHolder {
      */
     public void deleteAppWidgetId(int appWidgetId) {
         mWidgetHost.deleteAppWidgetId(appWidgetId);
+        LauncherAppWidgetHostView view = mViews.get(appWidgetId);
+        if (view != null) {
+            mPendingInflation.remove(view);
+        }
         mViews.remove(appWidgetId);
     }
 
@@ -404,7 +453,8 @@ public class LauncherWidgetHolder {
 
     /**
      * Attaches an already inflated view to the host. If the view can't be attached, creates
-     * and attaches a new view.
+     * and attaches a new view. Views created on a background thread keep showing their initial
+     * layout until they are attached, after the views currently shown.
      * @return the final attached view
      */
     @NonNull
@@ -417,6 +467,14 @@ public class LauncherWidgetHolder {
                 || pw.isDeferredWidget())
                 && view.getAppWidgetInfo() != null;
         if (isRealWidget && mViews.get(view.getAppWidgetId()) != view) {
+            if (view instanceof ListenableHostView && isListening()) {
+                // The view shows the initial layout of the widget, keep it as the placeholder
+                // and attach it to the host once the views on screen are done
+                mViews.put(view.getAppWidgetId(), view);
+                mPendingInflation.add(view);
+                scheduleNextInflation();
+                return view;
+            }
             view = recycleExistingView(view);
             mViews.put(view.getAppWidgetId(), view);
         }
@@ -495,6 +553,7 @@ public class LauncherWidgetHolder {
     public void clearViews() {
         ((LauncherAppWidgetHost) mWidgetHost).clearViews();
         mViews.clear();
+        mPendingInflation.clear();
     }
 
     /** Clears all the internal widget views */
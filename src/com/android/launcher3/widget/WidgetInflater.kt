@@ -37,6 +37,18 @@ constructor(
 
     private val widgetHelper = WidgetManagerHelper(context)
 
+    // Installed providers queried in bulk, only set when inflating all the widgets of a load
+    private var providerCache: WidgetProviderCache? = null
+
+    /** Creates an inflater finding the providers of widgets to bind in [providerCache] */
+    constructor(
+        context: Context,
+        isSafeModeEnabled: Boolean,
+        providerCache: WidgetProviderCache,
+    ) : this(context, isSafeModeEnabled) {
+        this.providerCache = providerCache
+    }
+
     fun inflateAppWidget(item: LauncherAppWidgetInfo): InflationResult {
         if (item.hasOptionFlag(LauncherAppWidgetInfo.OPTION_SEARCH_WIDGET)) {
             item.providerName = QsbContainerView.getSearchComponentName(context)
@@ -57,7 +69,10 @@ constructor(
 
         if (item.hasRestoreFlag(LauncherAppWidgetInfo.FLAG_ID_NOT_VALID)) {
             // The widget id is not valid. Try to find the widget based on the provider info.
-            appWidgetInfo = widgetHelper.findProvider(item.providerName, item.user)
+            val cache = providerCache
+            appWidgetInfo =
+                if (cache != null) cache.findProvider(item.providerName, item.user)
+                else widgetHelper.findProvider(item.providerName, item.user)
             if (appWidgetInfo == null) {
                 if (!BuildConfig.WIDGETS_ENABLED) {
                     removalReason = "widgets are disabled on go device."
@@ -73,6 +88,7 @@ constructor(
                 update = true
             }
         } else {
+            // The id may be bound to another provider than the stored one, so always check it
             appWidgetInfo =
                 widgetHelper.getLauncherAppWidgetInfo(item.appWidgetId, item.targetComponent)
             if (appWidgetInfo == null) {
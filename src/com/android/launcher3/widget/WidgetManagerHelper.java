@@ -118,6 +118,24 @@ public class WidgetManagerHelper {
         }
     }
 
+    /**
+     * @see AppWidgetManager#getInstalledProvidersForProfile(UserHandle)
+     */
+    public List<AppWidgetProviderInfo> getAllProvidersForUser(@NonNull UserHandle user) {
+        if (!WIDGETS_ENABLED) {
+            return Collections.emptyList();
+        }
+
+        try {
+            return mAppWidgetManager.getInstalledProvidersForProfile(user);
+        } catch (IllegalStateException e) {
+            // Same as getAllProviders, the user may have been locked again
+            Log.e(TAG, "getAllProvidersForUser: Error getting installed providers for"
+                    + " user=" + user, e);
+            return Collections.emptyList();
+        }
+    }
+
     /**
      * @see AppWidgetManager#bindAppWidgetIdIfAllowed(int, UserHandle, ComponentName, Bundle)
      */
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.launcher3.widget
+
+import android.appwidget.AppWidgetProviderInfo
+import android.content.ComponentName
+import android.content.Context
+import android.os.UserHandle
+
+/**
+ * Finds the installed widget providers of a whole workspace load with a single query per user,
+ * instead of one [WidgetManagerHelper.findProvider] query per package.
+ *
+ * Only widgets without a valid id are resolved by their stored provider. A bound id can belong to
+ * another provider than the stored one, so its provider is always queried with
+ * [WidgetManagerHelper.getLauncherAppWidgetInfo].
+ *
+ * The providers are not updated on package changes, so an instance should only be used for a
+ * single pass over the widgets. A null result means that the provider is not installed.
+ */
+class WidgetProviderCache
+@JvmOverloads
+constructor(
+    private val context: Context,
+    private val widgetHelper: WidgetManagerHelper = WidgetManagerHelper(context),
+) {
+
+    private val providersByUser = HashMap<UserHandle, Map<ComponentName, AppWidgetProviderInfo>>()
+
+    /** Returns the installed [provider] for [user], like [WidgetManagerHelper.findProvider] */
+    fun findProvider(provider: ComponentName?, user: UserHandle): LauncherAppWidgetProviderInfo? {
+        if (provider == null) return null
+        val providers =
+            providersByUser.getOrPut(user) {
+                widgetHelper.getAllProvidersForUser(user).associateBy { it.provider }
+            }
+        val info = providers[provider] ?: return null
+        return LauncherAppWidgetProviderInfo.fromProviderInfo(context, info)
+    }
+}
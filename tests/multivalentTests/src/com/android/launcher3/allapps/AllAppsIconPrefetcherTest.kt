@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.launcher3.allapps
+
+import android.graphics.Bitmap
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.SmallTest
+import com.android.launcher3.allapps.BaseAllAppsAdapter.AdapterItem
+import com.android.launcher3.icons.BitmapInfo
+import com.android.launcher3.icons.IconCache.ItemInfoUpdateReceiver
+import com.android.launcher3.model.data.AppInfo
+import com.google.common.truth.Truth.assertThat
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/** Unit tests for [AllAppsIconPrefetcher] */
+@SmallTest
+@RunWith(AndroidJUnit4::class)
+class AllAppsIconPrefetcherTest {
+
+    private val highResInfo =
+        BitmapInfo.fromBitmap(Bitmap.createBitmap(1, 1, Bitmap.Config.ARGB_8888))
+
+    @Test
+    fun `rows ahead follow the scroll velocity`() {
+        val prefetcher = AllAppsIconPrefetcher { _, _, _ -> }
+
+        assertThat(prefetcher.getRowsAhead(1, ROW_HEIGHT)).isEqualTo(1)
+        assertThat(prefetcher.getRowsAhead(ROW_HEIGHT / 2, ROW_HEIGHT)).isEqualTo(3)
+        assertThat(prefetcher.getRowsAhead(10 * ROW_HEIGHT, ROW_HEIGHT))
+            .isEqualTo(AllAppsIconPrefetcher.DEFAULT_MAX_ROWS)
+    }
+
+    @Test
+    fun `prefetch loads the following rows once`() {
+        val loaded = ArrayList<AppInfo>()
+        val prefetcher = AllAppsIconPrefetcher { info, _, _ -> loaded.add(info) }
+        val items = createItems()
+
+        prefetcher.prefetch(items, COLUMNS - 1, 1, 2)
+        prefetcher.prefetch(items, COLUMNS - 1, 1, 2)
+
+        assertThat(loaded)
+            .containsExactlyElementsIn(items.subList(COLUMNS, 3 * COLUMNS).map { it.itemInfo })
+            .inOrder()
+    }
+
+    @Test
+    fun `prefetch skips high res icons and scrolls up`() {
+        val loaded = ArrayList<AppInfo>()
+        val prefetcher = AllAppsIconPrefetcher { info, _, _ -> loaded.add(info) }
+        val items = createItems()
+        items[0].itemInfo.bitmap = highResInfo
+
+        prefetcher.prefetch(items, COLUMNS, -1, 1)
+
+        assertThat(loaded)
+            .containsExactlyElementsIn(items.subList(1, COLUMNS).map { it.itemInfo }.reversed())
+            .inOrder()
+    }
+
+    @Test
+    fun `scripted fling shows almost no blank icons`() {
+        val withoutPrefetch = countBlankIconsDuringFling(prefetch = false)
+        val withPrefetch = countBlankIconsDuringFling(prefetch = true)
+
+        assertThat(withoutPrefetch).isGreaterThan(APP_COUNT / 2)
+        // Only the first row, bound before any scroll was seen, may still be blank
+        assertThat(withPrefetch).isAtMost(COLUMNS)
+    }
+
+    /**
+     * Scrolls a list of low res icons with a fling, loading each requested icon after
+     * [LOAD_LATENCY_FRAMES], and returns the number of icons still low res when bound.
+     */
+    private fun countBlankIconsDuringFling(prefetch: Boolean): Int {
+        val items = createItems()
+        val pendingLoads = ArrayDeque<PendingLoad>()
+        var frame = 0
+        val prefetcher =
+            AllAppsIconPrefetcher { info, _, receiver ->
+                pendingLoads.addLast(PendingLoad(frame + LOAD_LATENCY_FRAMES, info, receiver))
+            }
+
+        var blankIcons = 0
+        var scrollY = 0
+        var lastBoundRow = VISIBLE_ROWS - 1
+        for (dy in createFling()) {
+            frame++
+            while (pendingLoads.isNotEmpty() && pendingLoads.first().frame <= frame) {
+                val load = pendingLoads.removeFirst()
+                load.info.bitmap = highResInfo
+                load.receiver.reapplyItemInfo(load.info)
+            }
+
+            scrollY += dy
+            val lastVisibleRow = ((scrollY + VISIBLE_ROWS * ROW_HEIGHT - 1) / ROW_HEIGHT)
+                .coerceAtMost(APP_COUNT / COLUMNS - 1)
+            for (row in lastBoundRow + 1..lastVisibleRow) {
+                blankIcons +=
+                    items.subList(row * COLUMNS, (row + 1) * COLUMNS).count {
+                        it.itemInfo.matchingLookupFlag.useLowRes()
+                    }
+            }
+            lastBoundRow = lastVisibleRow
+
+            if (prefetch) {
+                val edgePosition = (lastVisibleRow + 1) * COLUMNS - 1
+                prefetcher.prefetch(items, edgePosition, 1, prefetcher.getRowsAhead(dy, ROW_HEIGHT))
+            }
+        }
+        return blankIcons
+    }
+
+    private fun createItems(): List<AdapterItem> =
+        List(APP_COUNT) {
+            AdapterItem.asApp(AppInfo().apply { bitmap = BitmapInfo.LOW_RES_INFO }).apply {
+                rowIndex = it / COLUMNS
+            }
+        }
+
+    /** Per frame scroll distances of a drag accelerating into a decelerating fling */
+    private fun createFling(): List<Int> {
+        val distances = mutableListOf(10, 20, 40, 60, 90, 120, 160, 200, 240, 280)
+        var velocity = 320f
+        while (velocity >= 1) {
+            distances.add(velocity.toInt())
+            velocity *= 0.96f
+        }
+        return distances
+    }
+
+    private class PendingLoad(
+        val frame: Int,
+        val info: AppInfo,
+        val receiver: ItemInfoUpdateReceiver,
+    )
+
+    companion object {
+        private const val APP_COUNT = 500
+        private const val COLUMNS = 5
+        private const val ROW_HEIGHT = 120
+        private const val VISIBLE_ROWS = 6
+        private const val LOAD_LATENCY_FRAMES = 2
+    }
+}
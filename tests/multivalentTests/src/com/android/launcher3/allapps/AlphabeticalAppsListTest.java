@@ -24,8 +24,11 @@ import static com.android.launcher3.allapps.SectionDecorationInfo.ROUND_NOTHING;
 import static com.android.launcher3.allapps.UserProfileManager.STATE_DISABLED;
 import static com.android.launcher3.allapps.UserProfileManager.STATE_ENABLED;
 import static com.android.launcher3.allapps.UserProfileManager.STATE_TRANSITION;
+import static com.android.launcher3.util.Executors.MAIN_EXECUTOR;
+import static com.android.launcher3.util.Executors.UI_HELPER_EXECUTOR;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.mockito.AdditionalAnswers.answer;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
@@ -35,12 +38,17 @@ import android.content.Intent;
 import android.os.Process;
 import android.os.UserHandle;
 import android.platform.test.flag.junit.SetFlagsRule;
+import android.view.LayoutInflater;
+
+import androidx.recyclerview.widget.RecyclerView;
 
 import androidx.test.runner.AndroidJUnit4;
 
 import com.android.launcher3.Flags;
 import com.android.launcher3.model.data.AppInfo;
 import com.android.launcher3.util.TestActivityContext;
+import com.android.launcher3.util.TestUtil;
+import com.neoapps.neolauncher.allapps.AppOrderCache;
 
 import org.junit.Before;
 import org.junit.Rule;
@@ -52,6 +60,8 @@ import org.mockito.junit.MockitoRule;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 @RunWith(AndroidJUnit4.class)
@@ -324,6 +334,69 @@ public class AlphabeticalAppsListTest {
         assertEquals(ROUND_BOTTOM_RIGHT | ROUND_BOTTOM_LEFT, roundRegions);
     }
 
+    @Test
+    public void appsUpdated_listsFilterSharedSortedOrder() {
+        AppInfo[] apps = createAppInfoListForMainAndPrivateUser();
+        when(mAllAppsStore.getApps()).thenReturn(apps);
+        AppOrderCache appOrderCache = AppOrderCache.INSTANCE.get(mContext);
+        List<AppInfo> sortedApps = appOrderCache.getSortedApps(apps);
+
+        mAlphabeticalAppsList.updateItemFilter(info -> info != null
+                && info.user.equals(MAIN_HANDLE));
+
+        // The list is not sorted again and keeps the shared order
+        assertSame(sortedApps, appOrderCache.getSortedApps(apps));
+        assertEquals(sortedApps.stream().filter(info -> info.user.equals(MAIN_HANDLE)).toList(),
+                mAlphabeticalAppsList.getApps());
+    }
+
+    @Test
+    public void appsUpdated_withManyApps_adapterItemsReflectLatestUpdate() {
+        AllAppsGridAdapter adapter = new AllAppsGridAdapter(mContext,
+                LayoutInflater.from(mContext), mAlphabeticalAppsList, null);
+        // Tracks the item count as seen through the dispatched updates
+        AtomicInteger dispatchedCount = new AtomicInteger();
+        adapter.registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
+            @Override
+            public void onItemRangeInserted(int positionStart, int itemCount) {
+                dispatchedCount.addAndGet(itemCount);
+            }
+
+            @Override
+            public void onItemRangeRemoved(int positionStart, int itemCount) {
+                dispatchedCount.addAndGet(-itemCount);
+            }
+        });
+        mAlphabeticalAppsList.setAdapter(adapter);
+
+        TestUtil.runOnExecutorSync(MAIN_EXECUTOR, () -> {
+            when(mAllAppsStore.getApps()).thenReturn(createAppInfoListForMainUser(60));
+            mAlphabeticalAppsList.updateItemFilter(info -> info != null
+                    && info.user.equals(MAIN_HANDLE));
+            assertEquals(60, countApps(mAlphabeticalAppsList.getAdapterItems()));
+            dispatchedCount.set(adapter.getItemCount());
+
+            // Enough items for the diff to be computed in the background
+            when(mAllAppsStore.getApps()).thenReturn(createAppInfoListForMainUser(120));
+            mAlphabeticalAppsList.onAppsUpdated();
+
+            // Reading the items binds the update and dispatches it right away
+            assertEquals(120, countApps(mAlphabeticalAppsList.getAdapterItems()));
+            assertEquals(mAlphabeticalAppsList.getAdapterItems().size(),
+                    adapter.getItemCount());
+            assertEquals(adapter.getItemCount(), dispatchedCount.get());
+        });
+
+        // The background diff completing later doesn't bind or dispatch the update again
+        TestUtil.runOnExecutorSync(UI_HELPER_EXECUTOR, () -> { });
+        TestUtil.runOnExecutorSync(MAIN_EXECUTOR, () -> {
+            assertEquals(120, countApps(mAlphabeticalAppsList.getAdapterItems()));
+            assertEquals(mAlphabeticalAppsList.getAdapterItems().size(),
+                    adapter.getItemCount());
+            assertEquals(adapter.getItemCount(), dispatchedCount.get());
+        });
+    }
+
     private int addPrivateSpaceHeader(List<BaseAllAppsAdapter.AdapterItem> adapterItemList) {
         adapterItemList.add(new BaseAllAppsAdapter.AdapterItem(VIEW_TYPE_PRIVATE_SPACE_HEADER));
         return adapterItemList.size();
@@ -347,6 +420,18 @@ public class AlphabeticalAppsListTest {
         return new AppInfo[]{gmailAppInfo, driveAppInfo};
     }
 
+    private AppInfo[] createAppInfoListForMainUser(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> new AppInfo(new ComponentName(mContext,
+                        "com.android.launcher3.tests.Activity" + i), "App " + i, MAIN_HANDLE,
+                        new Intent()))
+                .toArray(AppInfo[]::new);
+    }
+
+    private static int countApps(List<BaseAllAppsAdapter.AdapterItem> adapterItems) {
+        return (int) adapterItems.stream().filter(item -> item.itemInfo != null).count();
+    }
+
     private AppInfo[] createAppInfoListForPrivateUser() {
         ComponentName privateMessengercomponentName = new ComponentName(mContext,
                 "com.android.launcher3.tests.Activity" + "PrivateMessenger");
@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.launcher3.icons
+
+import android.os.Handler
+import android.os.HandlerThread
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.SmallTest
+import com.android.launcher3.icons.IconRequestScheduler.Priority
+import com.android.launcher3.util.CancellableTask
+import com.google.common.truth.Truth.assertThat
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executor
+import java.util.concurrent.TimeUnit
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/** Unit tests for [IconRequestScheduler] */
+@SmallTest
+@RunWith(AndroidJUnit4::class)
+class IconRequestSchedulerTest {
+
+    private val workerThread = HandlerThread("icon-request-test")
+    private lateinit var workerHandler: Handler
+    private lateinit var scheduler: IconRequestScheduler
+
+    private val loaded = ArrayList<String>()
+    private val delivered = ArrayList<String>()
+    private var time = 0L
+
+    @Before
+    fun setUp() {
+        workerThread.start()
+        workerHandler = Handler(workerThread.looper)
+        scheduler = IconRequestScheduler(workerHandler) { time }
+    }
+
+    @After
+    fun tearDown() {
+        workerThread.quitSafely()
+    }
+
+    @Test
+    fun `requests run by priority`() {
+        runBlocked {
+            schedule("offscreen", Priority.OFFSCREEN)
+            schedule("prefetch", Priority.PREFETCH)
+            schedule("visible", Priority.VISIBLE)
+        }
+
+        assertThat(loaded).containsExactly("visible", "prefetch", "offscreen").inOrder()
+    }
+
+    @Test
+    fun `requests for the same key are coalesced`() {
+        runBlocked {
+            schedule("a1", Priority.OFFSCREEN, key = "a")
+            schedule("b", Priority.PREFETCH)
+            schedule("a2", Priority.VISIBLE, key = "a")
+        }
+
+        assertThat(loaded).containsExactly("a1", "a2", "b").inOrder()
+    }
+
+    @Test
+    fun `rebinding a receiver cancels its previous request`() {
+        val receiver = Any()
+        runBlocked {
+            schedule("old", Priority.VISIBLE, receiver = receiver)
+            schedule("new", Priority.VISIBLE, receiver = receiver)
+        }
+
+        assertThat(loaded).containsExactly("new")
+        assertThat(delivered).containsExactly("new")
+    }
+
+    @Test
+    fun `setPriority moves pending requests`() {
+        val receiver = Any()
+        runBlocked {
+            schedule("visible", Priority.VISIBLE)
+            schedule("scrolled in", Priority.OFFSCREEN, receiver = receiver)
+            schedule("prefetch", Priority.PREFETCH)
+            scheduler.setPriority(receiver, Priority.VISIBLE)
+        }
+
+        assertThat(loaded).containsExactly("visible", "scrolled in", "prefetch").inOrder()
+    }
+
+    @Test
+    fun `metrics track queue depth and latency`() {
+        runBlocked {
+            schedule("a", Priority.VISIBLE)
+            schedule("b", Priority.VISIBLE)
+            assertThat(scheduler.getQueueDepth()).isEqualTo(2)
+            time = 10
+        }
+
+        assertThat(scheduler.getQueueDepth()).isEqualTo(0)
+        assertThat(scheduler.getAverageLatencyMs(Priority.VISIBLE)).isEqualTo(10)
+    }
+
+    private fun schedule(
+        name: String,
+        priority: Priority,
+        key: Any? = name,
+        receiver: Any = Any(),
+    ) {
+        val task =
+            CancellableTask(
+                {
+                    loaded.add(name)
+                    name
+                },
+                DIRECT_EXECUTOR,
+                { delivered.add(it) },
+            )
+        scheduler.schedule(key, receiver, priority, task)
+    }
+
+    /** Schedules requests while the worker is blocked, then waits for all of them to run */
+    private fun runBlocked(block: () -> Unit) {
+        val scheduled = CountDownLatch(1)
+        workerHandler.post { scheduled.await() }
+        block()
+        scheduled.countDown()
+
+        val idle = CountDownLatch(1)
+        // Requests are posted one at a time, wait until the scheduler drained the queue
+        fun awaitIdle() {
+            workerHandler.post {
+                if (scheduler.getQueueDepth() == 0) idle.countDown() else awaitIdle()
+            }
+        }
+        awaitIdle()
+        assertThat(idle.await(5, TimeUnit.SECONDS)).isTrue()
+    }
+
+    companion object {
+        private val DIRECT_EXECUTOR = Executor { it.run() }
+    }
+}
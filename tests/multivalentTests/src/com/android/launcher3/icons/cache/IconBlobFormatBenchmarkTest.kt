@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.launcher3.icons.cache
+
+import android.graphics.Bitmap
+import android.graphics.Bitmap.Config.ARGB_8888
+import android.graphics.Canvas
+import android.graphics.Color
+import android.graphics.Paint
+import android.os.Bundle
+import android.os.SystemClock
+import android.util.Log
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.MediumTest
+import androidx.test.platform.app.InstrumentationRegistry
+import com.google.common.truth.Truth.assertThat
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Benchmark of the icon cache encodings. Reports the database size of a set of icons and the
+ * median time to decode one icon for every [IconBlobFormat], as instrumentation status values:
+ * ```
+ * $ adb shell am instrument -w -e class <this class> <test package>/<runner>
+ * ```
+ */
+@MediumTest
+@RunWith(AndroidJUnit4::class)
+class IconBlobFormatBenchmarkTest {
+
+    @Test
+    fun decodeIcons() {
+        val icons = List(ICON_COUNT) { createIcon(it) }
+        val results = Bundle()
+        for (format in IconBlobFormat.entries) {
+            val blobs = icons.map(format::encodeBitmap)
+            // Warm up the codecs before measuring
+            blobs.forEach { format.decodeBitmap(it, ARGB_8888)!!.recycle() }
+
+            val runNanos =
+                List(RUNS) {
+                        val start = SystemClock.elapsedRealtimeNanos()
+                        blobs.forEach { format.decodeBitmap(it, ARGB_8888)!!.recycle() }
+                        SystemClock.elapsedRealtimeNanos() - start
+                    }
+                    .sorted()
+            val dbSize = blobs.sumOf { it.size }
+            val decodeNanos = runNanos[RUNS / 2] / ICON_COUNT
+            Log.i(TAG, "$format: dbSize=$dbSize bytes, decode=$decodeNanos ns per icon")
+            results.putLong("${format}_db_size_bytes", dbSize.toLong())
+            results.putLong("${format}_decode_ns", decodeNanos)
+        }
+        InstrumentationRegistry.getInstrumentation().sendStatus(0, results)
+
+        assertThat(results.size()).isEqualTo(2 * IconBlobFormat.entries.size)
+    }
+
+    private fun createIcon(seed: Int): Bitmap {
+        val icon = Bitmap.createBitmap(ICON_SIZE, ICON_SIZE, ARGB_8888)
+        val paint = Paint(Paint.ANTI_ALIAS_FLAG)
+        val canvas = Canvas(icon)
+        paint.color = Color.HSVToColor(floatArrayOf((seed * 37 % 360).toFloat(), 0.6f, 0.9f))
+        canvas.drawCircle(ICON_SIZE / 2f, ICON_SIZE / 2f, ICON_SIZE * 0.45f, paint)
+        paint.color = Color.WHITE
+        val inset = ICON_SIZE * 0.3f
+        canvas.drawRect(inset, inset, ICON_SIZE - inset, ICON_SIZE * 0.6f, paint)
+        return icon
+    }
+
+    companion object {
+        private const val TAG = "IconBlobFormatBenchmark"
+        private const val ICON_SIZE = 192
+        private const val ICON_COUNT = 50
+        private const val RUNS = 5
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.launcher3.icons.cache
+
+import android.graphics.Bitmap
+import android.graphics.Bitmap.Config.ALPHA_8
+import android.graphics.Bitmap.Config.ARGB_8888
+import android.graphics.Bitmap.Config.RGB_565
+import android.graphics.Canvas
+import android.graphics.Color
+import android.graphics.Paint
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.SmallTest
+import com.google.common.truth.Truth.assertThat
+import java.nio.ByteBuffer
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/** Verifies that every [IconBlobFormat] round-trips icons and rejects corrupt data */
+@SmallTest
+@RunWith(AndroidJUnit4::class)
+class IconBlobFormatTest {
+
+    @Test
+    fun `encodeBitmap round trips pixels`() {
+        val icon = createIcon()
+        for (format in IconBlobFormat.entries) {
+            val decoded = format.decodeBitmap(format.encodeBitmap(icon), ARGB_8888)!!
+            assertThat(decoded.width).isEqualTo(icon.width)
+            assertThat(decoded.height).isEqualTo(icon.height)
+            assertThat(decoded.getPixel(ICON_SIZE / 2, ICON_SIZE / 2))
+                .isEqualTo(icon.getPixel(ICON_SIZE / 2, ICON_SIZE / 2))
+        }
+        // Raw pixels skip the unpremultiply step of the image codecs and are bit exact
+        val raw = IconBlobFormat.RAW_DEFLATE
+        assertThat(raw.decodeBitmap(raw.encodeBitmap(icon), ARGB_8888)!!.sameAs(icon)).isTrue()
+    }
+
+    @Test
+    fun `encodeBytes round trips mono data`() {
+        val mono = Bitmap.createBitmap(ICON_SIZE, ICON_SIZE, ALPHA_8)
+        Canvas(mono).drawCircle(ICON_SIZE / 2f, ICON_SIZE / 2f, ICON_SIZE / 3f, Paint())
+        val data = ByteArray(ICON_SIZE * ICON_SIZE).apply {
+            mono.copyPixelsToBuffer(ByteBuffer.wrap(this))
+        }
+
+        for (format in IconBlobFormat.entries) {
+            // The expected size includes the optional luminance delta
+            val decoded = format.decodeBytes(format.encodeBytes(data), data.size + 8)
+            assertThat(decoded).isEqualTo(data)
+        }
+    }
+
+    @Test
+    fun `raw format converts non argb bitmaps`() {
+        val icon = createIcon().copy(RGB_565, false)
+        val raw = IconBlobFormat.RAW_DEFLATE
+
+        val decoded = raw.decodeBitmap(raw.encodeBitmap(icon), ARGB_8888)!!
+
+        assertThat(decoded.getPixel(ICON_SIZE / 2, ICON_SIZE / 2))
+            .isEqualTo(icon.getPixel(ICON_SIZE / 2, ICON_SIZE / 2))
+    }
+
+    @Test
+    fun `raw format rejects truncated and oversized data`() {
+        val raw = IconBlobFormat.RAW_DEFLATE
+        val data = ByteArray(ICON_SIZE * ICON_SIZE) { (it % 13).toByte() }
+        val encoded = raw.encodeBytes(data)
+
+        assertThat(raw.decodeBytes(encoded, data.size - 1)).isNull()
+        assertThat(raw.decodeBytes(encoded.copyOf(encoded.size / 2), data.size)).isNull()
+        val blob = raw.encodeBitmap(createIcon())
+        assertThat(raw.decodeBitmap(blob.copyOf(blob.size / 2), ARGB_8888)).isNull()
+    }
+
+    @Test
+    fun `raw format decodes older image blobs`() {
+        val icon = createIcon()
+        val raw = IconBlobFormat.RAW_DEFLATE
+
+        // WebP blobs start with "RIFF", they must not be mistaken for raw pixels
+        for (format in listOf(IconBlobFormat.PNG, IconBlobFormat.WEBP_LOSSLESS)) {
+            val decoded = raw.decodeBitmap(format.encodeBitmap(icon), ARGB_8888)
+            assertThat(decoded).isNotNull()
+            assertThat(decoded!!.getPixel(ICON_SIZE / 2, ICON_SIZE / 2))
+                .isEqualTo(icon.getPixel(ICON_SIZE / 2, ICON_SIZE / 2))
+        }
+    }
+
+    private fun createIcon(): Bitmap {
+        val icon = Bitmap.createBitmap(ICON_SIZE, ICON_SIZE, ARGB_8888)
+        val paint = Paint(Paint.ANTI_ALIAS_FLAG)
+        val canvas = Canvas(icon)
+        paint.color = Color.HSVToColor(floatArrayOf(0f, 0.6f, 0.9f))
+        canvas.drawCircle(ICON_SIZE / 2f, ICON_SIZE / 2f, ICON_SIZE * 0.45f, paint)
+        paint.color = Color.WHITE
+        val inset = ICON_SIZE * 0.3f
+        canvas.drawRect(inset, inset, ICON_SIZE - inset, ICON_SIZE * 0.6f, paint)
+        return icon
+    }
+
+    companion object {
+        private const val ICON_SIZE = 192
+    }
+}
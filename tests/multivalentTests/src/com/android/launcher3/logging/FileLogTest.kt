@@ -83,6 +83,24 @@ class FileLogTest {
         Assert.assertTrue(writer.toString().contains("hoolalala"))
     }
 
+    @Test
+    @Throws(Exception::class)
+    fun testBatchedLogsKeepOrder() {
+        if (!FileLog.ENABLED) {
+            return
+        }
+        for (i in 0..<100) {
+            print("Testing", "line-$i")
+        }
+        val writer = StringWriter()
+        Assert.assertTrue(flushAll(PrintWriter(writer)))
+
+        val output = writer.toString()
+        val positions = (0..<100).map { output.indexOf("line-$it\n") }
+        Assert.assertFalse(positions.contains(-1))
+        Assert.assertEquals(positions.sorted(), positions)
+    }
+
     @Test
     @Throws(Exception::class)
     fun testOldFileTruncated() {
@@ -25,6 +25,8 @@ import com.android.launcher3.Flags
 import com.android.launcher3.InvariantDeviceProfile
 import com.android.launcher3.Launcher
 import com.android.launcher3.LauncherModel
+import com.android.launcher3.LauncherSettings.Favorites.CONTAINER_DESKTOP
+import com.android.launcher3.LauncherSettings.Favorites.CONTAINER_HOTSEAT
 import com.android.launcher3.ModelCallbacks
 import com.android.launcher3.model.data.ItemInfo
 import com.android.launcher3.pageindicators.PageIndicatorDots
@@ -46,6 +48,7 @@ import org.junit.Assert.assertNotEquals
 import org.junit.Assert.assertNotNull
 import org.junit.Assert.assertNull
 import org.junit.Assert.assertTrue
+import org.junit.Assume.assumeTrue
 import org.junit.Before
 import org.junit.Rule
 import org.junit.Test
@@ -204,6 +207,56 @@ class AsyncBindingTest {
         }
     }
 
+    @Test
+    fun test_first_screen_bound_before_remaining_items_are_loaded() {
+        assumeTrue(Flags.simplifiedLauncherModelBinding())
+        MAIN_EXECUTOR.execute { model.addCallbacksAndLoad(callbacks) }
+        waitForLoaderAndTempMainThread()
+
+        // Only the items on the first screen are part of the early bind
+        verify(callbacks, times(1))
+            .bindFirstScreenAsync(
+                argThat {
+                    count { it.isPersistedModelItem() } == 2 && all { it.isOnFirstScreen() }
+                }
+            )
+        verify(launcher, times(1)).startBinding()
+
+        // The complete bind only inflates the items which were not bound early
+        verify(itemInflater, times(5))
+            .inflateItem(argThat { isPersistedModelItem() }, isNull(), any())
+    }
+
+    @Test
+    fun test_first_screen_bind_includes_hotseat() {
+        assumeTrue(Flags.simplifiedLauncherModelBinding())
+        context.appComponent.layoutParserFactory.overrideXmlLayout(
+            LauncherLayoutBuilder()
+                .atHotseat(0)
+                .putApp(TEST_PACKAGE, TEST_PACKAGE)
+                .atWorkspace(0, 1, 0)
+                .putApp(TEST_PACKAGE, TEST_PACKAGE)
+                .atWorkspace(0, 1, 1)
+                .putApp(TEST_PACKAGE, TEST_PACKAGE)
+                .build()
+        )
+        MAIN_EXECUTOR.execute { model.addCallbacksAndLoad(callbacks) }
+        waitForLoaderAndTempMainThread()
+
+        // The hotseat is bound early along with the first page, the second page is not
+        verify(callbacks, times(1))
+            .bindFirstScreenAsync(
+                argThat {
+                    count { it.isPersistedModelItem() } == 2 &&
+                        any { it.container == CONTAINER_HOTSEAT } &&
+                        all { it.isOnFirstScreen() }
+                }
+            )
+    }
+
+    private fun ItemInfo.isOnFirstScreen() =
+        container == CONTAINER_HOTSEAT || (container == CONTAINER_DESKTOP && screenId == 0)
+
     private fun waitForLoaderAndTempMainThread() {
         repeat(5) {
             runOnExecutorSync(MAIN_EXECUTOR) {}
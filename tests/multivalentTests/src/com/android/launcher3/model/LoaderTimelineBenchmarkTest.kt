@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.launcher3.model
+
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.MediumTest
+import com.android.launcher3.LauncherModel
+import com.android.launcher3.model.LoaderTimelineRecorder.Companion.PHASE_BIND_WORKSPACE
+import com.android.launcher3.model.LoaderTimelineRecorder.Companion.PHASE_LOAD_WORKSPACE
+import com.android.launcher3.util.Executors.MAIN_EXECUTOR
+import com.android.launcher3.util.LauncherLayoutBuilder
+import com.android.launcher3.util.LauncherModelHelper.TEST_PACKAGE
+import com.android.launcher3.util.ModelTestExtensions.loadModelSync
+import com.android.launcher3.util.SandboxApplication
+import com.android.launcher3.util.TestUtil
+import com.google.common.truth.Truth.assertThat
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Cold start benchmark which loads a synthetic workspace and fails if the recorded loader phases
+ * regress past their budget.
+ */
+@MediumTest
+@RunWith(AndroidJUnit4::class)
+class LoaderTimelineBenchmarkTest {
+
+    @get:Rule val context = SandboxApplication().withModelDependency()
+
+    private val model: LauncherModel
+        get() = context.appComponent.testableModelState.model
+
+    private val recorder: LoaderTimelineRecorder
+        get() = context.appComponent.loaderTimelineRecorder
+
+    @Before
+    fun setUp() {
+        val builder = LauncherLayoutBuilder()
+        for (i in 0 until ITEM_COUNT) {
+            val cell = i % CELLS_PER_PAGE
+            builder
+                .atWorkspace(cell % PAGE_SIZE, cell / PAGE_SIZE, i / CELLS_PER_PAGE)
+                .putApp(TEST_PACKAGE, TEST_PACKAGE)
+        }
+        context.appComponent.layoutParserFactory.overrideXmlLayout(builder.build())
+    }
+
+    @Test
+    fun loadWorkspace_recordsTimeline() {
+        model.loadModelSync()
+
+        val timeline = recorder.getTimelines().last()
+        assertThat(timeline.cancelled).isFalse()
+        assertThat(timeline.dbRowsRead).isEqualTo(ITEM_COUNT)
+        assertThat(timeline.getPhase(PHASE_LOAD_WORKSPACE)!!.itemCount).isAtLeast(ITEM_COUNT)
+        assertThat(timeline.getPhase(PHASE_BIND_WORKSPACE)).isNotNull()
+        assertThat(timeline.iconCacheHits + timeline.iconCacheMisses).isAtLeast(ITEM_COUNT)
+    }
+
+    @Test
+    fun loadWorkspace_staysWithinBudget() {
+        // The first load pays for the default layout import, only measure the following ones
+        model.loadModelSync()
+        repeat(RUNS) { model.forceReloadSync() }
+
+        val timelines = recorder.getTimelines().takeLast(RUNS)
+        val loadMs = timelines.map { it.getPhase(PHASE_LOAD_WORKSPACE)!!.wallMs }.sorted()
+        val bindMs = timelines.map { it.getPhase(PHASE_BIND_WORKSPACE)!!.wallMs }.sorted()
+        // Use the median to keep the benchmark stable on noisy hosts
+        assertThat(loadMs[RUNS / 2]).isAtMost(LOAD_WORKSPACE_BUDGET_MS)
+        assertThat(bindMs[RUNS / 2]).isAtMost(BIND_WORKSPACE_BUDGET_MS)
+    }
+
+    private fun LauncherModel.forceReloadSync() {
+        TestUtil.runOnExecutorSync(MAIN_EXECUTOR) { forceReload() }
+        loadModelSync()
+    }
+
+    companion object {
+        private const val ITEM_COUNT = 500
+        private const val PAGE_SIZE = 4
+        private const val CELLS_PER_PAGE = PAGE_SIZE * PAGE_SIZE
+        private const val RUNS = 3
+
+        private const val LOAD_WORKSPACE_BUDGET_MS = 1500L
+        private const val BIND_WORKSPACE_BUDGET_MS = 500L
+    }
+}
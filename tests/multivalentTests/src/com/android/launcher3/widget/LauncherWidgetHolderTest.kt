@@ -33,6 +33,7 @@ import org.junit.Before
 import org.junit.Rule
 import org.junit.Test
 import org.junit.runner.RunWith
+import org.mockito.Mockito.inOrder
 import org.mockito.Mockito.mock
 import org.mockito.Mockito.times
 import org.mockito.Mockito.verify
@@ -72,6 +73,45 @@ class LauncherWidgetHolderTest {
         widgetHolder.clearWidgetViews()
     }
 
+    @Test
+    fun widget_holder_start_listening_reinflates_shown_views_first() {
+        val hiddenView = mock(PendingAppWidgetHostView::class.java)
+        val shownView = mock(PendingAppWidgetHostView::class.java)
+        doReturn(2).whenever(hiddenView).appWidgetId
+        doReturn(1).whenever(shownView).appWidgetId
+        doReturn(true).whenever(shownView).isShown
+        widgetHolder.mViews[2] = hiddenView
+        widgetHolder.mViews[1] = shownView
+        widgetHolder.setListeningFlag(false)
+        widgetHolder.startListening()
+        ListenableAppWidgetHost.widgetHolderExecutor.submit {}.get()
+        getInstrumentation().waitForIdleSync()
+        inOrder(shownView, hiddenView).apply {
+            verify(shownView).reInflate()
+            verify(hiddenView).reInflate()
+        }
+        widgetHolder.clearWidgetViews()
+    }
+
+    @Test
+    @UiThreadTest
+    fun widget_holder_attach_keeps_background_view_as_placeholder() {
+        val mockProviderInfo = mock(LauncherAppWidgetProviderInfo::class.java)
+        val backgroundView = mock(ListenableHostView::class.java)
+        doReturn(APP_WIDGET_ID).whenever(backgroundView).appWidgetId
+        doReturn(mockProviderInfo).whenever(backgroundView).appWidgetInfo
+        widgetHolder.setListeningFlag(true)
+
+        assertSame(backgroundView, widgetHolder.attachViewToHostAndGetAttachedView(backgroundView))
+        assertSame(backgroundView, widgetHolder.mViews.get(APP_WIDGET_ID))
+        assertEquals(listOf(backgroundView), widgetHolder.mPendingInflation)
+        // Deleting the widget before it is inflated drops the pending inflation
+        widgetHolder.deleteAppWidgetId(APP_WIDGET_ID)
+        assertEquals(0, widgetHolder.mViews.size())
+        assertTrue(widgetHolder.mPendingInflation.isEmpty())
+        widgetHolder.setListeningFlag(false)
+    }
+
     @Test
     fun holder_start_listening_after_activity_start() {
         widgetHolder.setShouldListenFlag(FLAG_STATE_IS_NORMAL or FLAG_ACTIVITY_RESUMED, true)
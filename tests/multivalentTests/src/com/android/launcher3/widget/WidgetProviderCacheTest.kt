@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.launcher3.widget
+
+import android.appwidget.AppWidgetManager
+import android.content.ComponentName
+import android.content.pm.ActivityInfo
+import android.os.Process
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.SmallTest
+import androidx.test.platform.app.InstrumentationRegistry
+import com.android.launcher3.util.TestActivityContext
+import com.google.common.truth.Truth.assertThat
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.mockito.Mock
+import org.mockito.Mockito.mock
+import org.mockito.Mockito.times
+import org.mockito.Mockito.verify
+import org.mockito.junit.MockitoJUnit
+import org.mockito.kotlin.whenever
+
+/** Unit tests for [WidgetProviderCache] */
+@SmallTest
+@RunWith(AndroidJUnit4::class)
+class WidgetProviderCacheTest {
+
+    @get:Rule
+    val context = TestActivityContext()
+
+    @get:Rule
+    val mockitoRule = MockitoJUnit.rule()
+    @Mock private lateinit var appWidgetManager: AppWidgetManager
+
+    private val user = Process.myUserHandle()
+    private val provider = InstrumentationRegistry.getInstrumentation().componentName
+    private val info =
+        LauncherAppWidgetProviderInfo().apply {
+            provider = this@WidgetProviderCacheTest.provider
+            providerInfo =
+                mock(ActivityInfo::class.java).apply { applicationInfo = context.applicationInfo }
+        }
+
+    private lateinit var underTest: WidgetProviderCache
+
+    @Before
+    fun setup() {
+        whenever(appWidgetManager.getInstalledProvidersForProfile(user)).thenReturn(listOf(info))
+        underTest = WidgetProviderCache(context, WidgetManagerHelper(context, appWidgetManager))
+    }
+
+    @Test
+    fun findProvider_queriesOncePerUser() {
+        assertThat(underTest.findProvider(provider, user)).isSameInstanceAs(info)
+        assertThat(underTest.findProvider(provider, user)).isSameInstanceAs(info)
+
+        verify(appWidgetManager, times(1)).getInstalledProvidersForProfile(user)
+    }
+
+    @Test
+    fun findProvider_returnsNull_ifProviderNotInstalled() {
+        assertThat(underTest.findProvider(ComponentName("pkg", "cls"), user)).isNull()
+        assertThat(underTest.findProvider(provider, user)).isSameInstanceAs(info)
+        verify(appWidgetManager, times(1)).getInstalledProvidersForProfile(user)
+    }
+}
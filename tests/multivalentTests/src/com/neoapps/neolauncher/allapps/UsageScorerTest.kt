@@ -0,0 +1,130 @@
+/*
+ * This file is part of Neo Launcher
+ * Copyright (c) 2026   Neo Launcher Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.neoapps.neolauncher.allapps
+
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.SmallTest
+import com.google.common.truth.Truth.assertThat
+import java.util.concurrent.TimeUnit
+import kotlin.math.pow
+import kotlin.random.Random
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/** Unit tests for [UsageScorer] */
+@SmallTest
+@RunWith(AndroidJUnit4::class)
+class UsageScorerTest {
+
+    private val scorer = UsageScorer(HALF_LIFE_MS)
+
+    @Test
+    fun `score halves after one half life`() {
+        scorer.recordLaunch("a", START, 4f)
+        val score = scorer.getScore("a", START)
+
+        assertThat(scorer.getScore("a", START + HALF_LIFE_MS)).isWithin(0.01f).of(score / 2)
+    }
+
+    @Test
+    fun `recent launches outrank older ones`() {
+        scorer.recordLaunch("old", START, 3f)
+        scorer.recordLaunch("recent", START + 3 * HALF_LIFE_MS)
+
+        assertThat(scorer.topK(2, START + 3 * HALF_LIFE_MS)).containsExactly("recent", "old")
+            .inOrder()
+    }
+
+    @Test
+    fun `launches at the current time of day rank higher`() {
+        val hourMs = TimeUnit.HOURS.toMillis(1)
+        val now = (0 until 24).map { START + it * hourMs }.first { UsageScorer.bucketOf(it) == 0 }
+        val otherBucket = now + 12 * hourMs
+        scorer.recordLaunch("morning", now)
+        scorer.recordLaunch("evening", otherBucket)
+
+        assertThat(scorer.topK(1, otherBucket)).containsExactly("evening")
+        assertThat(scorer.topK(1, now + TimeUnit.DAYS.toMillis(1))).containsExactly("morning")
+    }
+
+    @Test
+    fun `seeded launches don't favor a time of day`() {
+        val hourMs = TimeUnit.HOURS.toMillis(1)
+        scorer.seed("a", START, 4f)
+        val score = scorer.getScore("a", START)
+
+        (1 until 24).forEach {
+            assertThat(scorer.getScore("a", START + it * hourMs))
+                .isWithin(0.01f)
+                .of(score * (0.5f).pow(it * hourMs.toFloat() / HALF_LIFE_MS))
+        }
+    }
+
+    @Test
+    fun `remove keeps the other scores`() {
+        scorer.recordLaunch("a", START, 1f)
+        scorer.recordLaunch("b", START, 2f)
+        scorer.recordLaunch("c", START, 3f)
+
+        scorer.remove("a")
+
+        assertThat(scorer.count).isEqualTo(2)
+        assertThat(scorer.getScore("a", START)).isEqualTo(0f)
+        assertThat(scorer.topK(3, START)).containsExactly("c", "b").inOrder()
+    }
+
+    @Test
+    fun `snapshot matches scores`() {
+        scorer.recordLaunch("a", START, 1f)
+        scorer.recordLaunch("b", START + HALF_LIFE_MS, 1f)
+        val time = START + 2 * HALF_LIFE_MS
+
+        val snapshot = scorer.snapshot(time)
+
+        assertThat(snapshot.getScore("a")).isEqualTo(scorer.getScore("a", time))
+        assertThat(snapshot.getScore("b")).isEqualTo(scorer.getScore("b", time))
+        assertThat(snapshot.getScore("missing")).isEqualTo(0f)
+    }
+
+    @Test
+    fun `topK over 1000 apps matches sorted scores`() {
+        val random = Random(42)
+        repeat(LAUNCH_COUNT) {
+            scorer.recordLaunch(
+                "app${random.nextInt(APP_COUNT)}",
+                START + random.nextLong(TimeUnit.DAYS.toMillis(30)),
+            )
+        }
+        val now = START + TimeUnit.DAYS.toMillis(30)
+        val expected = (0 until APP_COUNT)
+            .map { "app$it" }
+            .sortedByDescending { scorer.getScore(it, now) }
+            .take(TOP_K)
+
+        assertThat(scorer.topK(TOP_K, now)).containsExactlyElementsIn(expected).inOrder()
+    }
+
+    companion object {
+        private val HALF_LIFE_MS = TimeUnit.DAYS.toMillis(7)
+        private const val START = 1_700_000_000_000L
+        private const val APP_COUNT = 1000
+        private const val LAUNCH_COUNT = 20_000
+        private const val TOP_K = 8
+    }
+}